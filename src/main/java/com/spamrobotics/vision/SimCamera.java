@@ -15,6 +15,7 @@ import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.util.Units;
 import frc.robot.Robot;
 import frc.robot.RobotContainer;
 import frc.robot.util.LimelightHelpers.PoseEstimate;
@@ -27,6 +28,18 @@ public class SimCamera {
 
     static final RawFiducial[] EMPTY_FIDUCIALS = new RawFiducial[0];
 
+    // Limelight 4 sensor, which has square pixels, so one focal length (in pixels) covers both axes
+    static final int LL4_WIDTH = 1280;
+    static final int LL4_HEIGHT = 800;
+    static final double LL4_FOCAL_LENGTH = LL4_WIDTH / 2.0 / Math.tan(Units.degreesToRadians(82) / 2);
+    // PhotonVision takes the diagonal FOV
+    private static final double LL4_DIAGONAL_FOV =
+        2 * Math.atan(Math.hypot(LL4_WIDTH, LL4_HEIGHT) / 2 / LL4_FOCAL_LENGTH);
+
+    // Simulated pipeline latency, for the AprilTag and detector cameras, read when each camera is created
+    public static double averageLatencyMs = 50;
+    public static double latencyStdDevMs = 15;
+
     final PhotonCamera camera;
     final PhotonPoseEstimator photonPoseEstimator;
 
@@ -44,12 +57,11 @@ public class SimCamera {
         visionSim.addAprilTags(apriltagLayout);
 
         SimCameraProperties cameraProp = new SimCameraProperties();
-        // TODO: set LL4 diagonal FOV instead of horizontal (82)
-        cameraProp.setCalibration(1280, 960, Rotation2d.fromDegrees(100));
+        cameraProp.setCalibration(LL4_WIDTH, LL4_HEIGHT, Rotation2d.fromRadians(LL4_DIAGONAL_FOV));
         cameraProp.setCalibError(0.35, 0.10);
         cameraProp.setFPS(45);
-        cameraProp.setAvgLatencyMs(50);
-        cameraProp.setLatencyStdDevMs(15);
+        cameraProp.setAvgLatencyMs(averageLatencyMs);
+        cameraProp.setLatencyStdDevMs(latencyStdDevMs);
         // Create a PhotonCameraSim which will update the linked PhotonCamera's values with visible
         // targets.
         cameraSim = new PhotonCameraSim(camera, cameraProp);
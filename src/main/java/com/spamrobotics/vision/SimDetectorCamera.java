@@ -0,0 +1,217 @@
+package com.spamrobotics.vision;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.RobotContainer;
+import frc.robot.util.LimelightHelpers.RawDetection;
+import frc.robot.util.simulation.GamePieceGrid;
+import frc.robot.util.simulation.SimLogic;
+
+/**
+ * Simulates a Limelight 4 running a coral and algae neural detector, by projecting the MapleSim game pieces near
+ * the camera into its image.
+ * <p>
+ * Each game piece is treated as a box (a coral's length and diameter, or an algae's diameter), and its detection is
+ * the bounding box of the box's projected corners. Detections come out at the detector's frame rate with random
+ * latency, pixel noise and dropouts, and small or mostly hidden pieces are dropped the way the real detector
+ * misses them.
+ */
+public class SimDetectorCamera {
+
+    public static final int ALGAE_CLASS = 0;
+    public static final int CORAL_CLASS = 1;
+
+    // Limelight 4 intrinsics
+    private static final int WIDTH = SimCamera.LL4_WIDTH;
+    private static final int HEIGHT = SimCamera.LL4_HEIGHT;
+    private static final double FX = SimCamera.LL4_FOCAL_LENGTH;
+    private static final double FY = SimCamera.LL4_FOCAL_LENGTH;
+    private static final double CX = WIDTH / 2.0;
+    private static final double CY = HEIGHT / 2.0;
+    private static final double IMAGE_AREA = WIDTH * HEIGHT;
+
+    private static final double FRAME_PERIOD = 1.0 / 30;
+    private static final double MIN_LATENCY = 0.015;
+    private static final double PIXEL_STDDEV = 2;
+    private static final double DROPOUT_CHANCE = 0.03;
+    // Pieces smaller than this (percent of the image) are missed more and more often
+    private static final double RELIABLE_AREA = 0.1;
+    // Pieces with less than this much of their box in the image aren't detected
+    private static final double MIN_VISIBLE_FRACTION = 0.3;
+    // Pieces with this much of their box behind a closer piece aren't detected
+    private static final double OCCLUDED_FRACTION = 0.8;
+    private static final double NEAR_PLANE = 0.05;
+    // Only pieces this close to the camera are projected
+    private static final double MAX_RANGE = 8;
+
+    private static final Translation3d CORAL_HALF_SIZE = new Translation3d(SimLogic.CORAL_LENGTH / 2, 0.057, 0.057);
+    private static final Translation3d ALGAE_HALF_SIZE = new Translation3d(0.207, 0.207, 0.207);
+    private static final RawDetection[] EMPTY_DETECTIONS = new RawDetection[0];
+
+    private final Transform3d robotToCamera;
+    // Pipeline latency in seconds, from the same parameters as the AprilTag cameras
+    private final double averageLatency = SimCamera.averageLatencyMs / 1000;
+    private final double latencyStdDev = SimCamera.latencyStdDevMs / 1000;
+    private final ArrayDeque<Frame> pendingFrames = new ArrayDeque<>();
+    private final List<Box> boxes = new ArrayList<>();
+    private final List<GamePieceGrid.Entry> nearbyPieces = new ArrayList<>();
+    private final double[] cornerU = new double[8];
+    private final double[] cornerV = new double[8];
+
+    private double nextCaptureTime = 0;
+    private RawDetection[] detections = EMPTY_DETECTIONS;
+    private double timestamp = 0;
+
+    private record Frame(double captureTime, double publishTime, RawDetection[] detections) {}
+
+    private record Box(int classId, double distance, double minU, double minV, double maxU, double maxV) {
+        double area() {
+            return (maxU - minU) * (maxV - minV);
+        }
+
+        double overlap(Box other) {
+            double width = Math.min(maxU, other.maxU) - Math.max(minU, other.minU);
+            double height = Math.min(maxV, other.maxV) - Math.max(minV, other.minV);
+            return width > 0 && height > 0 ? width * height : 0;
+        }
+    }
+
+    public SimDetectorCamera(Transform3d robotToCamera) {
+        this.robotToCamera = robotToCamera;
+    }
+
+    /**
+     * Captures a frame if one is due, and publishes any frames whose latency has passed.
+     */
+    public void update() {
+        double now = Timer.getFPGATimestamp();
+        if (now >= nextCaptureTime) {
+            double latency = Math.max(MIN_LATENCY, averageLatency + SimLogic.random.nextGaussian() * latencyStdDev);
+            pendingFrames.add(new Frame(now, now + latency, capture()));
+            nextCaptureTime += FRAME_PERIOD;
+            if (nextCaptureTime < now) nextCaptureTime = now + FRAME_PERIOD;
+        }
+
+        while (!pendingFrames.isEmpty() && pendingFrames.peek().publishTime() <= now) {
+            Frame frame = pendingFrames.poll();
+            detections = frame.detections();
+            timestamp = frame.captureTime();
+        }
+    }
+
+    /**
+     * Returns the detections in the most recently published frame.
+     */
+    public RawDetection[] getDetections() {
+        return detections;
+    }
+
+    /**
+     * Returns when the most recently published frame was captured.
+     */
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    private RawDetection[] capture() {
+        Pose3d cameraPose = new Pose3d(RobotContainer.instance.drivetrain.getSimPose()).transformBy(robotToCamera);
+        Rotation3d toCamera = cameraPose.getRotation().unaryMinus();
+
+        boxes.clear();
+        project(SimLogic.coralGrid, CORAL_CLASS, CORAL_HALF_SIZE, cameraPose, toCamera);
+        project(SimLogic.algaeGrid, ALGAE_CLASS, ALGAE_HALF_SIZE, cameraPose, toCamera);
+        boxes.sort((a, b) -> Double.compare(a.distance(), b.distance()));
+
+        List<RawDetection> frame = new ArrayList<>();
+        for (int i = 0; i < boxes.size(); i++) {
+            Box box = boxes.get(i);
+            double hidden = 0;
+            for (int j = 0; j < i; j++) {
+                hidden += box.overlap(boxes.get(j));
+            }
+            if (hidden >= OCCLUDED_FRACTION * box.area()) continue;
+
+            double areaPercent = box.area() / IMAGE_AREA * 100;
+            double missChance = DROPOUT_CHANCE + Math.max(0, 1 - areaPercent / RELIABLE_AREA);
+            if (SimLogic.random.nextDouble() < missChance) continue;
+
+            frame.add(toDetection(box));
+        }
+        return frame.toArray(EMPTY_DETECTIONS);
+    }
+
+    private void project(GamePieceGrid grid, int classId, Translation3d halfSize, Pose3d cameraPose,
+                         Rotation3d toCamera) {
+        nearbyPieces.clear();
+        grid.queryRadius(cameraPose.getX(), cameraPose.getY(), MAX_RANGE, nearbyPieces);
+        for (int p = 0; p < nearbyPieces.size(); p++) {
+            Pose3d piece = nearbyPieces.get(p).getPose();
+            double distance = piece.getTranslation().getDistance(cameraPose.getTranslation());
+            boolean inFront = true;
+            int corner = 0;
+            for (int sx = -1; sx <= 1; sx += 2) {
+                for (int sy = -1; sy <= 1; sy += 2) {
+                    for (int sz = -1; sz <= 1; sz += 2) {
+                        Translation3d offset = new Translation3d(sx * halfSize.getX(), sy * halfSize.getY(),
+                                                                 sz * halfSize.getZ());
+                        // Camera frame: X forward, Y left, Z up
+                        Translation3d point = piece.getTranslation().plus(offset.rotateBy(piece.getRotation()))
+                                                   .minus(cameraPose.getTranslation()).rotateBy(toCamera);
+                        if (point.getX() < NEAR_PLANE) {
+                            inFront = false;
+                        }
+                        cornerU[corner] = CX - FX * point.getY() / point.getX();
+                        cornerV[corner] = CY - FY * point.getZ() / point.getX();
+                        corner++;
+                    }
+                }
+            }
+            if (!inFront) continue;
+
+            double minU = Double.MAX_VALUE, minV = Double.MAX_VALUE;
+            double maxU = -Double.MAX_VALUE, maxV = -Double.MAX_VALUE;
+            for (int i = 0; i < 8; i++) {
+                minU = Math.min(minU, cornerU[i]);
+                maxU = Math.max(maxU, cornerU[i]);
+                minV = Math.min(minV, cornerV[i]);
+                maxV = Math.max(maxV, cornerV[i]);
+            }
+            double fullArea = (maxU - minU) * (maxV - minV);
+            minU = Math.max(minU, 0);
+            minV = Math.max(minV, 0);
+            maxU = Math.min(maxU, WIDTH);
+            maxV = Math.min(maxV, HEIGHT);
+            if (maxU <= minU || maxV <= minV) continue;
+
+            Box box = new Box(classId, distance, minU, minV, maxU, maxV);
+            if (box.area() < MIN_VISIBLE_FRACTION * fullArea) continue;
+            boxes.add(box);
+        }
+    }
+
+    private RawDetection toDetection(Box box) {
+        double minU = box.minU() + SimLogic.random.nextGaussian() * PIXEL_STDDEV;
+        double maxU = box.maxU() + SimLogic.random.nextGaussian() * PIXEL_STDDEV;
+        double minV = box.minV() + SimLogic.random.nextGaussian() * PIXEL_STDDEV;
+        double maxV = box.maxV() + SimLogic.random.nextGaussian() * PIXEL_STDDEV;
+
+        double u = (minU + maxU) / 2;
+        double v = (minV + maxV) / 2;
+        double txnc = Units.radiansToDegrees(Math.atan((u - CX) / FX));
+        double tync = Units.radiansToDegrees(Math.atan((CY - v) / FY));
+        double ta = Math.abs((maxU - minU) * (maxV - minV)) / IMAGE_AREA * 100;
+
+        return new RawDetection(box.classId(), txnc, tync, ta,
+                                minU, minV,
+                                maxU, minV,
+                                maxU, maxV,
+                                minU, maxV);
+    }
+}
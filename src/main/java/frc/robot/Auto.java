@@ -10,8 +10,12 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.units.measure.Distance;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.ScheduleCommand;
@@ -20,7 +24,10 @@ import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.commands.DriveToCoralPose;
 import frc.robot.commands.DriveToPose;
 import frc.robot.subsystems.DrivetrainSubsystem;
+import frc.robot.subsystems.vision.VisionSubsystem;
+import frc.robot.util.AutoScoringOptimizer;
 import frc.robot.util.CoralScoringPosition;
+import frc.robot.util.PosePredictor.PredictedPose;
 import frc.robot.util.simulation.SimLogic;
 
 public final class Auto {
@@ -44,6 +51,27 @@ public final class Auto {
     public static boolean seenCoralThisCycle = false;
     public static double startTime = 0;
 
+    private static final double AUTO_LENGTH = 15;
+    // Caps how much of the search a re-plan runs in the robot loop. AutoScoringOptimizerBenchmark times re-plans at
+    // this budget, and the time of each one is logged to "Auto/Replan ms".
+    public static final long REPLAN_NODE_BUDGET = 2000;
+
+    // Branches an alliance partner plans to fill in auto, entered on the dashboard before the match as blue alliance
+    // branches like "19R4" (tag, left or right, level). Autos skip them, as well as the ones we've scored on.
+    public static final String BLOCKED_BRANCHES_KEY = "Auto/Blocked Branches";
+    private static final Alert blockedBranchesAlert = new Alert("", AlertType.kWarning);
+
+    // Whether the running auto re-plans its scoring order, rather than keeping the order it was given
+    private static boolean replanning = false;
+
+    private static AutoScoringOptimizer scoringOptimizer = null;
+    private static final List<CoralScoringPosition> replanPositions = new ArrayList<>(AutoScoringOptimizer.MAX_PLACEMENTS);
+    private static final CoralScoringPosition[] replanOrder = new CoralScoringPosition[AutoScoringOptimizer.MAX_PLACEMENTS];
+
+    // Roughly how long the coral intake takes to deploy and spin up
+    private static final double INTAKE_PREDICTION_HORIZON = 0.25;
+    private static final PredictedPose predictedIntakePose = new PredictedPose();
+
     public static final Trigger intakingState = new Trigger(() -> state == AutoState.INTAKING);
     public static final Trigger scoringState = new Trigger(() -> state == AutoState.SCORING);
 
@@ -85,6 +113,18 @@ public final class Auto {
         );
     }
 
+    /**
+     * Reorders a list of coral scoring positions to minimize the expected time to score all of them.
+     * @param coralScoringPositions The positions to score, on the blue alliance
+     * @param left Whether the auto picks up from the left human player station
+     * @param start The (blue alliance) pose the robot is expected to start at
+     */
+    public static List<CoralScoringPosition> optimizedOrder(List<CoralScoringPosition> coralScoringPositions, boolean left, Pose2d start) {
+        AutoScoringOptimizer optimizer = getScoringOptimizer();
+        optimizer.setNodeBudget(Long.MAX_VALUE);
+        return optimizer.optimize(start, coralScoringPositions, left);
+    }
+
     public static List<CoralScoringPosition> middleBarge(boolean firstBranchLeft) {
         return List.of(
             new CoralScoringPosition(21, 4, firstBranchLeft)
@@ -95,6 +135,7 @@ public final class Auto {
     
     public static void init() {
         state = AutoState.IDLE;
+        replanning = false;
         coralIntaking = false;
         firstCoralCycle = true;
         seenCoralThisCycle = false;
@@ -120,8 +161,9 @@ public final class Auto {
                 return;
             }
 
-            Pose2d robot = RobotContainer.instance.drivetrain.getPose();
-            if (robot.getTranslation().getDistance(coralPickup.getTranslation()) < 2.5) {
+            // Use where we'll be once the intake has deployed, rather than where we are now
+            RobotContainer.instance.drivetrain.predictPose(INTAKE_PREDICTION_HORIZON, predictedIntakePose);
+            if (predictedIntakePose.getDistance(coralPickup.getTranslation()) < 2.5) {
                 coralIntaking = true;
             }
         }).until(Auto::isCoralIntaking);
@@ -281,30 +323,123 @@ public final class Auto {
     }
 
     public static Command setState(AutoState newState) {
-        return Commands.runOnce(() -> Auto.state = newState);
+        return Commands.runOnce(() -> {
+            AutoState oldState = Auto.state;
+            Auto.state = newState;
+            // Heading into SCORING, the target was already re-planned and committed to by driveToNextCoralPose()
+            if (oldState != newState && newState != AutoState.SCORING) {
+                replanCoralScoringPositions();
+            }
+        });
+    }
+
+    /**
+     * Marks the branches entered under {@link #BLOCKED_BRANCHES_KEY} as filled. Called at the start of auto, after
+     * the reef has been reset.
+     */
+    public static void markBlockedBranches() {
+        List<String> invalid = new ArrayList<>();
+        for (String entry : SmartDashboard.getStringArray(BLOCKED_BRANCHES_KEY, new String[0])) {
+            CoralScoringPosition position = parseBranch(entry.trim().toUpperCase());
+            if (position == null) {
+                invalid.add(entry);
+                continue;
+            }
+            position = position.getFlippedIfNeeded();
+            Field.setReefCoral(position.tag, position.isLeft, position.level);
+        }
+        blockedBranchesAlert.setText("Auto - Ignored blocked branches " + invalid);
+        blockedBranchesAlert.set(!invalid.isEmpty());
+    }
+
+    /**
+     * Parses a blue alliance branch like "19R4", returning null if it isn't one.
+     */
+    private static CoralScoringPosition parseBranch(String branch) {
+        if (!branch.matches("\\d{2}[LR][1-4]")) return null;
+
+        int tag = Integer.parseInt(branch.substring(0, 2));
+        if (!VisionSubsystem.blueReefTags.contains(tag)) return null;
+        return new CoralScoringPosition(tag, branch.charAt(3) - '0', branch.charAt(2) == 'L');
+    }
+
+    /**
+     * Drops the remaining coral scoring positions that already have coral on them, then re-ranks the rest from the
+     * robot's current pose if the running auto re-plans. The order that scores everything soonest is used, unless
+     * its first placement can't be finished before the end of auto, in which case the quickest placement that can is
+     * moved to the front.
+     */
+    public static void replanCoralScoringPositions() {
+        coralScoringPositions.removeIf(position -> Field.hasReefCoral(position.tag, position.isLeft, position.level));
+        if (!replanning) return;
+
+        int count = coralScoringPositions.size();
+        if (count <= 1 || count > AutoScoringOptimizer.MAX_PLACEMENTS) return;
+
+        // The optimizer works in blue alliance coordinates
+        boolean flip = Robot.isRed();
+        Pose2d robotPose = RobotContainer.instance.drivetrain.getPose();
+        if (flip) robotPose = FlippingUtil.flipFieldPose(robotPose);
+
+        replanPositions.clear();
+        for (int i = 0; i < count; i++) {
+            CoralScoringPosition position = coralScoringPositions.get(i);
+            replanPositions.add(flip ? position.getFlipped() : position);
+            replanOrder[i] = position;
+        }
+
+        boolean needsPickup = state == AutoState.INTAKING || state == AutoState.RETRYING_INTAKE;
+        AutoScoringOptimizer optimizer = getScoringOptimizer();
+        optimizer.setNodeBudget(REPLAN_NODE_BUDGET);
+        optimizer.solve(robotPose, replanPositions, leftSide, !leftSide, needsPickup);
+
+        int first = optimizer.getOptimizedIndex(0);
+        double remainingTime = AUTO_LENGTH - (Timer.getFPGATimestamp() - startTime);
+        if (optimizer.getCompletionTime(0) > remainingTime) {
+            int quickest = first;
+            for (int i = 0; i < count; i++) {
+                if (optimizer.getFirstCost(i) < optimizer.getFirstCost(quickest)) quickest = i;
+            }
+            if (optimizer.getFirstCost(quickest) <= remainingTime) first = quickest;
+        }
+
+        coralScoringPositions.clear();
+        coralScoringPositions.add(replanOrder[first]);
+        for (int i = 0; i < count; i++) {
+            int index = optimizer.getOptimizedIndex(i);
+            if (index != first) coralScoringPositions.add(replanOrder[index]);
+        }
+
+        SmartDashboard.putNumber("Auto/Replan ms", optimizer.getLastSolveMillis());
     }
 
     /**
      * Creates a command that configures variables needed for autonomous mode.
      * The Command should be the first one to be executed at the start of autonomous.
      * @param coralScoringPositions The list of coral scoring positions to be used in autonomous
+     * @param replan Whether to re-plan the order of the remaining positions as the auto runs
      * @param simAutoStart The starting pose for the robot in simulation
      */
-    public static Command configureAuto(List<CoralScoringPosition> coralScoringPositions, boolean left, Pose2d simAutoStart) {
+    public static Command configureAuto(List<CoralScoringPosition> coralScoringPositions, boolean left, boolean replan, Pose2d simAutoStart) {
         return Commands.runOnce(() -> {
             setCoralScoringPositions(coralScoringPositions);
             leftSide = left;
+            replanning = replan;
             if (Robot.isSimulation()) {
                 Pose2d start = simAutoStart;
                 if (Robot.isRed()) start = FlippingUtil.flipFieldPose(start);
-                RobotContainer.instance.drivetrain.resetPose(start);
+                RobotContainer.instance.drivetrain.resetPose(start, start.transformBy(SimLogic.startPoseError));
             }
         });
     }
 
     public static Command bargeCoralAuto(List<CoralScoringPosition> coralScoringPositions, boolean left, Pose2d simStart) {
+        return bargeCoralAuto(coralScoringPositions, left, false, simStart);
+    }
+
+    public static Command bargeCoralAuto(List<CoralScoringPosition> coralScoringPositions, boolean left, boolean replan, Pose2d simStart) {
         return Commands.parallel(
-            Auto.configureAuto(coralScoringPositions, left, simStart),
+            Auto.configureAuto(coralScoringPositions, left, replan, simStart),
             RobotContainer.instance.intakeCoralPivot.extend(),
             (driveToNextCoralPose())
         ).withName(left ? "Left Barge" : "Right Barge");
@@ -338,19 +473,43 @@ public final class Auto {
     // =========== Helper Methods ===========
 
     private static Pose2d getHPStationClosePose() {
+        return getHPStationClosePose(Robot.isBlue(), leftSide);
+    }
+
+    private static Pose2d getHPStationClosePose(boolean blue, boolean left) {
         Pose2d hpStation;
-        if (Robot.isBlue()) {
-            hpStation = leftSide ? leftBlueHPStation : rightBlueHPStation;
+        if (blue) {
+            hpStation = left ? leftBlueHPStation : rightBlueHPStation;
             hpStation = new Pose2d(hpStation.getTranslation(), hpStation.getRotation().rotateBy(Rotation2d.k180deg));
         } else {
-            hpStation = leftSide ? leftRedHPStation : rightRedHPStation;
+            hpStation = left ? leftRedHPStation : rightRedHPStation;
         }
-        hpStation = hpStation.transformBy(leftSide ? LEFT_HP_STATION_TRANSFORM : RIGHT_HP_STATION_TRANSFORM);
+        hpStation = hpStation.transformBy(left ? LEFT_HP_STATION_TRANSFORM : RIGHT_HP_STATION_TRANSFORM);
         return hpStation;
     }
 
+    private static AutoScoringOptimizer getScoringOptimizer() {
+        if (scoringOptimizer == null) {
+            DrivetrainSubsystem drivetrain = RobotContainer.instance.drivetrain;
+            VisionSubsystem vision = RobotContainer.instance.vision;
+            scoringOptimizer = new AutoScoringOptimizer(
+                vision.leftReefHashMap,
+                vision.rightReefHashMap,
+                getHPStationClosePose(true, true),
+                getHPStationClosePose(true, false),
+                drivetrain.driveToPoseConstraints,
+                new TrapezoidProfile.Constraints(DrivetrainSubsystem.MAX_ANGULAR_RATE, DrivetrainSubsystem.MAX_ANGULAR_ACCEL)
+            );
+        }
+        return scoringOptimizer;
+    }
+
     private static Command driveToNextCoralPose() {
         return Commands.defer(() -> {
+            // Last chance to change our mind before committing to a target
+            replanCoralScoringPositions();
+            if (nextCoralScoringPosition() == null) return Commands.none();
+
             DriveToPose drivePose = new DriveToCoralPose(
                 () -> nextCoralScoringPosition().tag,
                 (tag) -> nextCoralScoringPosition().getPose()
@@ -1,6 +1,7 @@
 package frc.robot;
 
 import static edu.wpi.first.units.Units.*;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Optional;
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
@@ -14,6 +15,9 @@ public abstract class Field {
     private static HashMap<Integer, Integer> ALGAE_HEIGHTS, CURRENT_ALGAE_HEIGHTS;
     private static Pose3d[] reefAlgaePoses = null;
 
+    // Which reef branches are known to have coral on them, indexed by [tag][left ? 1 : 0][level]
+    private static final boolean[][][] REEF_CORAL = new boolean[23][2][5];
+
     // Game Manual Page 24 - "...pipes on the same face are 1 ft. 1 in. (~33 cm) apart (center to center)."
     public static final Distance REEF_BRANCH_SEPARATION = Inches.of(13);
 
@@ -88,6 +92,22 @@ public abstract class Field {
         reefAlgaePoses = null;
     }
 
+    public static boolean hasReefCoral(int tag, boolean left, int level) {
+        return REEF_CORAL[tag][left ? 1 : 0][level];
+    }
+
+    public static void setReefCoral(int tag, boolean left, int level) {
+        REEF_CORAL[tag][left ? 1 : 0][level] = true;
+    }
+
+    public static void resetReefCoral() {
+        for (boolean[][] tag : REEF_CORAL) {
+            for (boolean[] branch : tag) {
+                Arrays.fill(branch, false);
+            }
+        }
+    }
+
     public static int getAlgaeLevel(int tag) {
         Integer level = ALGAE_HEIGHTS.get(tag);
         return level != null ? level : -1;
@@ -29,6 +29,10 @@ import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.util.AsyncEpilogueBackend;
+import frc.robot.util.CachedCondition;
+import frc.robot.util.CanBudget;
+import frc.robot.util.LoopProfiler;
 import frc.robot.util.StatusSignals;
 import frc.robot.util.simulation.SimLogic;
 import frc.robot.util.simulation.SimVisuals;
@@ -39,7 +43,6 @@ public class Robot extends TimedRobot {
 
     private static boolean DEMO_MODE = false;
 
-    public static boolean currentlyScoringCoral = false;
     public static boolean justScoredCoral = false;
     public static boolean wasEverEnabled = false;
     private static boolean isBlueAlliance = false;
@@ -52,8 +55,16 @@ public class Robot extends TimedRobot {
     @NotLogged
     private Trigger didPartnerPush = new Trigger(() -> shouldPartnerPush && !partnerPush.isScheduled());
 
-    @Logged(name = "RobotContainer")
+    @Logged(name = "RobotContainer", importance = Logged.Importance.CRITICAL)
     private final RobotContainer robotContainer;
+    @NotLogged
+    private final AsyncEpilogueBackend epilogueBackend;
+    @Logged(name = "CANivore Signals")
+    private final StatusSignals.SignalGroup canivoreSignals = StatusSignals.getGroup(Constants.CANIVORE);
+    @Logged(name = "CANivore Budget")
+    private final CanBudget canivoreBudget = new CanBudget(Constants.CANIVORE);
+    @Logged(name = "RIO CAN Budget")
+    private final CanBudget rioBudget = new CanBudget("rio");
 
     private final Alert noAutoAlert = new Alert("Setup - No auto selected!", AlertType.kWarning);
     private final Alert noCoralAlert = new Alert("Setup - No coral detected!", AlertType.kWarning);
@@ -81,11 +92,40 @@ public class Robot extends TimedRobot {
         robotContainer = new RobotContainer();
         DataLogManager.start();
         DriverStation.startDataLog(DataLogManager.getLog());
-
+        canivoreBudget.report();
+        rioBudget.report();
+
+        // Serialization and I/O happen on a background thread, so the main loop only copies values
+        epilogueBackend = new AsyncEpilogueBackend(NetworkTableInstance.getDefault(), DataLogManager.getLog());
+        // Temperatures change slowly, and the profiler only updates its stats every few seconds
+        epilogueBackend.setDecimation("Temp", 50);
+        epilogueBackend.setDecimation("Loop Profiler/", 25);
+
+        // The fields logged at CRITICAL importance stay on NetworkTables during matches. Everything else only goes to
+        // the DataLog while on the field. A nested object's fields are only reached if the field holding it is at
+        // least as important, so the path down to them is marked CRITICAL too.
         Epilogue.configure(config -> {
-            config.minimumImportance = Logged.Importance.DEBUG;
+            config.backend = epilogueBackend;
+            config.minimumImportance = Logged.Importance.CRITICAL;
         });
-        Epilogue.bind(this);
+        epilogueBackend.markPublishedInMatch(() -> Epilogue.update(this));
+        Epilogue.configure(config -> config.minimumImportance = Logged.Importance.DEBUG);
+        // Same schedule as Epilogue.bind, but timed by the loop profiler
+        addPeriodic(this::updateEpilogue, Constants.LOOP_TIME, Constants.LOOP_TIME / 2);
+    }
+
+    private void updateEpilogue() {
+        long start = robotContainer.loopProfiler.start();
+        epilogueBackend.beginBatch();
+        Epilogue.update(this);
+        epilogueBackend.endBatch();
+        robotContainer.loopProfiler.stopEpilogue(start);
+    }
+
+    @Override
+    public void close() {
+        epilogueBackend.close();
+        super.close();
     }
 
     @Override
@@ -94,6 +134,7 @@ public class Robot extends TimedRobot {
         FollowPathCommand.warmupCommand().schedule();
         partnerPush = Auto.partnerPush();
         didPartnerPush.onTrue(Commands.runOnce(() -> m_autonomousCommand.schedule()));
+        robotContainer.loopProfiler.bindPollEnd();
 
         // Elastic.selectTab("Autonomous");
     }
@@ -101,16 +142,30 @@ public class Robot extends TimedRobot {
     @Override
     public void robotPeriodic() {
         isBlueAlliance = DriverStation.getAlliance().orElse(Alliance.Blue) == Alliance.Blue;
+        CachedCondition.nextCycle();
+        LoopProfiler profiler = robotContainer.loopProfiler;
+        profiler.startLoop();
         robotContainer.drivetrain.clearCache();
+        if (RobotContainer.MAPLESIM) SimLogic.updateGamePieces();
+        long refreshStart = profiler.start();
         StatusSignals.refreshAll();
+        profiler.stopRefresh(refreshStart);
         CommandScheduler.getInstance().run();
         SimVisuals.update();
 
         batteryVoltage = RobotController.getBatteryVoltage();
+        canivoreBudget.update();
+        rioBudget.update();
+        profiler.endLoop();
     }
 
     @Override
-    public void disabledInit() {}
+    public void disabledInit() {
+        robotContainer.resetReefScoring();
+
+        // Report how much work the trigger conditions did over the match
+        if (wasEverEnabled) CachedCondition.logCounts();
+    }
 
     @Override
     public void disabledPeriodic() {
@@ -137,6 +192,8 @@ public class Robot extends TimedRobot {
     public void autonomousInit() {
         Auto.init();
         Field.resetReefAlgae();
+        Field.resetReefCoral();
+        Auto.markBlockedBranches();
         if (Robot.isSimulation()) {
             SimulatedArena.getInstance().resetFieldForAuto();
             SimLogic.armHasCoral = true;
@@ -218,18 +275,24 @@ public class Robot extends TimedRobot {
         }
     }
 
+    @NotLogged
+    private int publishedCoralVersion = -1;
+    @NotLogged
+    private Pose3d[] combinedAlgae = new Pose3d[0];
     @NotLogged
     private final Transform3d robotAlgaeIntakeTransform = new Transform3d(0, 0.2, 0.3, Rotation3d.kZero);
 
     @Override
     public void simulationPeriodic() {
         RobotContainer rc = robotContainer;
-        // Get the positions of all maplesim coral and publish them to NetworkTables
-        Pose3d[] coral = SimulatedArena.getInstance().getGamePiecesArrayByType("Coral");
-        coralPoses.accept(coral);
+        // Publish the positions of all maplesim coral to NetworkTables, when they change
+        if (SimLogic.coralGrid.getVersion() != publishedCoralVersion) {
+            coralPoses.accept(SimLogic.coralGrid.getPoses());
+            publishedCoralVersion = SimLogic.coralGrid.getVersion();
+        }
 
         // Get the positions of all algae and publish them to NetworkTables
-        Pose3d[] algae = SimulatedArena.getInstance().getGamePiecesArrayByType("Algae");
+        Pose3d[] algae = SimLogic.algaeGrid.getPoses();
         Pose3d[] fieldAlgae = Field.getReefAlgaePoses();
         Pose3d robotAlgae;
         if (rc.elevatorArmAlgae.hasAlgae.getAsBoolean() || rc.intakeAlgae.hasAlgae.getAsBoolean()) {
@@ -243,7 +306,9 @@ public class Robot extends TimedRobot {
         } else {
             robotAlgae = Pose3d.kZero;
         }
-        Pose3d[] combinedAlgae = new Pose3d[algae.length + fieldAlgae.length + 1];
+        if (combinedAlgae.length != algae.length + fieldAlgae.length + 1) {
+            combinedAlgae = new Pose3d[algae.length + fieldAlgae.length + 1];
+        }
         System.arraycopy(algae, 0, combinedAlgae, 0, algae.length);
         System.arraycopy(fieldAlgae, 0, combinedAlgae, algae.length, fieldAlgae.length);
         combinedAlgae[algae.length + fieldAlgae.length] = robotAlgae;
@@ -257,6 +322,13 @@ public class Robot extends TimedRobot {
         aiRobotPoses.accept(aiRobotPosesArray);
     }
 
+    /**
+     * Returns where the simulated robot actually is on the field.
+     */
+    public Pose2d getSimPose() {
+        return robotContainer.drivetrain.getSimPose();
+    }
+
     // Helper method to simplify checking if the robot is blue or red alliance
     public static boolean isBlue() {
         return isBlueAlliance;
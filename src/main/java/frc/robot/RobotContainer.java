@@ -20,7 +20,6 @@ import java.util.function.BooleanSupplier;
 import java.util.function.DoubleSupplier;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import com.ctre.phoenix.led.Animation;
 import com.pathplanner.lib.util.FlippingUtil;
 import com.spamrobotics.util.Helpers;
 import com.spamrobotics.util.JoystickInputs;
@@ -52,6 +51,7 @@ import frc.robot.commands.RumbleCommand;
 import frc.robot.generated.TunerConstants;
 import frc.robot.subsystems.DrivetrainSubsystem;
 import frc.robot.subsystems.LEDSubsystem;
+import frc.robot.subsystems.LEDSubsystem.Layer;
 import frc.robot.subsystems.DrivetrainSubsystem.HeadingTarget;
 import frc.robot.subsystems.DrivetrainSubsystem.PoseTarget;
 import frc.robot.subsystems.IntakeAlgae.IntakeAlgaeSubsystem;
@@ -64,6 +64,11 @@ import frc.robot.subsystems.coralIndexer.CoralIndexerSubsystem;
 import frc.robot.subsystems.elevator.ElevatorSubsystem;
 import frc.robot.subsystems.vision.VisionSubsystem;
 import frc.robot.util.CoralScoringPosition;
+import frc.robot.util.ElevatorPrepositioner;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.RobotLoad;
+import frc.robot.util.StateMachine;
+import frc.robot.util.StatusSignals;
 import frc.robot.util.simulation.SimLogic;
 import frc.robot.subsystems.elevatorArm.ElevatorArmSubsystem;
 import frc.robot.subsystems.elevatorArmAlgae.ElevatorArmAlgaeSubsystem;
@@ -71,6 +76,22 @@ import frc.robot.subsystems.elevatorArmPivot.ElevatorArmPivotSubsystem;
 
 @Logged
 public class RobotContainer {
+    /**
+     * The states of the elevator and arm while scoring coral on the reef.
+     */
+    public enum ReefScoringState {
+        /** Stowed, or doing something other than reef scoring */
+        IDLE,
+        /** Partially raised for L4 while approaching the reef */
+        ADVANCING,
+        /** At the selected reef height, waiting to be in position to score */
+        DEPLOYED,
+        /** Running the scoring sequence, which can't be interrupted */
+        SCORING,
+        /** Finished scoring and stowed, but still near the reef; waits for the deploy conditions to reset */
+        SCORED
+    }
+
     /**
      * Set this to false to disable MapleSim in simulation
      */
@@ -80,12 +101,15 @@ public class RobotContainer {
 
     public static final boolean MAPLESIM = USE_MAPLESIM && Robot.isSimulation();
     public static final double DEADBAND = 0.025;
+    // Above this elevator height, teleop driving is slowed to this fraction of max speed
+    public static final double SLOW_ELEVATOR_HEIGHT = ElevatorSubsystem.L3.in(Meters);
+    public static final double SLOW_ELEVATOR_SPEED_SCALE = 0.25;
 
     public final CommandXboxController driverController = new CommandXboxController(0);
     public final CommandGenericHID testController = new CommandGenericHID(1);
     private final JoystickInputs inputs = new JoystickInputs();
 
-    private final Telemetry logger = new Telemetry(DrivetrainSubsystem.MAX_SPEED);
+    private final Telemetry logger = new Telemetry(DrivetrainSubsystem.MAX_SPEED, TunerConstants.kOdometryFrequency);
 
     @Logged(name = "Drivetrain")
     public final DrivetrainSubsystem drivetrain;
@@ -99,7 +123,7 @@ public class RobotContainer {
     public final IntakeCoralSubsystem intakeCoral;
     @Logged(name = "Coral Intake Pivot")
     public final IntakeCoralPivotSubsystem intakeCoralPivot;
-    @Logged(name = "Elevator")
+    @Logged(name = "Elevator", importance = Logged.Importance.CRITICAL)
     public final ElevatorSubsystem elevator;
     @Logged(name = "Elevator Arm Pivot")
     public final ElevatorArmPivotSubsystem elevatorArmPivot;
@@ -112,6 +136,13 @@ public class RobotContainer {
     @Logged(name = "Climber")
     public final Climber climber;
     public final LEDSubsystem leds;
+    @NotLogged
+    private final StateMachine<ReefScoringState> reefScoring;
+    // The elevator height picked when we started scoring, held until we're done
+    @NotLogged
+    private Distance scoringElevatorTarget = ElevatorSubsystem.STOW;
+    @Logged(name = "Loop Profiler")
+    public final LoopProfiler loopProfiler = LoopProfiler.getInstance();
 
     @NotLogged
     private final SendableChooser<Command> autoChooser = new SendableChooser<Command>();
@@ -136,6 +167,7 @@ public class RobotContainer {
     public Trigger driverAlgaeDescore = falseTrigger;
     @Logged(name = "Reef - Near")
     public Trigger nearReef = null;
+    public ElevatorPrepositioner elevatorPrepositioner = null;
     @Logged(name = "Reef - At")
     public Trigger atReef = null;
     public Trigger strugglingNearReef = falseTrigger;
@@ -166,6 +198,9 @@ public class RobotContainer {
         climber = new Climber();
         leds = new LEDSubsystem();
 
+        // Every CTRE device exists now, so set signal frequencies and turn off the signals nothing reads
+        StatusSignals.applyFrequencies();
+
         autoDoNothing = Commands.none().withName("Do Nothing");
 
         Pose2d leftBargeSimStart = new Pose2d(7, 5.5, Rotation2d.fromDegrees(180 + 60));
@@ -199,10 +234,24 @@ public class RobotContainer {
         Command rightBargeLeftNoFront = Auto.bargeCoralAuto(Auto.rightBargeAvoidFront(true), false, rightBargeSimStart);
         Command rightBargeRightNoFront = Auto.bargeCoralAuto(Auto.rightBargeAvoidFront(false), false, rightBargeSimStart);
 
+        Command leftBargeOptimized = Auto.bargeCoralAuto(
+            Auto.optimizedOrder(Auto.leftBarge5(true), true, leftBargeSimStart),
+            true,
+            true,
+            leftBargeSimStart
+        );
+        Command rightBargeOptimized = Auto.bargeCoralAuto(
+            Auto.optimizedOrder(Auto.rightBarge5(true), false, rightBargeSimStart),
+            false,
+            true,
+            rightBargeSimStart
+        );
+
         Command middleBargeLeft = Auto.bargeCoralAuto(Auto.middleBarge(true), true, middleBargeSimStart);
         Command middleBargeRight = Auto.bargeCoralAuto(Auto.middleBarge(false), true, middleBargeSimStart);
 
         autoChooser.setDefaultOption("Do Nothing", autoDoNothing);
+        SmartDashboard.setDefaultStringArray(Auto.BLOCKED_BRANCHES_KEY, new String[0]);
         autoChooser.addOption("Left Barge - 1st Left", leftBargeLeft);
         autoChooser.addOption("Left Barge - 1st Right", leftBargeRight);
         autoChooser.addOption("Left Barge No Front - 1st Left", leftBargeLeftNoFront);
@@ -212,6 +261,9 @@ public class RobotContainer {
         autoChooser.addOption("Right Barge No Front - 1st Left", rightBargeLeftNoFront);
         autoChooser.addOption("Right Barge No Front - 1st Right", rightBargeRightNoFront);
 
+        autoChooser.addOption("Left Barge - Optimized", leftBargeOptimized);
+        autoChooser.addOption("Right Barge - Optimized", rightBargeOptimized);
+
         autoChooser.addOption("Middle Barge - 1st Left", middleBargeLeft);
         autoChooser.addOption("Middle Barge - 1st Right", middleBargeRight);
 
@@ -228,6 +280,9 @@ public class RobotContainer {
         SmartDashboard.putData("Climber Coast", intakeAlgaePivot.coastMode());
         SmartDashboard.putData("Climber Brake", intakeAlgaePivot.brakeMode());
 
+        // Created after all subsystems, so its guards see this loop's sensor data
+        reefScoring = new StateMachine<>("Reef Scoring", ReefScoringState.class, ReefScoringState.IDLE);
+
         configureBindings();
 
         if (POSING_MODE) {
@@ -275,6 +330,13 @@ public class RobotContainer {
         // More complex triggers
         robotHasCoral = intakeCoral.hasCoral.or(elevatorArm.hasPartialCoral);
         robotHasAlgae = intakeAlgae.hasAlgae.or(elevatorArmAlgae.hadAlgae);
+        // Algae stays the load for a moment after the sensor loses it, so a flicker can't switch to the fast profile.
+        // This is read when the elevator or arm is commanded, so the sensors are read directly rather than through
+        // hasCoral, which could be cached before the arm updates its inputs.
+        final Supplier<RobotLoad> robotLoad = () -> RobotLoad.of(elevatorArm.hasCoralBool(),
+                                                                 elevatorArmAlgae.hadAlgae.getAsBoolean());
+        elevator.setLoadSupplier(robotLoad);
+        elevatorArmPivot.setLoadSupplier(robotLoad);
         final Trigger justScoredCoral = new Trigger(() -> Robot.justScoredCoral);
         final Trigger drivetrainAvailable = new Trigger(() -> drivetrain.getCurrentCommand() == drivetrain.getDefaultCommand());
         final Trigger scoringCameraDisconnected = vision.scoringCameraConnected.negate();
@@ -337,15 +399,13 @@ public class RobotContainer {
 
         // Teleop driving
 
-        final double slowElevatorHeight = ElevatorSubsystem.L3.in(Meters);
-
         final Function<Double, Double> axisToLinearSpeed = (axis) -> {
             axis *= DrivetrainSubsystem.MAX_SPEED;
             // Slow down drivetrain when scoring in barge or elevator is high
             if (driverNet.getAsBoolean() || 
                 driverNetSlow.getAsBoolean() ||
-                elevator.getPositionMeters() > slowElevatorHeight) {
-                    axis *= 0.25;
+                elevator.getPositionMeters() > SLOW_ELEVATOR_HEIGHT) {
+                    axis *= SLOW_ELEVATOR_SPEED_SCALE;
             }
 
             // Slow down a little bit when climbing, scoring L1 manually, or in demo mode
@@ -400,9 +460,6 @@ public class RobotContainer {
             }
         ).withDynamicTarget(true));
 
-        // Ensure we reset if we cancelled mid-score previously
-        driverAnyReef.onTrue(Commands.runOnce(() -> Robot.currentlyScoringCoral = false));
-
         // Driver Coral Intake
         coralIntakeTrigger = driverIntake.and(driverSpit.negate())
                                          .or(autoCoralIntake);
@@ -513,48 +570,52 @@ public class RobotContainer {
                 return reefPose != null ? reefPose.getRotation().getDegrees() : null;
             }, HeadingTarget.POSE));
 
-        Command chosenElevatorHeight = elevator.run(() -> {
+        Supplier<Distance> reefElevatorTarget = () -> {
             // In autonomous, read the next coral scoring position from the list to determine the elevator height
             if (RobotState.isAutonomous()) {
                 CoralScoringPosition next = Auto.nextCoralScoringPosition();
                 if (next == null) {
-                    elevator.setPositionDirect(ElevatorSubsystem.STOW);
-                    return;
+                    return ElevatorSubsystem.STOW;
                 }
-                elevator.setPositionDirect(elevator.levelToPosition(next.level));
-                return;
+                return elevator.levelToPosition(next.level);
             }
 
             if (driverAlgaeDescore.getAsBoolean()) {
                 int level = Field.getAlgaeLevel(drivetrain.getTargetPoseTag());
-                elevator.setPositionDirect(elevator.levelToPosition(level));
-                return;
+                return elevator.levelToPosition(level);
             }
 
             if (driverL1.getAsBoolean()) {
-                elevator.setPositionDirect(ElevatorSubsystem.L1);
+                return ElevatorSubsystem.L1;
 
             } else if (driverL2.getAsBoolean()) {
-                elevator.setPositionDirect(ElevatorSubsystem.L2);
+                return ElevatorSubsystem.L2;
 
             } else if (driverL3.getAsBoolean()) {
-                elevator.setPositionDirect(ElevatorSubsystem.L3);
+                return ElevatorSubsystem.L3;
 
             } else if (driverL4.getAsBoolean()) {
-                elevator.setPositionDirect(ElevatorSubsystem.L4);
+                return ElevatorSubsystem.L4;
 
             } else {
-                elevator.setPositionDirect(ElevatorSubsystem.STOW);
+                return ElevatorSubsystem.STOW;
             }
-        });
+        };
+
+        // While scoring, hold the height we started with. In auto, the next scoring position replaces the current one
+        // as soon as the coral is scored, so reading it live would move the elevator before we leave the reef.
+        Command chosenElevatorHeight = elevator.run(() -> elevator.setPositionDirect(
+            reefScoring.getState() == ReefScoringState.SCORING ? scoringElevatorTarget : reefElevatorTarget.get()
+        ));
+
+        // Starts the elevator and arm early enough on the way to the reef that they finish as we arrive
+        elevatorPrepositioner = new ElevatorPrepositioner(drivetrain, elevator, elevatorArmPivot, reefElevatorTarget);
 
         Trigger autoHasCoral = autonomous.and(elevatorArm.hasPartialCoral);
         Trigger reefDeployAllowed = elevatorArm.hasEnteringCoral.negate()
                                         .and(teleop.or(autoHasCoral));
                                         
 
-        Trigger isScoringCoral = new Trigger(() -> Robot.currentlyScoringCoral);
-
         // This extra OR statement fixes a bug that caused us to miss L2's when descoring algae
         Trigger rightL2 = driverRightReef.and(driverL2).or(() -> {
             if (driverAlgaeDescore.getAsBoolean()) {
@@ -564,15 +625,22 @@ public class RobotContainer {
             return false;
         });
 
-        Trigger nearReefModified = nearReef.and(rightL2.negate())
+        Trigger nearReefModified = nearReef.or(elevatorPrepositioner.shouldStart).and(rightL2.negate())
                                             .or(almostAtReef.debounce(0.1));
 
         Trigger directReefControl = scoringCameraDisconnected.or(testMode).or(demoMode)
                                             .and(driverL1.or(driverL2).or(driverL3).or(driverL4));
         
-        Trigger finalReefTrigger = nearReefModified.and(reefDeployAllowed)
-                                                    .or(isScoringCoral)
-                                                    .or(directReefControl);
+        Trigger deployWanted = nearReefModified.and(reefDeployAllowed).or(directReefControl);
+
+        Trigger advanceWanted = targetingL4.and(drivetrain.targetingReef())
+                                        .and(generousNearReef)
+                                        .and(reefDeployAllowed)
+                                        .and(elevatorArm.hasPartialCoral);
+
+        // Elevator and arm stay deployed from when we decide to raise them until we're done scoring
+        Trigger finalReefTrigger = reefScoring.isState(ReefScoringState.DEPLOYED)
+                                            .or(reefScoring.isState(ReefScoringState.SCORING));
 
         finalReefTrigger
             .whileTrue(chosenElevatorHeight.alongWith(elevatorArmPivot.matchElevatorPreset()))
@@ -592,18 +660,12 @@ public class RobotContainer {
         finalReefTrigger.and(targetingAlgae)
             .whileTrue(elevatorArmAlgae.intakeAndIndex(algaeGrabSpeed));
 
-        Trigger l4Advance = targetingL4.and(drivetrain.targetingReef())
-                                        .and(generousNearReef)
-                                        .and(finalReefTrigger.negate())
-                                        .and(reefDeployAllowed)
-                                        .and(elevatorArm.hasPartialCoral);
-
         // Move elevator partially up when approaching reef targeting L4, but not yet at
         // the range where we are near the reef
-        l4Advance.whileTrue(elevator.setPosition(ElevatorSubsystem.L4_ADVANCE).alongWith(elevatorArmPivot.matchElevatorPreset()));
+        reefScoring.isState(ReefScoringState.ADVANCING).whileTrue(elevator.setPosition(ElevatorSubsystem.L4_ADVANCE).alongWith(elevatorArmPivot.matchElevatorPreset()));
 
         // FOR TUNING - Track exit velocity of coral
-        isScoringCoral.and(elevatorArm.hasNoCoral).onTrue(
+        reefScoring.isState(ReefScoringState.SCORING).and(elevatorArm.hasNoCoral).onTrue(
             Commands.runOnce(() -> {
                 SmartDashboard.putNumber("Coral " + (SimLogic.coralScored + 1) + " Eject Velocity", elevatorArm.getVelocity());
             })
@@ -639,22 +701,42 @@ public class RobotContainer {
                                                                 return blockableTarget && driverRightReef.getAsBoolean();
                                                              });
 
+        Trigger scoreReady = atReef.and(elevator.inReefPosition)
+                                   .and(elevatorArmPivot.elevatorArmInScoringPosition)
+                                   .and(drivetrain.almostStationary)
+                                   .and(visionScoreReady);
+
         // Coral scoring sequence - kCancelIncoming means nothing else will be able to stop this command until it finishes
-        atReef.and(elevator.inReefPosition)
-              .and(elevatorArmPivot.elevatorArmInScoringPosition)
-              .and(drivetrain.almostStationary)
-              .and(visionScoreReady).onTrue(
-            Commands.sequence(
-                Commands.runOnce(() -> Robot.currentlyScoringCoral = true)
-                        .alongWith(drivetrain.runOnce(() -> drivetrain.drive(new ChassisSpeeds())))
-                        .alongWith(scoringSequence),
-                Commands.either(
-                    backupWithAlgae.andThen(coralScoreEnd()),
-                    coralScoreEnd(),
-                    shouldObtainAlgae
-                )
-            ).withInterruptBehavior(InterruptionBehavior.kCancelIncoming)
+        Command scoreCoral = Commands.sequence(
+            drivetrain.runOnce(() -> drivetrain.drive(new ChassisSpeeds()))
+                      .alongWith(scoringSequence),
+            Commands.either(
+                backupWithAlgae.andThen(coralScoreEnd()),
+                coralScoreEnd(),
+                shouldObtainAlgae
+            )
+        ).withInterruptBehavior(InterruptionBehavior.kCancelIncoming);
+        BooleanSupplier scoreCoralRunning = scoreCoral::isScheduled;
+
+        // Bound before the scoring command so the height is latched first
+        reefScoring.isState(ReefScoringState.SCORING).onTrue(
+            Commands.runOnce(() -> scoringElevatorTarget = reefElevatorTarget.get())
         );
+        reefScoring.isState(ReefScoringState.SCORING).onTrue(scoreCoral);
+
+        // Transitions are checked in order, so earlier entries for a state take priority
+        reefScoring
+            .addTransition(ReefScoringState.IDLE, ReefScoringState.DEPLOYED, deployWanted)
+            .addTransition(ReefScoringState.IDLE, ReefScoringState.ADVANCING, advanceWanted)
+            .addTransition(ReefScoringState.ADVANCING, ReefScoringState.DEPLOYED, deployWanted)
+            .addTransitionUnless(ReefScoringState.ADVANCING, ReefScoringState.IDLE, advanceWanted)
+            .addTransition(ReefScoringState.DEPLOYED, ReefScoringState.SCORING, scoreReady)
+            .addTransitionUnless(ReefScoringState.DEPLOYED, ReefScoringState.IDLE, deployWanted)
+            // The scoring command is scheduled by the state trigger on the same loop we enter SCORING,
+            // so it is already running by the time this is checked
+            .addTransitionUnless(ReefScoringState.SCORING, ReefScoringState.SCORED, scoreCoralRunning)
+            // The elevator stows after scoring, so only deploy again once the deploy conditions have reset
+            .addTransitionUnless(ReefScoringState.SCORED, ReefScoringState.IDLE, deployWanted);
 
         justScoredCoral.and(teleop).onTrue(
             new RumbleCommand(1).withTimeout(0.5)
@@ -718,66 +800,9 @@ public class RobotContainer {
 
         if (leds != null) {
             leds.setDefaultCommand(leds.run(() -> {
-                if (POSING_MODE) {
-                    if (elevator.isElevatorInPosition() && elevatorArmPivot.isInPosition()) {
-                        leds.setAnimation(leds.greenStrobe);
-                    } else {
-                        leds.setSplitColor(leds.BLUE, leds.RED);
-                    }
-                    return;
-                }
-
-                if (!vision.isScoringCameraConnected()) {
-                    leds.setAnimation(leds.rainbow);
-                    return;
-                }
-
-                if (!vision.isFrontCameraConnected()) {
-                    leds.setAnimation(leds.yellowFadeFast);
-                    return;
-                }
-
-                boolean doClimbAnimation = climbDeployedBool;
-
-                if (RobotState.isDisabled()) {
-                    if (doClimbAnimation) {
-                        leds.setAnimation(Robot.isBlue() ? leds.blueFlow : leds.redFlow);
-                    } else if (!elevatorArmPivot.isHomed()) {
-                        leds.setAnimation(leds.greenStrobe);
-                    } else if (!vision.hasPoseEstimates.getAsBoolean()) {
-                        leds.setAnimation(leds.yellowLarson);
-                    } else if (!DriverStation.isDSAttached()) {
-                        leds.setAnimation(leds.yellowFade);
-                    } else {
-                        leds.setAnimation(Robot.isBlue() ? leds.blueFade : leds.redFade);
-                    }
-                    return;
-                }
-
-                if (drivetrain.isTargetingReefPose()) {
-                    leds.setAnimation(leds.purpleFade);
-                    return;
-                }
-
-                if (elevatorArm.hasPartialCoralBool() && !elevatorArm.hasEnteringCoralBool()) {
-                    leds.setAnimation(leds.whiteFade);
-                    return;
-                }
-
-                var primaryColor = Robot.isBlue() ? leds.BLUE : leds.RED;
-                var topColor = robotHasAlgae.getAsBoolean() ? leds.ALGAE : primaryColor;
-                var bottomColor = primaryColor;
-                if (topColor != bottomColor) {
-                    leds.setSplitColor(topColor, bottomColor);
-                } else {
-                    Animation animation;
-                    if (doClimbAnimation) {
-                        animation = Robot.isBlue() ? leds.blueFlow : leds.redFlow;
-                    } else {
-                        animation = Robot.isBlue() ? leds.blueTwinkle : leds.redTwinkle;
-                    }
-                    leds.setAnimation(animation);
-                }
+                updateAlertLEDs();
+                updateScoringLEDs();
+                updateIdleLEDs();
             }).ignoringDisable(true));
         }
 
@@ -832,6 +857,73 @@ public class RobotContainer {
         return autoChooser.getSelected();
     }
 
+    @Logged(name = "Reef Scoring State")
+    public ReefScoringState getReefScoringState() {
+        return reefScoring.getState();
+    }
+
+    /**
+     * Returns the reef scoring state machine to idle, so a score interrupted by disabling doesn't carry over.
+     */
+    public void resetReefScoring() {
+        reefScoring.setState(ReefScoringState.IDLE);
+    }
+
+    /**
+     * Shows problems that need fixing before or during a match, over everything else.
+     */
+    private void updateAlertLEDs() {
+        if (POSING_MODE) {
+            if (elevator.isElevatorInPosition() && elevatorArmPivot.isInPosition()) {
+                leds.setAnimation(Layer.ALERT, leds.greenStrobe);
+            } else {
+                leds.setSplitColor(Layer.ALERT, leds.BLUE, leds.RED);
+            }
+        } else if (!vision.isScoringCameraConnected()) {
+            leds.setAnimation(Layer.ALERT, leds.rainbow);
+        } else if (!vision.isFrontCameraConnected()) {
+            leds.setAnimation(Layer.ALERT, leds.yellowFadeFast);
+        } else if (RobotState.isDisabled() && !climbDeployedBool && !elevatorArmPivot.isHomed()) {
+            leds.setAnimation(Layer.ALERT, leds.greenStrobe);
+        } else if (RobotState.isDisabled() && !climbDeployedBool && !vision.hasPoseEstimates.getAsBoolean()) {
+            leds.setAnimation(Layer.ALERT, leds.yellowLarson);
+        } else if (RobotState.isDisabled() && !climbDeployedBool && !DriverStation.isDSAttached()) {
+            leds.setAnimation(Layer.ALERT, leds.yellowFade);
+        } else {
+            leds.clear(Layer.ALERT);
+        }
+    }
+
+    /**
+     * Shows what the robot is doing with game pieces while enabled.
+     */
+    private void updateScoringLEDs() {
+        if (RobotState.isDisabled()) {
+            leds.clear(Layer.SCORING);
+        } else if (drivetrain.isTargetingReefPose()) {
+            leds.setAnimation(Layer.SCORING, leds.purpleFade);
+        } else if (elevatorArm.hasPartialCoralBool() && !elevatorArm.hasEnteringCoralBool()) {
+            leds.setAnimation(Layer.SCORING, leds.whiteFade);
+        } else if (robotHasAlgae.getAsBoolean()) {
+            leds.setSplitColor(Layer.SCORING, leds.ALGAE, Robot.isBlue() ? leds.BLUE : leds.RED);
+        } else {
+            leds.clear(Layer.SCORING);
+        }
+    }
+
+    /**
+     * Shows the alliance color when nothing else is going on.
+     */
+    private void updateIdleLEDs() {
+        if (climbDeployedBool) {
+            leds.setAnimation(Layer.IDLE, Robot.isBlue() ? leds.blueFlow : leds.redFlow);
+        } else if (RobotState.isDisabled()) {
+            leds.setAnimation(Layer.IDLE, Robot.isBlue() ? leds.blueFade : leds.redFade);
+        } else {
+            leds.setAnimation(Layer.IDLE, Robot.isBlue() ? leds.blueTwinkle : leds.redTwinkle);
+        }
+    }
+
     private static double modifyAxis(double value) {
         value = MathUtil.applyDeadband(value, DEADBAND);
         return Math.copySign(value * value, value);
@@ -890,13 +982,14 @@ public class RobotContainer {
         return Commands.runOnce(() -> {
             elevator.setPositionDirect(ElevatorSubsystem.STOW);
             elevatorArmPivot.setArmPositionDirect(ElevatorArmPivotSubsystem.receiving);
-            Robot.currentlyScoringCoral = false;
             Robot.justScoredCoral = true;
 
             if (RobotState.isAutonomous()) {
                 if (!Auto.coralScoringPositions.isEmpty()) {
-                    Auto.previousCoralScoringPosition = Auto.coralScoringPositions.get(0);
-                    Auto.coralScoringPositions.remove(0);
+                    // The arm's coral sensor has cleared, so the branch is ours now
+                    CoralScoringPosition scored = Auto.coralScoringPositions.remove(0);
+                    Auto.previousCoralScoringPosition = scored;
+                    Field.setReefCoral(scored.tag, scored.isLeft, scored.level);
                     Auto.firstCoralCycle = false;
                 }
             }
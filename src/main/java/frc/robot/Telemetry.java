@@ -13,6 +13,8 @@ import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.networktables.StringPublisher;
 import edu.wpi.first.networktables.StructArrayPublisher;
 import edu.wpi.first.networktables.StructPublisher;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj.smartdashboard.Mechanism2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -21,6 +23,16 @@ import edu.wpi.first.wpilibj.util.Color8Bit;
 
 public class Telemetry {
     private final double MaxSpeed;
+    private final double ExpectedOdometryFrequency;
+
+    /* Smoothing factor for the odometry period statistics (roughly the last 1/alpha samples) */
+    private static final double ODOMETRY_STATS_ALPHA = 0.01;
+    /* Alert if odometry runs this much slower than requested */
+    private static final double ODOMETRY_FREQUENCY_TOLERANCE = 0.9;
+
+    private double odometryPeriodAvg = 0;
+    private double odometryPeriodVariance = 0;
+    private final Alert odometryFrequencyAlert = new Alert("", AlertType.kWarning);
 
     /**
      * Construct a telemetry object, with the specified max speed of the robot
@@ -28,7 +40,19 @@ public class Telemetry {
      * @param maxSpeed Maximum speed in meters per second
      */
     public Telemetry(double maxSpeed) {
+        this(maxSpeed, 0);
+    }
+
+    /**
+     * Construct a telemetry object, with the specified max speed of the robot and the odometry frequency it should
+     * be running at. If the measured odometry frequency falls too far below it, an alert is raised.
+     * 
+     * @param maxSpeed Maximum speed in meters per second
+     * @param expectedOdometryFrequency Requested odometry frequency in Hz, or 0 to skip the check
+     */
+    public Telemetry(double maxSpeed, double expectedOdometryFrequency) {
         MaxSpeed = maxSpeed;
+        ExpectedOdometryFrequency = expectedOdometryFrequency;
         SignalLogger.start();
     }
 
@@ -44,6 +68,8 @@ public class Telemetry {
     private final StructArrayPublisher<SwerveModulePosition> driveModulePositions = driveStateTable.getStructArrayTopic("ModulePositions", SwerveModulePosition.struct).publish();
     private final DoublePublisher driveTimestamp = driveStateTable.getDoubleTopic("Timestamp").publish();
     private final DoublePublisher driveOdometryFrequency = driveStateTable.getDoubleTopic("OdometryFrequency").publish();
+    private final DoublePublisher driveOdometryPeriodAvg = driveStateTable.getDoubleTopic("OdometryPeriodAvg").publish();
+    private final DoublePublisher driveOdometryJitter = driveStateTable.getDoubleTopic("OdometryJitter").publish();
 
     /* Robot pose for field positioning */
     private final NetworkTable table = inst.getTable("Pose");
@@ -91,6 +117,24 @@ public class Telemetry {
         driveTimestamp.set(state.Timestamp);
         driveOdometryFrequency.set(1.0 / state.OdometryPeriod);
 
+        /* Track the average odometry period and its jitter (standard deviation) */
+        if (odometryPeriodAvg == 0) odometryPeriodAvg = state.OdometryPeriod;
+        double periodError = state.OdometryPeriod - odometryPeriodAvg;
+        odometryPeriodAvg += periodError * ODOMETRY_STATS_ALPHA;
+        odometryPeriodVariance += (periodError * periodError - odometryPeriodVariance) * ODOMETRY_STATS_ALPHA;
+        double odometryJitter = Math.sqrt(odometryPeriodVariance);
+        driveOdometryPeriodAvg.set(odometryPeriodAvg);
+        driveOdometryJitter.set(odometryJitter);
+
+        if (ExpectedOdometryFrequency > 0) {
+            double measuredFrequency = 1.0 / odometryPeriodAvg;
+            boolean tooSlow = measuredFrequency < ExpectedOdometryFrequency * ODOMETRY_FREQUENCY_TOLERANCE;
+            if (tooSlow) {
+                odometryFrequencyAlert.setText("Odometry running at " + Math.round(measuredFrequency) + " Hz (expected " + Math.round(ExpectedOdometryFrequency) + " Hz)");
+            }
+            odometryFrequencyAlert.set(tooSlow);
+        }
+
         /* Also write to log file */
         m_poseArray[0] = state.Pose.getX();
         m_poseArray[1] = state.Pose.getY();
@@ -106,6 +150,7 @@ public class Telemetry {
         SignalLogger.writeDoubleArray("DriveState/ModuleStates", m_moduleStatesArray);
         SignalLogger.writeDoubleArray("DriveState/ModuleTargets", m_moduleTargetsArray);
         SignalLogger.writeDouble("DriveState/OdometryPeriod", state.OdometryPeriod, "seconds");
+        SignalLogger.writeDouble("DriveState/OdometryJitter", odometryJitter, "seconds");
 
         /* Telemeterize the pose to a Field2d */
         fieldTypePub.set("Field2d");
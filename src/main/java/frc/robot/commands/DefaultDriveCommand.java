@@ -2,6 +2,7 @@ package frc.robot.commands;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.Robot;
@@ -22,6 +23,7 @@ public class DefaultDriveCommand extends Command {
     private Rotation2d gyroRotation;
     private HeadingTarget previousHeadingType = null;
     private double rotationSpeed = 0;
+    private Double targetHeadingRate = null;
 
     public DefaultDriveCommand(DrivetrainSubsystem drivetrainSubsystem,
                                Supplier<JoystickInputs> joystickInputsSupplier,
@@ -43,6 +45,7 @@ public class DefaultDriveCommand extends Command {
     public void execute() {
         gyroRotation = m_drivetrainSubsystem.getGyroscopeRotation();
         rotationSpeed = m_rotationSupplier.getAsDouble();
+        targetHeadingRate = null;
 
         applyCoralAngleAimAssist();
     
@@ -61,7 +64,11 @@ public class DefaultDriveCommand extends Command {
                     // Reset the PID controller if the heading type has changed
                     m_drivetrainSubsystem.resetHeadingPID(heading);
                 }
-                rotationSpeed = m_drivetrainSubsystem.calculateHeadingPID(heading, targetHeadingDegrees);
+                if (targetHeadingRate != null) {
+                    rotationSpeed = m_drivetrainSubsystem.calculateHeadingPID(heading, targetHeadingDegrees, targetHeadingRate);
+                } else {
+                    rotationSpeed = m_drivetrainSubsystem.calculateHeadingPID(heading, targetHeadingDegrees);
+                }
                 previousHeadingType = headingType;
             }
             manuallyRotating = false;
@@ -106,5 +113,17 @@ public class DefaultDriveCommand extends Command {
 
         Pose2d coralPose = RobotContainer.instance.vision.getCoralPickupPose();
         m_drivetrainSubsystem.setTargetHeading(coralPose.getRotation().getDegrees(), HeadingTarget.POSE);
+
+        // The target heading points from the coral to the robot, so it rotates as we strafe past the coral.
+        // Feed that rate forward so we keep facing it instead of lagging behind.
+        Translation2d robotPosition = m_drivetrainSubsystem.getPose().getTranslation();
+        Translation2d coralPosition = RobotContainer.instance.vision.getCoralPose().getTranslation();
+        ChassisSpeeds fieldSpeeds = m_drivetrainSubsystem.getFieldRelativeSpeeds();
+        double dx = coralPosition.getX() - robotPosition.getX();
+        double dy = coralPosition.getY() - robotPosition.getY();
+        double distanceSquared = dx * dx + dy * dy;
+        if (distanceSquared > 0.01) {
+            targetHeadingRate = (dy * fieldSpeeds.vxMetersPerSecond - dx * fieldSpeeds.vyMetersPerSecond) / distanceSquared;
+        }
     }
 }
@@ -78,6 +78,16 @@ public class TunerConstants {
     // All swerve devices must share the same CAN bus
     public static final CANBus kCANBus = new CANBus("Pseudo-Tesla", "./logs/example.hoot");
 
+    // Odometry update frequency (Hz) for each CAN bus, passed to the drivetrain. These start at the Phoenix defaults.
+    // The odometry alert and the CAN budget read the same value. Pro devices on a CANivore are time-synchronized by
+    // Phoenix, so odometry samples line up without extra work.
+    private static final double kCANivoreOdometryFrequency = 250;
+    private static final double kRioOdometryFrequency = 100;
+    public static final double kOdometryFrequency =
+        kCANBus.getName().equals("rio") ? kRioOdometryFrequency : kCANivoreOdometryFrequency;
+    // Real-time priority of the odometry thread, so it isn't delayed by the main robot loop or logging
+    public static final int kOdometryThreadPriority = 2;
+
     // Theoretical free speed (m/s) at 12 V applied output;
     // This needs to be tuned to your individual robot
     public static final LinearVelocity kSpeedAt12Volts = MetersPerSecond.of(4.8); // 5.08 theoretical
@@ -202,7 +212,7 @@ public class TunerConstants {
      */
     public static DrivetrainSubsystem createDrivetrain() {
         return new DrivetrainSubsystem(
-            DrivetrainConstants, FrontLeft, FrontRight, BackLeft, BackRight
+            DrivetrainConstants, kOdometryFrequency, FrontLeft, FrontRight, BackLeft, BackRight
         );
     }
 
@@ -4,6 +4,8 @@ import static frc.robot.util.StatusSignals.trackSignal;
 import static edu.wpi.first.units.Units.*;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import org.ironmaple.simulation.drivesims.SwerveDriveSimulation;
 import com.ctre.phoenix6.Orchestra;
@@ -27,15 +29,20 @@ import com.spamrobotics.util.Helpers;
 import edu.wpi.first.epilogue.Logged;
 import edu.wpi.first.epilogue.NotLogged;
 import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.filter.LinearFilter;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.trajectory.TrapezoidProfile.State;
@@ -43,8 +50,10 @@ import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Distance;
+import edu.wpi.first.units.measure.LinearAcceleration;
 import edu.wpi.first.units.measure.LinearVelocity;
 import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.Notifier;
@@ -62,7 +71,17 @@ import frc.robot.Robot;
 import frc.robot.RobotContainer;
 import frc.robot.generated.TunerConstants;
 import frc.robot.generated.TunerConstants.TunerSwerveDrivetrain;
+import frc.robot.util.CachedCondition;
+import frc.robot.util.PosePredictor;
+import frc.robot.util.PosePredictor.PredictedPose;
+import frc.robot.util.SlipDetector;
+import frc.robot.util.SwerveStateBuffer;
+import frc.robot.util.simulation.LockstepSim;
 import frc.robot.util.simulation.MapleSimSwerveDrivetrain;
+import frc.robot.util.StatusSignals.Priority;
+import frc.robot.util.StatusSignals;
+import frc.robot.util.CanBudget;
+import frc.robot.util.LoopProfiler;
 
 /**
  * Class that extends the Phoenix 6 SwerveDrivetrain class and implements
@@ -70,6 +89,11 @@ import frc.robot.util.simulation.MapleSimSwerveDrivetrain;
  */
 @Logged
 public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsystem {
+
+    // This can't extend ProfiledSubsystemBase, so it wraps its own periodic
+    @NotLogged
+    private final Runnable profiledPeriodic = LoopProfiler.getInstance().profile(this, this::update);
+
     public enum HeadingTarget {
         GYRO,
         POSE
@@ -88,6 +112,11 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
     public static final double MAX_ANGULAR_ACCEL = MAX_ANGULAR_RATE * 8;
 
     private static final double kSimLoopPeriod = 0.005; // 5 ms
+    private static final double SIM_RESET_TIMEOUT = 0.05;
+    // How long a lockstep substep waits for the odometry thread before giving up, in wall-clock seconds
+    private static final double LOCKSTEP_ODOMETRY_TIMEOUT = 0.1;
+    // A reset waiting for the next lockstep substep, or null
+    private volatile Pose2d pendingReset = null;
     private Notifier m_simNotifier = null;
     private double m_lastSimTime;
 
@@ -104,7 +133,22 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
     @NotLogged
     private boolean driveWithSetpointGenerator = false;
 
-    private SwerveDriveState cachedState = null;
+    @NotLogged
+    private final SwerveDriveState cachedState = SwerveStateBuffer.createState(4);
+    @NotLogged
+    private final SwerveDriveState previousState = SwerveStateBuffer.createState(4);
+    private boolean cachedStateValid = false;
+    // The state buffer's sequence number for cachedState, or -1 if it didn't come from the buffer
+    private long cachedStateSequence = -1;
+    // How many odometry updates back to measure acceleration against for pose prediction
+    private static final int PREDICTOR_ACCEL_SAMPLE_AGE = 5;
+    private final PosePredictor posePredictor = new PosePredictor(MAX_SPEED, Constants.LOOP_TIME);
+    @NotLogged
+    private boolean posePredictorUpdated = false;
+    @NotLogged
+    private final SwerveStateBuffer stateBuffer = new SwerveStateBuffer(4);
+    @NotLogged
+    private volatile Consumer<SwerveDriveState> telemetryFunction = null;
     private Rotation2d gyroOffset = new Rotation2d();
     private Double targetHeading = null;
     private HeadingTarget targetHeadingType = HeadingTarget.POSE;
@@ -121,6 +165,15 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
     @NotLogged
     private final ProfiledPIDController rotationProfiledPid;
     @NotLogged
+    private final TrapezoidProfile.State rotationGoalState = new State(0, 0);
+    @NotLogged
+    private final LinearFilter targetHeadingRateFilter = LinearFilter.singlePoleIIR(0.06, Constants.LOOP_TIME);
+    private double targetHeadingRate = 0;
+    @NotLogged
+    private double lastHeadingTargetRadians = Double.NaN;
+    @NotLogged
+    private double lastHeadingTargetTime = 0;
+    @NotLogged
     private final PIDController xPid, yPid;
     private final SimpleMotorFeedforward xyFeedforward;
     public final TrapezoidProfile.Constraints driveToPoseConstraints;
@@ -130,6 +183,12 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
 
     private final StatusSignal<Angle> gyroAngleSignal;
     private final StatusSignal<AngularVelocity> gyroRateSignal;
+    private final StatusSignal<LinearAcceleration> accelXSignal, accelYSignal;
+
+    // Odometry is trusted less while the wheels are slipping or the robot is being pushed, so vision corrects it faster
+    private static final Matrix<N3, N1> ODOMETRY_STD_DEVS = VecBuilder.fill(0.1, 0.1, 0.1);
+    private static final Matrix<N3, N1> SLIPPING_ODOMETRY_STD_DEVS = VecBuilder.fill(0.6, 0.6, 0.1);
+    private final SlipDetector slipDetector;
 
     // Logging
     private double xPosition = 0;
@@ -148,7 +207,13 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
 
     PathConstraints constraints = new PathConstraints(MAX_SPEED * 0.8, MAX_SPEED_ACCEL, MAX_ANGULAR_RATE, MAX_ANGULAR_ACCEL); //must be in m/s and rad/s
 
-    public final Trigger almostStationary = belowSpeed(Inches.of(1.75).per(Second));
+    public final Trigger almostStationary = CachedCondition.trigger("Drivetrain/Almost Stationary", () -> isBelowSpeed(Inches.of(1.75).in(Meters)));
+    @NotLogged
+    private final Trigger targetingReef = new Trigger(this::isTargetingReefPose);
+    @NotLogged
+    private final Trigger targetingProcessor = new Trigger(this::isTargetingProcessorPose);
+    @NotLogged
+    private final Trigger targetingBarge = new Trigger(this::isTargetingBargePose);
 
     /* SysId routine for characterizing translation. This is used to find PID gains for the drive motors. */
     private final SysIdRoutine m_sysIdRoutineTranslation = new SysIdRoutine(
@@ -226,7 +291,29 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
         SwerveDrivetrainConstants drivetrainConstants,
         SwerveModuleConstants<?, ?, ?>... modules
     ) {
-        super(drivetrainConstants, MapleSimSwerveDrivetrain.regulateModuleConstantsForSimulation(modules));
+        this(drivetrainConstants, 0, modules);
+    }
+
+    /**
+     * Constructs a CTRE SwerveDrivetrain using the specified constants.
+     *
+     * @param drivetrainConstants     Drivetrain-wide constants for the swerve drive
+     * @param odometryUpdateFrequency The frequency to run the odometry loop. If set to 0 Hz,
+     *                                this is 250 Hz on CAN FD, and 100 Hz on CAN 2.0.
+     * @param modules                 Constants for each specific module
+     */
+    public DrivetrainSubsystem(
+        SwerveDrivetrainConstants drivetrainConstants,
+        double odometryUpdateFrequency,
+        SwerveModuleConstants<?, ?, ?>... modules
+    ) {
+        super(drivetrainConstants, odometryUpdateFrequency,
+              MapleSimSwerveDrivetrain.regulateModuleConstantsForSimulation(modules));
+        if (Robot.isReal()) {
+            getOdometryThread().setThreadPriority(TunerConstants.kOdometryThreadPriority);
+        }
+        // Publish every odometry update into the lock-free state buffer (see registerTelemetry)
+        super.registerTelemetry(this::onOdometryUpdate);
         if (Utils.isSimulation()) {
             if (RobotContainer.MAPLESIM) {
                 startMapleSimThread();
@@ -236,8 +323,14 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
         }
         configureAutoBuilder();
 
-        gyroAngleSignal = trackSignal(getPigeon2().getYaw());
-        gyroRateSignal = trackSignal(getPigeon2().getAngularVelocityZWorld());
+        gyroAngleSignal = trackSignal(getPigeon2(), Priority.CRITICAL, getPigeon2().getYaw());
+        gyroRateSignal = trackSignal(getPigeon2(), Priority.CRITICAL, getPigeon2().getAngularVelocityZWorld());
+        accelXSignal = trackSignal(getPigeon2(), Priority.NORMAL, getPigeon2().getAccelerationX());
+        accelYSignal = trackSignal(getPigeon2(), Priority.NORMAL, getPigeon2().getAccelerationY());
+        // The swerve odometry thread reads Pigeon signals we don't track
+        StatusSignals.skipOptimization(getPigeon2());
+        slipDetector = new SlipDetector(getModuleLocations(), MAX_SPEED_ACCEL);
+        setStateStdDevs(ODOMETRY_STD_DEVS);
 
         double translationMaxSpeed = MAX_SPEED * 0.8;
         double translationP = 0.15;
@@ -270,6 +363,16 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
             var module = mods[i];
             orchestra.addInstrument(module.getDriveMotor(), 1);
             orchestra.addInstrument(module.getSteerMotor(), 0);
+
+            // The odometry thread owns the module signals and sends a control frame to each motor every update
+            var drive = module.getDriveMotor();
+            var steer = module.getSteerMotor();
+            CanBudget.addSignals(drive, drive.getPosition(), drive.getVelocity());
+            CanBudget.addSignals(steer, steer.getPosition(), steer.getVelocity());
+            CanBudget.addLoad(drive.getNetwork(), "Swerve module " + i + " control", 2 * TunerConstants.kOdometryFrequency);
+            StatusSignals.skipOptimization(drive);
+            StatusSignals.skipOptimization(steer);
+            StatusSignals.skipOptimization(module.getEncoder());
         }
 
         SmartDashboard.putData("Drivetrain X PID", xPid);
@@ -284,11 +387,13 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
 
     public void drive(ChassisSpeeds speeds) {        
         speeds = ChassisSpeeds.discretize(speeds, Constants.LOOP_TIME);
+        slipDetector.command(speeds, Timer.getFPGATimestamp());
         setControl(m_pathApplyRobotSpeeds.withSpeeds(speeds));
     }
 
     public void driveClosedLoop(ChassisSpeeds speeds) {
         speeds = ChassisSpeeds.discretize(speeds, Constants.LOOP_TIME);
+        slipDetector.command(speeds, Timer.getFPGATimestamp());
         setControl(applyClosedLoopSpeeds.withSpeeds(speeds));
     }
 
@@ -330,9 +435,29 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
 
     @Override
     public void resetPose(Pose2d pose) {
+        resetPose(pose, pose);
+    }
+
+    /**
+     * Resets odometry to a pose, and places the simulated robot at a possibly different pose, the way a robot
+     * placed slightly wrong on the field would start.
+     */
+    public void resetPose(Pose2d pose, Pose2d simPose) {
         if (this.mapleSimSwerveDrivetrain != null) {
-            mapleSimSwerveDrivetrain.mapleSimDrive.setSimulationWorldPose(pose);
-            Timer.delay(0.5); // Wait for simulation to update
+            mapleSimSwerveDrivetrain.mapleSimDrive.setSimulationWorldPose(simPose);
+            // Put the new heading on the simulated Pigeon now instead of waiting for the next arena update (which a
+            // lockstep simulation can't run until this loop finishes). Then wait for two yaw frames, so the odometry
+            // thread has read the new heading before the reset.
+            mapleSimSwerveDrivetrain.syncGyro();
+            if (LockstepSim.isActive()) {
+                // Waiting here would block simulated time on the wall clock, so the next substep applies the reset
+                // once it has waited for odometry
+                pendingReset = pose;
+                poseBuffer.clear();
+                return;
+            }
+            gyroAngleSignal.waitForUpdate(SIM_RESET_TIMEOUT);
+            gyroAngleSignal.waitForUpdate(SIM_RESET_TIMEOUT);
         }
         super.resetPose(pose);
         poseBuffer.clear();
@@ -398,18 +523,68 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
 
     public void resetHeadingPID(double degrees) {
         rotationProfiledPid.reset(Units.degreesToRadians(degrees));
+        lastHeadingTargetRadians = Double.NaN;
+        targetHeadingRateFilter.reset();
+        targetHeadingRate = 0;
     }
 
     public double calculateHeadingPID(Rotation2d heading, double targetDegrees) {
         return calculateHeadingPID(heading.getDegrees(), targetDegrees);
     }
 
+    /**
+     * Calculates the rotational speed needed to reach the target heading. If the target is moving, its angular rate
+     * is estimated from successive targets and used as feedforward, so a target that changes every loop is tracked
+     * instead of chased.
+     */
     public double calculateHeadingPID(double headingDegrees, double targetDegrees) {
-        headingError = MathUtil.inputModulus(targetDegrees - headingDegrees, -180, 180);    
-        return rotationProfiledPid.calculate(
-            Math.toRadians(headingDegrees), 
-            Math.toRadians(targetDegrees)
-        );
+        return calculateHeadingPID(headingDegrees, targetDegrees, estimateTargetHeadingRate(Math.toRadians(targetDegrees)));
+    }
+
+    public double calculateHeadingPID(Rotation2d heading, double targetDegrees, double targetRateRadians) {
+        return calculateHeadingPID(heading.getDegrees(), targetDegrees, targetRateRadians);
+    }
+
+    /**
+     * Calculates the rotational speed needed to track a target heading that is moving at a known angular rate.
+     * The profile still obeys the angular rate and acceleration limits, but ends at the target's rate rather than
+     * at rest, and the target rate is added as feedforward. The combined output is limited to the max angular rate.
+     * @param targetRateRadians The rate the target heading is changing at, in radians per second
+     */
+    public double calculateHeadingPID(double headingDegrees, double targetDegrees, double targetRateRadians) {
+        headingError = MathUtil.inputModulus(targetDegrees - headingDegrees, -180, 180);
+        targetRateRadians = MathUtil.clamp(targetRateRadians, -MAX_ANGULAR_RATE, MAX_ANGULAR_RATE);
+
+        rotationGoalState.position = Math.toRadians(targetDegrees);
+        rotationGoalState.velocity = targetRateRadians;
+        double output = rotationProfiledPid.calculate(Math.toRadians(headingDegrees), rotationGoalState);
+        return MathUtil.clamp(output + targetRateRadians, -MAX_ANGULAR_RATE, MAX_ANGULAR_RATE);
+    }
+
+    /**
+     * Estimates how fast the target heading is moving by differencing successive targets. Jumps that are too large to
+     * be a moving target (i.e. a new target was selected) and gaps between calls reset the estimate to zero.
+     */
+    private double estimateTargetHeadingRate(double targetRadians) {
+        double now = Timer.getFPGATimestamp();
+        double dt = now - lastHeadingTargetTime;
+        boolean valid = !Double.isNaN(lastHeadingTargetRadians) && dt > 0 && dt < Constants.LOOP_TIME * 3;
+
+        double rate = 0;
+        if (valid) {
+            rate = MathUtil.angleModulus(targetRadians - lastHeadingTargetRadians) / dt;
+        }
+
+        if (!valid || Math.abs(rate) > MAX_ANGULAR_RATE * 2) {
+            targetHeadingRateFilter.reset();
+            targetHeadingRate = 0;
+        } else {
+            targetHeadingRate = MathUtil.clamp(targetHeadingRateFilter.calculate(rate), -MAX_ANGULAR_RATE, MAX_ANGULAR_RATE);
+        }
+
+        lastHeadingTargetRadians = targetRadians;
+        lastHeadingTargetTime = now;
+        return targetHeadingRate;
     }
 
     final TrapezoidProfile.State driveToPoseStartState = new State(0, 0);
@@ -417,6 +592,11 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
     final Timer driveToPoseTimer = new Timer();
     Pose2d driveToPoseStart = null;
     private Pose2d profiledIntermediatePose = Pose2d.kZero;
+    @NotLogged
+    private TrapezoidProfile activeDriveToPoseProfile = null;
+    @NotLogged
+    private double activeDriveToPoseTime = 0;
+    private double timeToTargetPose = Double.POSITIVE_INFINITY;
 
     public ChassisSpeeds driveProfiled(Pose2d currentPose, Pose2d endPose) {
         return driveProfiled(currentPose, endPose, driveToPoseProfile, driveToPoseConstraints);
@@ -458,6 +638,15 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
         // For logging only
         profiledIntermediatePose = new Pose2d(setpointTarget, endPose.getRotation());
 
+        // Remember the profile so others can tell when we'll arrive (calculate() above set its total time)
+        activeDriveToPoseProfile = profile;
+        activeDriveToPoseTime = Timer.getFPGATimestamp();
+        timeToTargetPose = profile.totalTime();
+        if (targetPose != null && targetPose != endPose) {
+            // We're driving to an intermediate pose first, so add the (rough) time from there to the real target
+            timeToTargetPose += endPose.getTranslation().getDistance(targetPose.getTranslation()) / constraints.maxVelocity;
+        }
+
         // Use normal PIDs to calculate the feedback for the X and Y axes to reach the setpoint position
         double xOutput = xPid.calculate(currentPose.getX(), setpointTarget.getX());
         double yOutput = yPid.calculate(currentPose.getY(), setpointTarget.getY());
@@ -477,6 +666,33 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
         return ChassisSpeeds.fromFieldRelativeSpeeds(xOutput, yOutput, thetaOutput, currentPose.getRotation());
     }
 
+    /**
+     * Returns if a profiled drive (i.e. {@link #driveProfiled}) has run in the last couple of loops.
+     */
+    private boolean isDriveProfileActive() {
+        return activeDriveToPoseProfile != null && Timer.getFPGATimestamp() - activeDriveToPoseTime <= Constants.LOOP_TIME * 2;
+    }
+
+    /**
+     * Returns the estimated time until the robot arrives at the target pose, based on the active drive profile.
+     * @return The time in seconds, or positive infinity if we aren't driving to a pose.
+     */
+    @NotLogged
+    public double getTimeToTargetPose() {
+        if (targetPose == null || !isDriveProfileActive()) return Double.POSITIVE_INFINITY;
+        return timeToTargetPose;
+    }
+
+    /**
+     * Returns the speed the active drive profile expects the robot to be moving at in the future.
+     * @param time How far in the future, in seconds
+     * @return The speed in meters per second, or the current speed if we aren't driving to a pose.
+     */
+    public double getProfiledSpeedIn(double time) {
+        if (!isDriveProfileActive()) return Math.abs(getVelocity());
+        return Math.abs(activeDriveToPoseProfile.calculate(time, driveToPoseStartState, driveToPoseGoalState).velocity);
+    }
+
     /**
      * Returns if the drivetrain is currently targeting a pose that is for Reef scoring.
      * @return If the drivetrain is targeting a Reef pose. If the pose is not specifically for the reef,
@@ -537,14 +753,60 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
         return getCachedState().Pose;
     }
 
+    /**
+     * Returns the drivetrain state for this robot loop. The first call after {@link #clearCache()} copies the newest
+     * snapshot published by the odometry thread, without locking it. The returned state is reused every loop, and
+     * must be treated as read-only.
+     */
     @NotLogged
     public SwerveDriveState getCachedState() {
-        if (cachedState == null) cachedState = getState();
+        if (!cachedStateValid) {
+            cachedStateSequence = stateBuffer.read(cachedState);
+            // Nothing has been published yet, so fall back to the (locking) CTRE state
+            if (cachedStateSequence < 0) return getState();
+            cachedStateValid = true;
+        }
         return cachedState;
     }
 
+    /**
+     * Registers a telemetry function that is called on the odometry thread after every odometry update.
+     * Unlike the base class, this doesn't replace the publishing of state snapshots used by {@link #getCachedState()}.
+     */
+    @Override
+    public void registerTelemetry(Consumer<SwerveDriveState> telemetryFunction) {
+        this.telemetryFunction = telemetryFunction;
+    }
+
+    private void onOdometryUpdate(SwerveDriveState state) {
+        stateBuffer.publish(state);
+
+        Consumer<SwerveDriveState> telemetry = telemetryFunction;
+        if (telemetry != null) telemetry.accept(state);
+    }
+
     public void clearCache() {
-        cachedState = null;
+        cachedStateValid = false;
+        posePredictorUpdated = false;
+    }
+
+    /**
+     * Predicts the robot's pose in the future from its current field-relative velocity and acceleration,
+     * without allocating.
+     * @param horizon How far in the future to predict, in seconds
+     * @param out The pose to write the prediction into
+     * @return {@code out}, for chaining
+     */
+    public PredictedPose predictPose(double horizon, PredictedPose out) {
+        if (!posePredictorUpdated) {
+            SwerveDriveState state = getCachedState();
+            // Count back from this loop's state, not the newest one, since the odometry thread has kept running
+            boolean hasPrevious = cachedStateSequence >= 0
+                                  && stateBuffer.read(cachedStateSequence - PREDICTOR_ACCEL_SAMPLE_AGE, previousState);
+            posePredictor.update(state, hasPrevious ? previousState : null);
+            posePredictorUpdated = true;
+        }
+        return posePredictor.predict(horizon, out);
     }
 
     /**
@@ -557,17 +819,17 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
     
     @NotLogged
     public Trigger targetingReef() {
-        return new Trigger(this::isTargetingReefPose);
+        return targetingReef;
     }
 
     @NotLogged
     public Trigger targetingProcessor() {
-        return new Trigger(this::isTargetingProcessorPose);
+        return targetingProcessor;
     }
 
     @NotLogged
     public Trigger targetingBarge() {
-        return new Trigger(this::isTargetingBargePose);
+        return targetingBarge;
     }
 
     public Trigger withinTargetPoseTolerance(Distance xDistance, Distance yDistance, Angle angle) {
@@ -700,6 +962,10 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
 
     @Override
     public void periodic() {
+        profiledPeriodic.run();
+    }
+
+    private void update() {
         pigeonConnected = gyroAngleSignal.getTimestamp().getLatency() <= 0.5;
         pigeonDisconnectedAlert.set(!pigeonConnected);
 
@@ -729,11 +995,32 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
         }
         moduleSpeedAvg /= moduleStates.length;
 
+        updateSlipDetection(state);
+
         if (mapleSimSwerveDrivetrain != null) {
             mapleSimPose = mapleSimSwerveDrivetrain.mapleSimDrive.getSimulatedDriveTrainPose();
         }
     }
 
+    private void updateSlipDetection(SwerveDriveState state) {
+        boolean wasSlipping = slipDetector.isSlipping();
+        // The simulated Pigeon doesn't model acceleration, so only the kinematic fit is checked in sim
+        double accelX = Robot.isReal() ? accelXSignal.getValueAsDouble() : Double.NaN;
+        double accelY = Robot.isReal() ? accelYSignal.getValueAsDouble() : Double.NaN;
+        boolean slipping = slipDetector.update(state, accelX, accelY, Timer.getFPGATimestamp());
+        if (slipping == wasSlipping) return;
+
+        setStateStdDevs(slipping ? SLIPPING_ODOMETRY_STD_DEVS : ODOMETRY_STD_DEVS);
+        if (slipping) {
+            DataLogManager.log(String.format(
+                "Drivetrain slip detected (fit residual %.2f m/s, accel error %.2f m/s^2) at %s",
+                slipDetector.getFitResidual(),
+                slipDetector.getAccelError(),
+                state.Pose
+            ));
+        }
+    }
+
     public SwerveDriveSimulation getDriveSim() {
         if (mapleSimSwerveDrivetrain != null) {
             return mapleSimSwerveDrivetrain.mapleSimDrive;
@@ -743,6 +1030,10 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
 
     // Original CTRE code
     private void startCTRESimThread() {
+        if (LockstepSim.isActive()) {
+            LockstepSim.addSubstep(() -> lockstepSubstep(() -> updateSimState(kSimLoopPeriod, RobotController.getBatteryVoltage())));
+            return;
+        }
         m_lastSimTime = Utils.getCurrentTimeSeconds();
 
         /* Run simulation at a faster rate so PID gains behave more reasonably */
@@ -757,6 +1048,33 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
         m_simNotifier.startPeriodic(kSimLoopPeriod);
     }
 
+    /**
+     * Runs a lockstep simulation substep, then waits for the odometry thread to read it. The odometry thread runs on
+     * the wall clock, so without this it would sample however many substeps happened to run in between, and a run
+     * would depend on how fast the CPU was.
+     */
+    private void lockstepSubstep(Runnable update) {
+        update.run();
+        awaitOdometry();
+        Pose2d reset = pendingReset;
+        if (reset != null) {
+            pendingReset = null;
+            super.resetPose(reset);
+            awaitOdometry();
+        }
+    }
+
+    /**
+     * Waits for two odometry updates, since the first one may have read its signals before this was called.
+     */
+    private void awaitOdometry() {
+        long target = stateBuffer.getSequence() + 2;
+        long deadline = System.nanoTime() + (long) (LOCKSTEP_ODOMETRY_TIMEOUT * 1e9);
+        while (stateBuffer.getSequence() < target && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
     private MapleSimSwerveDrivetrain mapleSimSwerveDrivetrain = null;
     @SuppressWarnings("unchecked")
     private void startMapleSimThread() {
@@ -776,6 +1094,10 @@ public class DrivetrainSubsystem extends TunerSwerveDrivetrain implements Subsys
                 TunerConstants.BackLeft,
                 TunerConstants.BackRight
         );
+        if (LockstepSim.isActive()) {
+            LockstepSim.addSubstep(() -> lockstepSubstep(mapleSimSwerveDrivetrain::update));
+            return;
+        }
         /* Run simulation at a faster rate so PID gains behave more reasonably */
         m_simNotifier = new Notifier(mapleSimSwerveDrivetrain::update);
         m_simNotifier.startPeriodic(kSimLoopPeriod);
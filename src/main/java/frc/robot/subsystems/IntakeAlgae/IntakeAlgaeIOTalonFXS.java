@@ -7,6 +7,7 @@ import com.ctre.phoenix6.signals.MotorArrangementValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 import edu.wpi.first.wpilibj.DigitalInput;
 import frc.robot.Constants;
+import frc.robot.util.StatusSignals;
 
 public class IntakeAlgaeIOTalonFXS implements IntakeAlgaeIO {
     
@@ -20,6 +21,7 @@ public class IntakeAlgaeIOTalonFXS implements IntakeAlgaeIO {
         intakeMotor = new TalonFXS(Constants.INTAKE_ALGAE_TALON, Constants.CANIVORE);
         intakeMotor.getConfigurator().apply(config);
         intakeMotor.setNeutralMode(NeutralModeValue.Brake);
+        StatusSignals.registerDevices(intakeMotor);
 
         voltageControl = new VoltageOut(0);
     }
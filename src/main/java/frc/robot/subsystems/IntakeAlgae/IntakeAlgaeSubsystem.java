@@ -2,17 +2,18 @@ package frc.robot.subsystems.IntakeAlgae;
 
 import edu.wpi.first.epilogue.Logged;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.subsystems.IntakeAlgae.IntakeAlgaeIO.IntakeAlgaeIOInputs;
+import frc.robot.util.CachedCondition;
 
 @Logged
-public class IntakeAlgaeSubsystem extends SubsystemBase {
+public class IntakeAlgaeSubsystem extends ProfiledSubsystemBase {
 
     public IntakeAlgaeIO io;
     public IntakeAlgaeIOInputs inputs;
 
-    public final Trigger hasAlgae = new Trigger(() -> inputs.hasAlgae);
+    public final Trigger hasAlgae = CachedCondition.trigger("Algae Intake/Has Algae", () -> inputs.hasAlgae);
 
     public IntakeAlgaeSubsystem() {
         inputs = new IntakeAlgaeIOInputs();
@@ -21,7 +22,7 @@ public class IntakeAlgaeSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.update(inputs);
     }
 
@@ -8,9 +8,11 @@ public interface IntakeAlgaePivotIO {
     @Logged
     public class IntakeAlgaePivotIOInputs {
         double position;
+        double velocity;
         double voltage;
         double target;
         double absolutePosition;
+        boolean absoluteConnected;
     }
 
     public void update(IntakeAlgaePivotIOInputs inputs);
@@ -1,53 +1,81 @@
 package frc.robot.subsystems.IntakeAlgaePivot;
 
-import edu.wpi.first.math.controller.PIDController;
-import frc.robot.Robot;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.State;
+import frc.robot.Constants;
 
+/**
+ * Simulates position control the way the TalonFX runs it: a motion profile and PID updated at 1 kHz,
+ * rather than once per robot loop. Like the real motor, the relative encoder reads 0 at boot, so position control only
+ * lines up once it's been seeded from the absolute encoder.
+ */
 public class IntakeAlgaePivotIOSim implements IntakeAlgaePivotIO {
-    
-    PIDController pid;
+
+    // 4 rotations per loop at full output
+    private static final double ROTATIONS_PER_VOLT_SECOND = 4.0 / 12 / Constants.LOOP_TIME;
+    private static final double CONTROL_PERIOD = 0.001;
+    private static final double KV = 1 / ROTATIONS_PER_VOLT_SECOND;
+    // Closes the loop at about 25 rad/s
+    private static final double KP = 25 * KV;
+
     boolean usingPID = false;
     double position = IntakeAlgaePivotSubsystem.stow;
-    double speed = 0;
+    // Relative encoder reading minus the mechanism's actual position
+    double relativeOffset = -position;
+    double velocity = 0;
+    double voltage = 0;
     double target = 0;
 
-    public IntakeAlgaePivotIOSim() {
-        pid = new PIDController(0.05,  0, 0);
-    }
+    final TrapezoidProfile profile = new TrapezoidProfile(new Constraints(2, 20));
+    State setpoint = new State(position, 0);
+    final State goal = new State();
 
     @Override
     public void update(IntakeAlgaePivotIOInputs inputs) {
-        if (Robot.isReal()) return;
-
-        if (usingPID) {
-            speed = pid.calculate(position, target);
-            speed = Math.max(-1, Math.min(1, speed));
-        }
-
-        inputs.position = position;
-        inputs.voltage = speed * 12;
-        inputs.target = target;
+        inputs.position = position + relativeOffset;
+        inputs.velocity = velocity;
+        inputs.voltage = voltage;
+        inputs.target = usingPID ? setpoint.position : target;
+        inputs.absolutePosition = position;
+        inputs.absoluteConnected = true;
     }
-    
+
     @Override
     public void setPosition(double encoderPosition) {
+        if (!usingPID) {
+            setpoint = new State(position + relativeOffset, velocity);
+        }
         target = encoderPosition;
         usingPID = true;
     }
 
     @Override
     public void simulationPeriodic() {
-        position += speed * 4;
+        double start = position;
+        goal.position = target;
+        for (double t = 0; t < Constants.LOOP_TIME - 1e-9; t += CONTROL_PERIOD) {
+            if (usingPID) {
+                setpoint = profile.calculate(CONTROL_PERIOD, setpoint, goal);
+                double error = setpoint.position - (position + relativeOffset);
+                voltage = MathUtil.clamp(KP * error + KV * setpoint.velocity, -12, 12);
+            }
+            position += voltage * ROTATIONS_PER_VOLT_SECOND * CONTROL_PERIOD;
+        }
+        velocity = (position - start) / Constants.LOOP_TIME;
     }
 
     @Override
     public void stopMotor() {
-        speed = 0;
+        voltage = 0;
+        usingPID = false;
     }
 
     @Override
     public void setSpeed(double speed) {
-        this.speed = speed;
+        voltage = speed * 12;
+        usingPID = false;
     }
 
     @Override
@@ -57,7 +85,7 @@ public class IntakeAlgaePivotIOSim implements IntakeAlgaePivotIO {
 
     @Override
     public void zero(double offset) {
-        // Do nothing
+        relativeOffset = offset - position;
     }
 
     @Override
@@ -10,20 +10,17 @@ import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.GravityTypeValue;
 import com.ctre.phoenix6.signals.InvertedValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
-import com.ctre.phoenix6.sim.TalonFXSimState;
-import edu.wpi.first.math.system.plant.DCMotor;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.DutyCycleEncoder;
-import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
 import frc.robot.Constants;
-import frc.robot.Robot;
+import frc.robot.util.StatusSignals.Priority;
+import frc.robot.util.StatusSignals;
 
 public class IntakeAlgaePivotIOTalonFXS implements IntakeAlgaePivotIO {
     
     final double intakeArmGearing = 200;
-    final double radToRotations = 1 / (2 * Math.PI);
     final double absoluteEncoderResolution = 2048;
 
     final double absoluteOffset = 0;
@@ -36,34 +33,25 @@ public class IntakeAlgaePivotIOTalonFXS implements IntakeAlgaePivotIO {
 
     // Status signals
     StatusSignal<Angle> positionSignal;
+    StatusSignal<AngularVelocity> velocitySignal;
     StatusSignal<Voltage> voltageSignal;
     StatusSignal<Double> targetSignal;
 
-    // Simulation-only variables
-    TalonFXSimState pivotMotorASim;
-    SingleJointedArmSim intakeSim;
-
     public IntakeAlgaePivotIOTalonFXS() {
         pivotMotor = new TalonFX(Constants.INTAKE_ALGAE_PIVOT_TALON, Constants.CANIVORE);
         winchMotor = new TalonFX(Constants.CLIMBER_WINCH_TALON, Constants.CANIVORE);
 
         TalonFXConfiguration configuration = new TalonFXConfiguration();
         configuration.Feedback.SensorToMechanismRatio = intakeArmGearing;
-        if (Robot.isReal()) {
-            configuration.Slot0.kP = 0;
-            configuration.Slot0.kI = 0;
-            configuration.Slot0.kD = 0;
-            configuration.Slot0.kG = 0;
-            configuration.Slot0.kV = 0;
-            configuration.Slot0.kA = 0;
-        } else  {
-            configuration.Slot0.kP = 36;
-            configuration.Slot0.kI = 0;
-            configuration.Slot0.kD = 0;
-            configuration.Slot0.kG = 0;
-            configuration.Slot0.kV = 0;
-            configuration.Slot0.kA = 0;
-        }
+        // A Kraken or Falcon spins ~100 rps free at 12 V, so through the 200:1 gearing the arm moves one rotation per
+        // second at ~24 V. 120 V per rotation closes the position loop at ~5 rad/s (a 0.2 s time constant). This is
+        // derived, not measured, which is why IntakeAlgaePivotSubsystem.HARDWARE_ENABLED is off.
+        configuration.Slot0.kP = 120;
+        configuration.Slot0.kI = 0;
+        configuration.Slot0.kD = 0;
+        configuration.Slot0.kG = 0;
+        configuration.Slot0.kV = 0;
+        configuration.Slot0.kA = 0;
         configuration.Slot0.GravityType = GravityTypeValue.Arm_Cosine;
         configuration.MotionMagic.MotionMagicCruiseVelocity = 999;
         configuration.MotionMagic.MotionMagicAcceleration = 999;
@@ -85,45 +73,23 @@ public class IntakeAlgaePivotIOTalonFXS implements IntakeAlgaePivotIO {
 
         absoluteEncoder = new DutyCycleEncoder(Constants.DIO_INTAKE_ALGAE_ENCODER);
 
-        positionSignal = trackSignal(pivotMotor.getPosition());
-        voltageSignal = trackSignal(pivotMotor.getMotorVoltage());
-        targetSignal = trackSignal(pivotMotor.getClosedLoopReference());
-
-        //for simulation
-        if (Robot.isReal()) return;
-
-        pivotMotorASim = pivotMotor.getSimState();
-
-        intakeSim = new SingleJointedArmSim(
-            DCMotor.getNeo550(2),
-            intakeArmGearing,
-            1,
-            .37,
-            0,
-            2.0944,
-            false,
-            Units.rotationsToRadians(IntakeAlgaePivotSubsystem.stow)
-        );
+        positionSignal = trackSignal(pivotMotor, Priority.NORMAL, pivotMotor.getPosition());
+        velocitySignal = trackSignal(pivotMotor, Priority.NORMAL, pivotMotor.getVelocity());
+        voltageSignal = trackSignal(pivotMotor, Priority.DEBUG, pivotMotor.getMotorVoltage());
+        targetSignal = trackSignal(pivotMotor, Priority.NORMAL, pivotMotor.getClosedLoopReference());
+        StatusSignals.keepFollowerSignals(pivotMotor, Priority.CRITICAL);
+        StatusSignals.registerDevices(winchMotor);
     }
 
 
     @Override
     public void update(IntakeAlgaePivotIOInputs inputs){ 
         inputs.position = positionSignal.getValueAsDouble();
+        inputs.velocity = velocitySignal.getValueAsDouble();
         inputs.voltage = voltageSignal.getValueAsDouble();
         inputs.target = targetSignal.getValueAsDouble();
         inputs.absolutePosition = absoluteEncoder.get() - absoluteOffset;
-    }
-
-    // Simulation only
-    @Override
-    public void simulationPeriodic() {
-        intakeSim.setInput(pivotMotorASim.getMotorVoltage());
-        intakeSim.update(Constants.LOOP_TIME);
-
-        pivotMotorASim.setRawRotorPosition(intakeSim.getAngleRads() * radToRotations * intakeArmGearing); 
-        pivotMotorASim.setRotorVelocity(intakeSim.getVelocityRadPerSec() * radToRotations * intakeArmGearing);
-        pivotMotorASim.setSupplyVoltage(12);
+        inputs.absoluteConnected = absoluteEncoder.isConnected();
     }
 
     @Override
@@ -10,12 +10,27 @@ import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import frc.robot.Robot;
 import frc.robot.subsystems.IntakeAlgaePivot.IntakeAlgaePivotIO.IntakeAlgaePivotIOInputs;
+import frc.robot.util.AbsoluteSeeder;
 
 @Logged
-public class IntakeAlgaePivotSubsystem extends SubsystemBase {
+public class IntakeAlgaePivotSubsystem extends ProfiledSubsystemBase {
+
+    /**
+     * If true, the real robot drives the pivot and climber winch through {@link IntakeAlgaePivotIOTalonFXS}. Its kP
+     * hasn't been measured on the robot, so until it is, the pivot stays inert on hardware the way it always has,
+     * running {@link IntakeAlgaePivotIOSim} (which never moves outside simulation).
+     */
+    public static final boolean HARDWARE_ENABLED = false;
+
+    /**
+     * If true, Motion Magic runs on the TalonFX at 1 kHz. If false, a profiled PID runs on the RIO each loop
+     * against the absolute encoder. Like the TalonFX's gains, this is only tried in simulation until
+     * {@link #HARDWARE_ENABLED} is turned on.
+     */
+    public static final boolean ONBOARD_CONTROL = true;
     
     public static final double extend = Units.degreesToRotations(55);
     public static final double stow = .499;
@@ -23,35 +38,42 @@ public class IntakeAlgaePivotSubsystem extends SubsystemBase {
     public static final double climbReady = .1502;
 
     private static final double IN_POSITION_TOLERANCE = Units.degreesToRotations(3);
+    // Reseed the motor encoder from the absolute encoder if they drift apart by this much while nearly still
+    private static final double SEED_TOLERANCE = Units.degreesToRotations(1);
+    private static final double SEED_MAX_VELOCITY = Units.degreesToRotations(5);
 
     private final IntakeAlgaePivotIO io;
     private final IntakeAlgaePivotIOInputs inputs;
     private final ProfiledPIDController profiledPID;
-    
-    private boolean firstPeriodic = true;
+    @NotLogged
+    private final AbsoluteSeeder seeder = new AbsoluteSeeder(SEED_TOLERANCE, SEED_MAX_VELOCITY);
+
     private double targetPosition = stow;
 
     public IntakeAlgaePivotSubsystem() {
         inputs = new IntakeAlgaePivotIOInputs();
 
-        if (Robot.isReal()) {
-            io = new IntakeAlgaePivotIOSim();
-        } else {
+        if (Robot.isReal() && HARDWARE_ENABLED) {
             io = new IntakeAlgaePivotIOTalonFXS();
+        } else {
+            io = new IntakeAlgaePivotIOSim();
         }
 
-        profiledPID = new ProfiledPIDController(0, 0, 0, new Constraints(99, 99));
+        // The on-board kP of 120 V per rotation, as duty cycle
+        profiledPID = new ProfiledPIDController(10, 0, 0, new Constraints(99, 99));
         SmartDashboard.putData("AlgaePivotPID", profiledPID);
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         // This method will be called once per scheduler run
         io.update(inputs);
 
-        if (firstPeriodic) {
+        // Keep the motor's encoder anchored to the absolute encoder on the RIO, so Motion Magic on the TalonFX
+        // runs in absolute encoder units
+        if (seeder.shouldSeed(inputs.position, inputs.absolutePosition, inputs.velocity, inputs.absoluteConnected)) {
             io.zero(inputs.absolutePosition);
-            firstPeriodic = false;
+            inputs.position = inputs.absolutePosition;
         }
     }
 
@@ -74,9 +96,13 @@ public class IntakeAlgaePivotSubsystem extends SubsystemBase {
 
     public Command setPosition(double position) {
         return this.run(() -> {
-            io.setPosition(position);
+            if (ONBOARD_CONTROL) {
+                io.setPosition(position);
+            } else {
+                io.setSpeed(profiledPID.calculate(inputs.absolutePosition, position));
+            }
             targetPosition = position;
-        });
+        }).beforeStarting(() -> profiledPID.reset(inputs.absolutePosition));
     }
 
     public Command setSpeed(double speed) {
@@ -0,0 +1,105 @@
+package frc.robot.subsystems.IntakeCoral;
+
+import au.grapplerobotics.LaserCan;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Polls the coral LaserCan on its own thread and runs coral detection on every new measurement, so detection
+ * isn't delayed by the robot loop or aliased against it.
+ * <p>
+ * Coral is present as soon as one valid frame is under the present distance, so detection waits for at most one
+ * measurement. It's only gone after two frames in a row at or past the absent distance, so a single bad frame can't
+ * drop it. Invalid frames count as seeing nothing, so a sensor that stops getting valid readings reports no coral.
+ * The FPGA time of the frame that first saw the coral is kept, for anything timed from the detection.
+ * <p>
+ * The LaserCan driver doesn't expose a measurement timestamp or frame counter. A measurement that differs from the
+ * last one is new, and an identical one (a still target) is counted as a new frame once a full timing budget has
+ * passed, since the sensor sends one measurement per budget.
+ */
+class CoralSensorService {
+
+    // Poll much faster than the 33 ms timing budget, so new measurements are picked up within a few milliseconds
+    private static final double POLL_PERIOD = 0.005;
+    // Coral is present below the first distance, and gone at or above the second
+    private static final double PRESENT_DISTANCE = 0.23;
+    private static final double ABSENT_DISTANCE = 0.25;
+    private static final int ABSENT_FRAMES = 2;
+    // The sensor counts as disconnected if no new measurement has arrived for this long
+    private static final double STALE_TIME = 0.5;
+    private static final double NO_DISTANCE = 2;
+
+    private final LaserCan laserCan;
+    private final Notifier notifier;
+    private int absentFrames = 0;
+
+    // Previous measurement, to tell when a new one has arrived
+    private int lastStatus = -2;
+    private int lastDistanceMm = -1;
+    private int lastAmbient = -1;
+    private double lastFrameTime = Double.NEGATIVE_INFINITY;
+
+    // Written by the polling thread, read by the main thread through snapshot()
+    private double distance = NO_DISTANCE;
+    private int status = -1;
+    private double lastMeasurementTime = Double.NEGATIVE_INFINITY;
+    private boolean present = false;
+    private double detectedTime = 0;
+    private long measurementCount = 0;
+
+    CoralSensorService(LaserCan laserCan) {
+        this.laserCan = laserCan;
+        this.notifier = new Notifier(this::poll);
+        notifier.setName("Coral Sensor");
+        notifier.startPeriodic(POLL_PERIOD);
+    }
+
+    private void poll() {
+        LaserCan.Measurement measurement = laserCan.getMeasurement();
+        if (measurement == null) return;
+
+        double now = Timer.getFPGATimestamp();
+        boolean changed = measurement.status != lastStatus
+                          || measurement.distance_mm != lastDistanceMm
+                          || measurement.ambient != lastAmbient;
+        // Allow a little poll jitter, so a still target isn't skipped for a whole extra budget
+        boolean budgetElapsed = now - lastFrameTime >= measurement.budget_ms * 0.001 - POLL_PERIOD / 2;
+        if (!changed && !budgetElapsed) return;
+        lastStatus = measurement.status;
+        lastDistanceMm = measurement.distance_mm;
+        lastAmbient = measurement.ambient;
+        lastFrameTime = now;
+
+        synchronized (this) {
+            status = measurement.status;
+            lastMeasurementTime = now;
+            measurementCount++;
+            boolean valid = measurement.status == LaserCan.LASERCAN_STATUS_VALID_MEASUREMENT;
+            distance = valid ? measurement.distance_mm * 0.001 : NO_DISTANCE;
+
+            if (!present) {
+                if (distance < PRESENT_DISTANCE) {
+                    present = true;
+                    detectedTime = now;
+                    absentFrames = 0;
+                }
+            } else if (distance >= ABSENT_DISTANCE) {
+                present = ++absentFrames < ABSENT_FRAMES;
+            } else {
+                absentFrames = 0;
+            }
+        }
+    }
+
+    /**
+     * Copies the latest sensor state into the inputs.
+     */
+    synchronized void snapshot(IntakeCoralIO.IntakeIOInputs inputs) {
+        inputs.coralDistance = distance;
+        inputs.coralSensorStatus = status;
+        inputs.coralSensorConnected = Timer.getFPGATimestamp() - lastMeasurementTime < STALE_TIME;
+        inputs.coralPresent = present;
+        inputs.coralDetectedTime = detectedTime;
+        inputs.coralMeasurements = measurementCount;
+    }
+}
@@ -11,6 +11,10 @@ public interface IntakeCoralIO {
         public double coralDistance = 0;
         public boolean coralSensorConnected = false;
         public int coralSensorStatus = -1;
+        public boolean coralPresent = false;
+        // FPGA time the coral was last first seen
+        public double coralDetectedTime = 0;
+        public long coralMeasurements = 0;
     }
 
     public void update(IntakeIOInputs inputs);
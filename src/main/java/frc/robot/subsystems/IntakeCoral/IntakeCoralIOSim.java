@@ -4,6 +4,7 @@ import static edu.wpi.first.units.Units.Inches;
 import org.ironmaple.simulation.IntakeSimulation;
 import org.ironmaple.simulation.IntakeSimulation.IntakeSide;
 import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Timer;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.IntakeCoralPivot.IntakeCoralPivotSubsystem;
 import frc.robot.util.simulation.SimLogic;
@@ -66,6 +67,11 @@ public class IntakeCoralIOSim implements IntakeCoralIO {
 
         inputs.voltage = rollerSpeed * 12;
         inputs.coralDistance = SimLogic.intakeHasCoral ? 0.07 : 3;
+        if (SimLogic.intakeHasCoral && !inputs.coralPresent) {
+            inputs.coralDetectedTime = Timer.getFPGATimestamp();
+        }
+        inputs.coralPresent = SimLogic.intakeHasCoral;
+        inputs.coralMeasurements++;
         inputs.coralSensorConnected = true;
         inputs.coralSensorStatus = 0;
     }
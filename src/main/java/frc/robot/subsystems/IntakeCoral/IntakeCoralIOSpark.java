@@ -14,19 +14,18 @@ import com.revrobotics.spark.config.SparkMaxConfig;
 import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
 import au.grapplerobotics.ConfigurationFailedException;
 import au.grapplerobotics.LaserCan;
-import edu.wpi.first.wpilibj.Timer;
 import frc.robot.Constants;
+import frc.robot.util.StatusSignals;
+import frc.robot.util.CanBudget;
 
 public class IntakeCoralIOSpark implements IntakeCoralIO {
 
     final SparkMax motor;
     final TalonFXS bottomRoller;
     final LaserCan laserCan;
+    final CoralSensorService coralSensor;
     final VoltageOut voltageControl;
 
-    double previousDistance = 0;
-    double lastDistanceChangeTime = 0;
-
     public IntakeCoralIOSpark() {
         SparkMaxConfig sparkConfig = new SparkMaxConfig();
         sparkConfig.idleMode(IdleMode.kBrake)
@@ -41,38 +40,30 @@ public class IntakeCoralIOSpark implements IntakeCoralIO {
         talonConfig.MotorOutput.NeutralMode = NeutralModeValue.Brake;
         bottomRoller = new TalonFXS(Constants.INTAKE_CORAL_ROLLER_TALON, Constants.CANIVORE);
         bottomRoller.getConfigurator().apply(talonConfig);
+        StatusSignals.registerDevices(bottomRoller);
 
         voltageControl = new VoltageOut(0);
 
         laserCan = configureLaser(new LaserCan(Constants.INTAKE_LASERCAN));
+        coralSensor = laserCan != null ? new CoralSensorService(laserCan) : null;
+
+        // REVLib defaults: status 0 at 100 Hz, status 1 and 2 at 50 Hz, plus a setpoint every loop
+        CanBudget.addLoad("rio", "SparkMax " + Constants.INTAKE_CORAL_SPARK + " status frames", 200);
+        CanBudget.addLoad("rio", "SparkMax " + Constants.INTAKE_CORAL_SPARK + " control", 50);
+        // One measurement per 33 ms timing budget
+        CanBudget.addLoad("rio", "LaserCan " + Constants.INTAKE_LASERCAN + " measurements", 1000.0 / 33);
     }
 
     @Override
     public void update(IntakeIOInputs inputs) {
-        double distance = 2;
-
-        if (laserCan != null) {
-            LaserCan.Measurement measurement = laserCan.getMeasurement();
-            if (measurement != null) {
-                if (measurement.status == LaserCan.LASERCAN_STATUS_VALID_MEASUREMENT) {
-                    distance = measurement.distance_mm * 0.001;
-                }
-                inputs.coralSensorStatus = measurement.status;
-            } else {
-                inputs.coralSensorStatus = -1;
-            }
+        if (coralSensor != null) {
+            coralSensor.snapshot(inputs);
+        } else {
+            inputs.coralSensorConnected = false;
+            inputs.coralSensorStatus = -1;
+            inputs.coralPresent = false;
         }
-
-        double currentTime = Timer.getFPGATimestamp();
-        if (distance - previousDistance != 0) {
-            lastDistanceChangeTime = currentTime;
-        }
-
-        inputs.coralSensorConnected = laserCan != null && currentTime - lastDistanceChangeTime < 0.5;
-        inputs.coralDistance = distance;
         inputs.voltage = motor.getAppliedOutput() * 12;
-
-        previousDistance = distance;
     }
 
     @Override
@@ -4,13 +4,14 @@ import edu.wpi.first.epilogue.Logged;
 import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Robot;
 import frc.robot.subsystems.IntakeCoral.IntakeCoralIO.IntakeIOInputs;
+import frc.robot.util.CachedCondition;
 
 @Logged
-public class IntakeCoralSubsystem extends SubsystemBase {
+public class IntakeCoralSubsystem extends ProfiledSubsystemBase {
 
     private final IntakeCoralIO io;
     private final IntakeIOInputs inputs;
@@ -28,14 +29,14 @@ public class IntakeCoralSubsystem extends SubsystemBase {
             io = new IntakeCoralIOSim();
         }
 
-        hasCoral = new Trigger(this::hasCoralBool);
+        hasCoral = CachedCondition.trigger("Coral Intake/Has Coral", this::hasCoralBool);
 
         coralSensorDisconnectedAlert = new Alert("Coral intake sensor disconnected!", AlertType.kError);
         coralSensorStatusAlert = new Alert("Coral intake sensor status: %d", AlertType.kWarning);
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.update(inputs);
 
         coralSensorDisconnectedAlert.set(!inputs.coralSensorConnected);
@@ -71,6 +72,14 @@ public class IntakeCoralSubsystem extends SubsystemBase {
     }
 
     public boolean hasCoralBool() {
-        return inputs.coralSensorConnected && inputs.coralDistance < 0.23; // .2 measured to be the 
+        return inputs.coralSensorConnected && inputs.coralPresent;
+    }
+
+    /**
+     * Returns the FPGA time the sensor first saw the current coral (or the last one, if there's none now). This is
+     * when the frame arrived, which can be earlier than the loop that reads {@link #hasCoral}.
+     */
+    public double getCoralDetectedTime() {
+        return inputs.coralDetectedTime;
     }
 }
@@ -12,6 +12,7 @@ public interface IntakeCoralPivotIO {
         double voltage;
         double target;
         double absolutePosition;
+        boolean absoluteConnected;
     }
     
     public void setIntakePosition(double position);
@@ -1,58 +1,85 @@
 package frc.robot.subsystems.IntakeCoralPivot;
 
-import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.State;
+import edu.wpi.first.math.util.Units;
+import frc.robot.Constants;
 
-public class IntakeCoralPivotIOSim implements IntakeCoralPivotIO{
+/**
+ * Simulates the pivot with the same plant as the TalonFXS simulation, and position control the way the TalonFXS
+ * runs it: a motion profile and PID updated at 1 kHz, rather than once per robot loop. Like the real motor, the
+ * relative encoder reads 0 at boot, so position control only lines up once it's been seeded from the absolute encoder.
+ */
+public class IntakeCoralPivotIOSim implements IntakeCoralPivotIO {
+
+    // Same plant as IntakeCoralPivotIOTalonFXS's simulation: 1.5 degrees per loop per volt
+    private static final double ROTATIONS_PER_VOLT_SECOND = Units.degreesToRotations(1.5) / Constants.LOOP_TIME;
+    private static final double CONTROL_PERIOD = 0.001;
+    private static final double KP = 120;
+    private static final double KV = 1 / ROTATIONS_PER_VOLT_SECOND;
 
     double position = IntakeCoralPivotSubsystem.stow;
-    double speed = 0;
+    // Relative encoder reading minus the mechanism's actual position
+    double relativeOffset = -position;
+    double velocity = 0;
+    double voltage = 0;
     double target = 0;
-
-    PIDController pid;
     boolean usingPID = false;
 
-    public IntakeCoralPivotIOSim() {
-        pid = new PIDController(0.01, 0, 0);
-    }
+    final TrapezoidProfile profile = new TrapezoidProfile(new Constraints(2, 20));
+    State setpoint = new State(position, 0);
+    final State goal = new State();
 
     @Override
-    public void setIntakePosition(double encoderPosition){
+    public void setIntakePosition(double encoderPosition) {
+        if (!usingPID) {
+            setpoint = new State(position + relativeOffset, velocity);
+        }
         target = encoderPosition;
         usingPID = true;
     }
 
     @Override
     public void update(IntakeCoralPivotIOInputs inputs) {
-        if (usingPID) {
-            speed = pid.calculate(position, target);
-            speed = Math.max(-1, Math.min(1, speed));
-        }
-
-        inputs.position = position;
-        inputs.voltage = speed * 12;
-        inputs.target = target;
-
+        inputs.position = position + relativeOffset;
+        inputs.velocity = velocity;
+        inputs.voltage = voltage;
+        inputs.target = usingPID ? setpoint.position : target;
+        inputs.absolutePosition = position;
+        inputs.absoluteConnected = true;
     }
 
     @Override
     public void simulationPeriodic() {
-        position += speed * 8;
+        double start = position;
+        goal.position = target;
+        for (double t = 0; t < Constants.LOOP_TIME - 1e-9; t += CONTROL_PERIOD) {
+            if (usingPID) {
+                setpoint = profile.calculate(CONTROL_PERIOD, setpoint, goal);
+                double error = setpoint.position - (position + relativeOffset);
+                voltage = MathUtil.clamp(KP * error + KV * setpoint.velocity, -12, 12);
+            }
+            position += voltage * ROTATIONS_PER_VOLT_SECOND * CONTROL_PERIOD;
+        }
+        velocity = (position - start) / Constants.LOOP_TIME;
     }
 
     @Override
     public void setSpeed(double speed) {
-        this.speed = speed;
+        voltage = speed * 12;
         usingPID = false;
     }
 
     @Override
     public void stopMotor() {
-        speed = 0;
+        voltage = 0;
+        usingPID = false;
     }
 
     @Override
     public void zero(double rotations) {
-        // Do nothing
+        relativeOffset = rotations - position;
     }
-    
 }
@@ -11,13 +11,12 @@ import com.ctre.phoenix6.signals.GravityTypeValue;
 import com.ctre.phoenix6.signals.InvertedValue;
 import com.ctre.phoenix6.signals.MotorArrangementValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
-import com.ctre.phoenix6.sim.TalonFXSSimState;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.DutyCycleEncoder;
 import frc.robot.Constants;
-import frc.robot.Robot;
+import frc.robot.util.StatusSignals.Priority;
 
 public class IntakeCoralPivotIOTalonFXS implements IntakeCoralPivotIO {
     final double PIVOT_GEARING = 7 * 5 * 3 * (22.0/16.0) * (36.0/22.0);
@@ -29,35 +28,23 @@ public class IntakeCoralPivotIOTalonFXS implements IntakeCoralPivotIO {
 
     // Status signals
     final StatusSignal<Angle> positionSignal;
+    final StatusSignal<AngularVelocity> velocitySignal;
     final StatusSignal<Voltage> voltageSignal;
     final StatusSignal<Double> targetSignal;
 
-    // Simulation-only variables
-    TalonFXSSimState motorSim = null;
-    double simulatedPosition = IntakeCoralPivotSubsystem.EXTREME_STOW;
-    
     public IntakeCoralPivotIOTalonFXS() {
         TalonFXSConfiguration config = new TalonFXSConfiguration();
         config.Commutation.MotorArrangement = MotorArrangementValue.NEO550_JST;
         config.ExternalFeedback.ExternalFeedbackSensorSource = ExternalFeedbackSensorSourceValue.Commutation;
-        if (Robot.isReal()) {
-            config.ExternalFeedback.SensorToMechanismRatio = PIVOT_GEARING;
-            config.Slot0.kP = 0;
-            config.Slot0.kI = 0;
-            config.Slot0.kD = 0;
-            config.Slot0.kG = 0;
-            config.Slot0.kV = 0;
-            config.MotionMagic.MotionMagicExpo_kV = 2;
-            config.MotionMagic.MotionMagicExpo_kA = 0;
-        } else {
-            config.Slot0.kP = 1440;
-            config.Slot0.kI = 0;
-            config.Slot0.kD = 0;
-            config.Slot0.kG = 0;
-            config.Slot0.kV = 0;
-            config.MotionMagic.MotionMagicExpo_kV = .05;
-            config.MotionMagic.MotionMagicExpo_kA = 0;
-        }
+        config.ExternalFeedback.SensorToMechanismRatio = PIVOT_GEARING;
+        // Same stiffness as the old RIO PID (10 duty cycle per rotation), in volts
+        config.Slot0.kP = 120;
+        config.Slot0.kI = 0;
+        config.Slot0.kD = 0;
+        config.Slot0.kG = 0;
+        config.Slot0.kV = 0;
+        config.MotionMagic.MotionMagicExpo_kV = 2;
+        config.MotionMagic.MotionMagicExpo_kA = 0;
         config.MotionMagic.MotionMagicJerk = 0;
         config.Slot0.GravityType = GravityTypeValue.Arm_Cosine;
 
@@ -71,34 +58,22 @@ public class IntakeCoralPivotIOTalonFXS implements IntakeCoralPivotIO {
         voltageControl = new VoltageOut(0);
         motionMagicControl = new MotionMagicExpoVoltage(0);
 
-        positionSignal = trackSignal(motor.getPosition());
-        voltageSignal = trackSignal(motor.getMotorVoltage());
-        targetSignal = trackSignal(motor.getClosedLoopReference());
+        positionSignal = trackSignal(motor, Priority.NORMAL, motor.getPosition());
+        velocitySignal = trackSignal(motor, Priority.NORMAL, motor.getVelocity());
+        voltageSignal = trackSignal(motor, Priority.DEBUG, motor.getMotorVoltage());
+        targetSignal = trackSignal(motor, Priority.NORMAL, motor.getClosedLoopReference());
 
         absoluteEncoder = new DutyCycleEncoder(Constants.DIO_INTAKE_CORAL_ENCODER);
-
-        if (Robot.isReal()) return;
-
-        motorSim = motor.getSimState();
     }
 
     @Override
     public void update(IntakeCoralPivotIOInputs inputs) {
         inputs.position = positionSignal.getValueAsDouble();
+        inputs.velocity = velocitySignal.getValueAsDouble();
         inputs.voltage = voltageSignal.getValueAsDouble();
         inputs.target = targetSignal.getValueAsDouble();
-        
-        if (Robot.isReal()) {
-            inputs.absolutePosition = absoluteEncoder.get();
-        } else {
-            inputs.absolutePosition = simulatedPosition;
-        }
-    }
-
-    @Override
-    public void simulationPeriodic() {
-        simulatedPosition += motorSim.getMotorVoltage() * Units.degreesToRotations(1.5);
-        motorSim.setRawRotorPosition(simulatedPosition);
+        inputs.absolutePosition = absoluteEncoder.get();
+        inputs.absoluteConnected = absoluteEncoder.isConnected();
     }
 
     @Override
@@ -117,6 +92,7 @@ public class IntakeCoralPivotIOTalonFXS implements IntakeCoralPivotIO {
 
     @Override
     public void zero(double rotations) {
-        motor.setPosition(rotations);
+        // Don't wait for the config ack, since the subsystem reseeds from the absolute encoder during the match
+        motor.setPosition(rotations, 0);
     }
 }
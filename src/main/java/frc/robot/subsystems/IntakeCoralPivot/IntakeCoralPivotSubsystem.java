@@ -10,14 +10,21 @@ import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Robot;
 import frc.robot.subsystems.IntakeCoralPivot.IntakeCoralPivotIO.IntakeCoralPivotIOInputs;
 import frc.robot.util.simulation.SimVisuals;
+import frc.robot.util.AbsoluteSeeder;
 
 @Logged
-public class IntakeCoralPivotSubsystem extends SubsystemBase {
+public class IntakeCoralPivotSubsystem extends ProfiledSubsystemBase {
+
+    /**
+     * If true, Motion Magic runs on the TalonFXS at 1 kHz. If false, a profiled PID runs on the RIO each loop
+     * against the absolute encoder.
+     */
+    public static final boolean ONBOARD_CONTROL = true;
 
     //presets for intake positions
     public static final double extend = .779;
@@ -25,11 +32,16 @@ public class IntakeCoralPivotSubsystem extends SubsystemBase {
     public static final double EXTREME_STOW = stow - .1;
 
     private static final double IN_POSITION_TOLERANCE = Units.degreesToRotations(3);
+    // Reseed the motor encoder from the absolute encoder if they drift apart by this much while nearly still
+    private static final double SEED_TOLERANCE = Units.degreesToRotations(1);
+    private static final double SEED_MAX_VELOCITY = Units.degreesToRotations(5);
 
     private final IntakeCoralPivotIO io;
     private final IntakeCoralPivotIOInputs inputs;
 
     private final ProfiledPIDController profiledPID;
+    @NotLogged
+    private final AbsoluteSeeder seeder = new AbsoluteSeeder(SEED_TOLERANCE, SEED_MAX_VELOCITY);
 
     private double targetPosition = -1;
     private boolean firstPeriodic = true;
@@ -41,7 +53,11 @@ public class IntakeCoralPivotSubsystem extends SubsystemBase {
 
     public IntakeCoralPivotSubsystem() {
         inputs = new IntakeCoralPivotIOInputs();
-        io = new IntakeCoralPivotIOTalonFXS();
+        if (Robot.isReal()) {
+            io = new IntakeCoralPivotIOTalonFXS();
+        } else {
+            io = new IntakeCoralPivotIOSim();
+        }
 
         double kP = 10;
         if (Robot.isSimulation()) kP = 5;
@@ -50,8 +66,14 @@ public class IntakeCoralPivotSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.update(inputs);
+        // The absolute encoder is on the RIO, so the TalonFXS can't use it as a remote sensor. Instead, keep the
+        // motor's encoder anchored to it, so Motion Magic on the TalonFXS runs in absolute encoder units.
+        if (seeder.shouldSeed(inputs.position, inputs.absolutePosition, inputs.velocity, inputs.absoluteConnected)) {
+            io.zero(inputs.absolutePosition);
+            inputs.position = inputs.absolutePosition;
+        }
         SimVisuals.setCoralIntakeDegrees(getDegrees() * 0.6);
 
         if (firstPeriodic) {
@@ -60,8 +82,12 @@ public class IntakeCoralPivotSubsystem extends SubsystemBase {
             firstPeriodic = false;
         }
 
-        double output = profiledPID.calculate(inputs.absolutePosition, targetPosition);
-        io.setSpeed(output);
+        if (ONBOARD_CONTROL) {
+            io.setIntakePosition(targetPosition);
+        } else {
+            double output = profiledPID.calculate(inputs.absolutePosition, targetPosition);
+            io.setSpeed(output);
+        }
     }
 
     @Override
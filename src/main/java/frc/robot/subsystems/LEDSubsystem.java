@@ -18,10 +18,11 @@ import com.ctre.phoenix.led.LarsonAnimation.BounceMode;
 import com.ctre.phoenix.led.TwinkleAnimation.TwinklePercent;
 import com.ctre.phoenix.led.TwinkleOffAnimation.TwinkleOffPercent;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import frc.robot.Constants;
+import frc.robot.util.CanBudget;
 
-public class LEDSubsystem extends SubsystemBase {
+public class LEDSubsystem extends ProfiledSubsystemBase {
 
     public final LEDColor RED = new LEDColor(50, 0, 0, 255);
     public final LEDColor BLUE = new LEDColor(21, 46, 150, 255); // navy blue
@@ -30,6 +31,7 @@ public class LEDSubsystem extends SubsystemBase {
     public final LEDColor WHITE = new LEDColor(255, 255, 255, 255);
     public final LEDColor ALGAE = new LEDColor(0, 255, 30, 255);
     public final LEDColor PURPLE = new LEDColor(163, 49, 196, 255);
+    private final LEDColor OFF = new LEDColor(0, 0, 0, 0);
 
     public final RainbowAnimation rainbow;
     public final SingleFadeAnimation blueFade, redFade, yellowFade, whiteFade, yellowFadeFast, purpleFade;
@@ -44,13 +46,36 @@ public class LEDSubsystem extends SubsystemBase {
     private final int NUM_LEDS = 8 + STRIP_LENGTH + STRIP_2_LENGTH;
     private final int STRIP_OFFSET = 0;
     private final int NO_CANDLE_OFFSET = 8;
+    // Most setLEDs calls sent to the CANdle per loop. Anything left over is sent on the next loop.
+    private final int MAX_FRAMES_PER_LOOP = 4;
+
+    public final Segment[] ALL = { new Segment(STRIP_OFFSET, NUM_LEDS) };
+    public final Segment[] TOP = { new Segment(24, 25), new Segment(49, 23) };
+    public final Segment[] BOTTOM = { new Segment(0, 24), new Segment(72, 24) };
 
     private final CANdle candle;
 
+    private final LayerState[] layers = new LayerState[Layer.values().length];
+    private final LEDColor[] frame = new LEDColor[NUM_LEDS];
+    // What the CANdle is showing, or null where it's unknown (after an animation)
+    private final LEDColor[] sent = new LEDColor[NUM_LEDS];
     private Animation currentAnimation = null;
     private Animation currentAnimation2 = null;
-    private LEDColor currentColor = null;
-    private LEDColor currentSplitColor = null;
+    private int framesSent = 0;
+
+    /**
+     * LED layers, from highest to lowest priority. Each LED shows the highest active layer that paints it.
+     */
+    public enum Layer {
+        ALERT,
+        SCORING,
+        IDLE
+    }
+
+    /**
+     * A contiguous range of LEDs.
+     */
+    public record Segment(int start, int count) {}
 
     public LEDSubsystem() {
         CANdleConfiguration config = new CANdleConfiguration();
@@ -62,6 +87,12 @@ public class LEDSubsystem extends SubsystemBase {
         config.vBatOutputMode = VBatOutputMode.Off;
         candle = new CANdle(Constants.CANDLE, Constants.CANIVORE);
         candle.configAllSettings(config);
+        // Phoenix 5 status frames, plus animation and color updates
+        CanBudget.addLoad(Constants.CANIVORE, "CANdle " + Constants.CANDLE, 20);
+
+        for (int i = 0; i < layers.length; i++) {
+            layers[i] = new LayerState(NUM_LEDS);
+        }
 
         rainbow = new RainbowAnimation(1, 1, NUM_LEDS, false, STRIP_OFFSET);
 
@@ -86,80 +117,165 @@ public class LEDSubsystem extends SubsystemBase {
         greenStrobe = strobe(GREEN, 0.25);
     }
 
-    public Command animate(Animation animation) {
-        return run(() -> setAnimation(animation));
-    }
+    @Override
+    protected void profiledPeriodic() {
+        framesSent = 0;
+
+        // Colors are composited from the top layer down, until an animation is reached. Animations run on the
+        // CANdle and can't be mixed with colors, so they cover everything below them, and are dropped entirely
+        // if a layer above them paints anything.
+        LayerState animationLayer = null;
+        boolean anyColor = false;
+        for (int i = 0; i < NUM_LEDS; i++) {
+            frame[i] = null;
+        }
+        for (LayerState layer : layers) {
+            if (!layer.active) continue;
+            if (layer.animation != null) {
+                animationLayer = layer;
+                break;
+            }
+            for (int i = 0; i < NUM_LEDS; i++) {
+                if (frame[i] == null && layer.pixels[i] != null) {
+                    frame[i] = layer.pixels[i];
+                    anyColor = true;
+                }
+            }
+        }
 
-    public Command color(LEDColor color) {
-        return run(() -> setColor(color));
-    }
+        if (animationLayer != null && !anyColor) {
+            showAnimations(animationLayer.animation, animationLayer.animation2);
+            return;
+        }
 
-    public void setAnimation(Animation animation) {
-        setAnimation(animation, 0);
+        if (currentAnimation != null) {
+            clearAnimations();
+        }
+        for (int i = 0; i < NUM_LEDS; i++) {
+            if (frame[i] == null) frame[i] = OFF;
+        }
+        sendChangedRuns();
     }
 
-    public void setAnimation(Animation animation, int slot) {
-        if (animation != currentAnimation) {
-            // clearAnimations();
-            ErrorCode code = candle.animate(animation, slot);
-            if (code == ErrorCode.OK) {
-                clearState();
-                currentAnimation = animation;
-            }
+    private void showAnimations(Animation animation1, Animation animation2) {
+        if (animation1 == currentAnimation && animation2 == currentAnimation2) return;
+
+        if (animation2 == null && currentAnimation2 != null) {
+            candle.clearAnimation(1);
+        }
+        ErrorCode code1 = candle.animate(animation1, 0);
+        ErrorCode code2 = animation2 != null ? candle.animate(animation2, 1) : ErrorCode.OK;
+        framesSent = animation2 != null ? 2 : 1;
+        // The animation takes over the LEDs, so we no longer know what they're showing
+        for (int i = 0; i < NUM_LEDS; i++) {
+            sent[i] = null;
+        }
+        if (code1 == ErrorCode.OK && code2 == ErrorCode.OK) {
+            currentAnimation = animation1;
+            currentAnimation2 = animation2;
+        } else {
+            currentAnimation = null;
+            currentAnimation2 = null;
         }
     }
 
-    public void setDualAnimation(Animation animation1, Animation animation2) {
-        if (currentAnimation != animation1 || currentAnimation2 != animation2) {
-            clearAnimations();
-            ErrorCode code1 = candle.animate(animation1, 0);
-            ErrorCode code2 = candle.animate(animation2, 1);
+    /**
+     * Sends the frame to the CANdle as a few contiguous runs of one color, covering every LED that changed.
+     * A run also covers unchanged LEDs of its color, so it doesn't get split up needlessly.
+     */
+    private void sendChangedRuns() {
+        int i = 0;
+        while (i < NUM_LEDS && framesSent < MAX_FRAMES_PER_LOOP) {
+            if (frame[i].equals(sent[i])) {
+                i++;
+                continue;
+            }
 
-            if (code1 == ErrorCode.OK && code2 == ErrorCode.OK) {
-                clearState();
-                currentAnimation = animation1;
-                currentAnimation2 = animation2;
+            LEDColor color = frame[i];
+            int end = i + 1;
+            while (end < NUM_LEDS && frame[end].equals(color)) {
+                end++;
             }
-        }
-    }
 
-    public void setColor(LEDColor color) {
-        if (color != currentColor) {
-            clearAnimations();
-            ErrorCode code = candle.setLEDs(color.r, color.g, color.b, color.w, STRIP_OFFSET, NUM_LEDS);
+            ErrorCode code = candle.setLEDs(color.r, color.g, color.b, color.w, i, end - i);
+            framesSent++;
             if (code == ErrorCode.OK) {
-                clearState();
-                currentColor = color;
+                for (int j = i; j < end; j++) {
+                    sent[j] = color;
+                }
             }
+            i = end;
         }
     }
 
-    public void setSplitColor(LEDColor top, LEDColor bottom) {
-        if (top != currentColor || bottom != currentSplitColor) {
-            clearAnimations();
-            ErrorCode code1 = candle.setLEDs(bottom.r, bottom.g, bottom.b, bottom.w, 0, 24);
-            ErrorCode code2 = candle.setLEDs(top.r, top.g, top.b, top.w, 24, 25);
+    private void clearAnimations() {
+        candle.clearAnimation(0);
+        if (currentAnimation2 != null) {
+            candle.clearAnimation(1);
+        }
+        currentAnimation = null;
+        currentAnimation2 = null;
+    }
 
-            ErrorCode code3 =  candle.setLEDs(top.r, top.g, top.b, top.w, 49, 23);
-            ErrorCode code4 =  candle.setLEDs(bottom.r, bottom.g, bottom.b, bottom.w, 72, 24);
+    public Command animate(Animation animation) {
+        return runEnd(() -> setAnimation(Layer.ALERT, animation), () -> clear(Layer.ALERT));
+    }
 
-            if (code1 == ErrorCode.OK && code2 == ErrorCode.OK && code3 == ErrorCode.OK && code4 == ErrorCode.OK) {
-                clearState();
-                currentColor = top;
-                currentSplitColor = bottom;
-            }
-        }
+    public Command color(LEDColor color) {
+        return runEnd(() -> setColor(Layer.ALERT, color), () -> clear(Layer.ALERT));
     }
 
-    private void clearAnimations() {
-        candle.clearAnimation(0);
+    /**
+     * Runs an animation on a layer. Animations cover every layer below them.
+     */
+    public void setAnimation(Layer layer, Animation animation) {
+        setDualAnimation(layer, animation, null);
     }
 
-    private void clearState() {
-        currentAnimation = null;
-        currentAnimation2 = null;
-        currentColor = null;
-        currentSplitColor = null;
+    public void setDualAnimation(Layer layer, Animation animation1, Animation animation2) {
+        LayerState state = layers[layer.ordinal()];
+        state.clearPixels();
+        state.animation = animation1;
+        state.animation2 = animation2;
+        state.active = true;
+    }
+
+    public void setColor(Layer layer, LEDColor color) {
+        paint(layer, color, ALL);
+    }
+
+    public void setSplitColor(Layer layer, LEDColor top, LEDColor bottom) {
+        LayerState state = layers[layer.ordinal()];
+        state.clearPixels();
+        state.fill(top, TOP);
+        state.fill(bottom, BOTTOM);
+        state.active = true;
+    }
+
+    /**
+     * Paints some segments of a layer, leaving the rest of the layer transparent.
+     */
+    public void paint(Layer layer, LEDColor color, Segment... segments) {
+        LayerState state = layers[layer.ordinal()];
+        state.clearPixels();
+        state.fill(color, segments);
+        state.active = true;
+    }
+
+    /**
+     * Makes a layer transparent, so the layers below it show through.
+     */
+    public void clear(Layer layer) {
+        LayerState state = layers[layer.ordinal()];
+        state.clearPixels();
+        state.active = false;
+    }
+
+    /**
+     * Returns the number of frames sent to the CANdle this loop.
+     */
+    public int getFramesSent() {
+        return framesSent;
     }
 
     public SingleFadeAnimation fade(LEDColor color, double speed) {
@@ -190,5 +306,32 @@ public class LEDSubsystem extends SubsystemBase {
         return new StrobeAnimation(color.r, color.g, color.b, color.w, speed, NUM_LEDS, STRIP_OFFSET);
     }
 
-    private record LEDColor(int r, int g, int b, int w) {}
+    public record LEDColor(int r, int g, int b, int w) {}
+
+    private static class LayerState {
+        final LEDColor[] pixels;
+        Animation animation = null;
+        Animation animation2 = null;
+        boolean active = false;
+
+        LayerState(int numLeds) {
+            pixels = new LEDColor[numLeds];
+        }
+
+        void clearPixels() {
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = null;
+            }
+            animation = null;
+            animation2 = null;
+        }
+
+        void fill(LEDColor color, Segment... segments) {
+            for (Segment segment : segments) {
+                for (int i = segment.start(); i < segment.start() + segment.count(); i++) {
+                    pixels[i] = color;
+                }
+            }
+        }
+    }
 }
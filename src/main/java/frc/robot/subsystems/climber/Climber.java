@@ -6,14 +6,15 @@ import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.ScheduleCommand;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Robot;
 import frc.robot.subsystems.climber.ClimberIO.ClimberInputs;
 import frc.robot.commands.RumbleCommand;
+import frc.robot.util.CachedCondition;
 
 @Logged
-public class Climber extends SubsystemBase {
+public class Climber extends ProfiledSubsystemBase {
 
     public enum ClimberState {
         IDLE,
@@ -48,11 +49,11 @@ public class Climber extends SubsystemBase {
         }
 
         grabberStalling = new Trigger(this::isGrabberStalling).debounce(0.75, DebounceType.kRising);
-        hasCage = new Trigger(this::isCageLatched);
+        hasCage = CachedCondition.trigger("Climber/Has Cage", this::isCageLatched);
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.update(inputs);
 
         if (hasCage.getAsBoolean()) {
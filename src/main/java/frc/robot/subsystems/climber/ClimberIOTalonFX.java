@@ -11,6 +11,8 @@ import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.DutyCycleEncoder;
 import frc.robot.Constants;
+import frc.robot.util.StatusSignals.Priority;
+import frc.robot.util.StatusSignals;
 
 public class ClimberIOTalonFX implements ClimberIO {
 
@@ -40,7 +42,8 @@ public class ClimberIOTalonFX implements ClimberIO {
         voltageControl = new VoltageOut(0);
         grabberVoltage = new VoltageOut(0);
 
-        grabberVelocity = trackSignal(grabberMotor.getVelocity());
+        grabberVelocity = trackSignal(grabberMotor, Priority.NORMAL, grabberMotor.getVelocity());
+        StatusSignals.registerDevices(winchMotor);
     }
 
     @Override
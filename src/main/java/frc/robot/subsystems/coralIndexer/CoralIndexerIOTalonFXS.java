@@ -7,6 +7,7 @@ import com.ctre.phoenix6.signals.InvertedValue;
 import com.ctre.phoenix6.signals.MotorArrangementValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 import frc.robot.Constants;
+import frc.robot.util.StatusSignals;
 
 public class CoralIndexerIOTalonFXS implements CoralIndexerIO {
     
@@ -20,7 +21,7 @@ public class CoralIndexerIOTalonFXS implements CoralIndexerIO {
         config.MotorOutput.NeutralMode = NeutralModeValue.Brake;
         motor = new TalonFXS(Constants.CORAL_INDEXER, Constants.CANIVORE);
         motor.getConfigurator().apply(config);
-        motor.optimizeBusUtilization(10, 0.1);
+        StatusSignals.registerDevices(motor);
 
         voltageControl = new VoltageOut(0);
     }
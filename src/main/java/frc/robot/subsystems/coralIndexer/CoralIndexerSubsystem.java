@@ -1,10 +1,10 @@
 package frc.robot.subsystems.coralIndexer;
 
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import frc.robot.subsystems.coralIndexer.CoralIndexerIO.CoralIndexerInputs;
 
-public class CoralIndexerSubsystem extends SubsystemBase {
+public class CoralIndexerSubsystem extends ProfiledSubsystemBase {
 
     final CoralIndexerIO io;
     final CoralIndexerInputs inputs;
@@ -15,7 +15,7 @@ public class CoralIndexerSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.update(inputs);
     }
 
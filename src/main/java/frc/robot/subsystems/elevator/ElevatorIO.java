@@ -10,7 +10,11 @@ public interface ElevatorIO {
         double position;
         double velocity;
         double dutyCycle;
+        double voltage;
+        double acceleration;
         double target;
+        // The part of the applied voltage from the feedback gains, or 0 without position control
+        double feedbackVoltage;
         boolean bottomLimit = false;
     }
 
@@ -22,6 +26,35 @@ public interface ElevatorIO {
 
     public void setPosition(double encoderPosition);
 
+    /**
+     * Selects the gain slot used by position control, starting with the next position request.
+     */
+    public default void setGainSlot(int slot) {}
+
+    /**
+     * Overrides the configured Motion Magic Expo profile gains, starting with the next position request.
+     */
+    public default void setExpoProfile(double kV, double kA) {}
+
+    /**
+     * Replaces the feedforward gains in a gain slot, keeping its feedback gains.
+     */
+    public default void applyFeedforward(int slot, double kS, double kG, double kV, double kA) {}
+
+    /**
+     * Returns the feedforward gains {kS, kG, kV, kA} the given slot was configured with.
+     */
+    public default double[] getConfiguredFeedforward(int slot) {
+        return new double[4];
+    }
+
+    /**
+     * Returns how many position units are in a meter of travel.
+     */
+    public default double getUnitsPerMeter() {
+        return 1;
+    }
+
     public void stopMotor();
 
     public void zero();
@@ -4,7 +4,9 @@ import static edu.wpi.first.units.Units.Meters;
 import static frc.robot.util.StatusSignals.trackSignal;
 import java.util.List;
 import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.SlotConfigs;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.controls.DynamicMotionMagicExpoVoltage;
 import com.ctre.phoenix6.controls.Follower;
 import com.ctre.phoenix6.controls.MotionMagicExpoVoltage;
 import com.ctre.phoenix6.controls.MotionMagicVoltage;
@@ -15,10 +17,14 @@ import com.ctre.phoenix6.signals.NeutralModeValue;
 import com.ctre.phoenix6.sim.TalonFXSimState;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularAcceleration;
 import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.simulation.ElevatorSim;
 import frc.robot.Constants;
 import frc.robot.Robot;
+import frc.robot.util.StatusSignals.Priority;
+import frc.robot.util.StatusSignals;
 
 public class ElevatorIOTalonFX implements ElevatorIO {
 
@@ -29,6 +35,7 @@ public class ElevatorIOTalonFX implements ElevatorIO {
     final List<TalonFX> motors;
     final MotionMagicVoltage motionMagicControl;
     final MotionMagicExpoVoltage motionMagicExpoControl;
+    final DynamicMotionMagicExpoVoltage dynamicExpoControl;
     final VoltageOut voltageControl;
     final Follower followerControl;
 
@@ -37,6 +44,14 @@ public class ElevatorIOTalonFX implements ElevatorIO {
     final StatusSignal<AngularVelocity> velocitySignal;
     final StatusSignal<Double> targetSignal;
     final StatusSignal<Double> dutyCycleSignal;
+    final StatusSignal<Voltage> voltageSignal;
+    final StatusSignal<AngularAcceleration> accelerationSignal;
+
+    // Gains each slot was last configured with
+    final SlotConfigs[] slotConfigs;
+    int gainSlot = 0;
+    boolean useDynamicProfile = false;
+    boolean positionControl = false;
 
     // Simulation-only variables
     TalonFXSimState motorASim, motorBSim;
@@ -73,21 +88,37 @@ public class ElevatorIOTalonFX implements ElevatorIO {
             config.MotionMagic.MotionMagicExpo_kA = 1.4;
         }
         config.Slot0.GravityType = GravityTypeValue.Elevator_Static;
+        // Slot 1 is used while carrying algae, and starts with the same gains as slot 0
+        config.Slot1.kP = config.Slot0.kP;
+        config.Slot1.kI = config.Slot0.kI;
+        config.Slot1.kD = config.Slot0.kD;
+        config.Slot1.kS = config.Slot0.kS;
+        config.Slot1.kG = config.Slot0.kG;
+        config.Slot1.kV = config.Slot0.kV;
+        config.Slot1.kA = config.Slot0.kA;
+        config.Slot1.GravityType = GravityTypeValue.Elevator_Static;
+        slotConfigs = new SlotConfigs[] { SlotConfigs.from(config.Slot0), SlotConfigs.from(config.Slot1) };
         config.MotionMagic.MotionMagicCruiseVelocity = 0; // Unlimited cruise velocity
         config.MotionMagic.MotionMagicJerk = 0;
         motors.forEach(motor -> motor.getConfigurator().apply(config));
 
         motionMagicControl = new MotionMagicVoltage(0);
         motionMagicExpoControl = new MotionMagicExpoVoltage(0);
+        dynamicExpoControl = new DynamicMotionMagicExpoVoltage(0, config.MotionMagic.MotionMagicExpo_kV,
+                                                               config.MotionMagic.MotionMagicExpo_kA);
         voltageControl = new VoltageOut(0);
         followerControl = new Follower(Constants.ELEVATOR_REAR, false);
 
         motorB.setControl(followerControl);
 
-        positionSignal = trackSignal(motorA.getPosition());
-        velocitySignal = trackSignal(motorA.getVelocity());
-        targetSignal = trackSignal(motorA.getClosedLoopReference());
-        dutyCycleSignal = trackSignal(motorA.getDutyCycle());
+        positionSignal = trackSignal(motorA, Priority.CRITICAL, motorA.getPosition());
+        velocitySignal = trackSignal(motorA, Priority.CRITICAL, motorA.getVelocity());
+        targetSignal = trackSignal(motorA, Priority.NORMAL, motorA.getClosedLoopReference());
+        dutyCycleSignal = trackSignal(motorA, Priority.NORMAL, motorA.getDutyCycle());
+        voltageSignal = trackSignal(motorA, Priority.NORMAL, motorA.getMotorVoltage());
+        accelerationSignal = trackSignal(motorA, Priority.NORMAL, motorA.getAcceleration());
+        StatusSignals.keepFollowerSignals(motorA, Priority.CRITICAL);
+        StatusSignals.registerDevices(motorB);
 
         // Everything past this point is just for simulation setup
         if (Robot.isReal()) return;
@@ -117,11 +148,52 @@ public class ElevatorIOTalonFX implements ElevatorIO {
     @Override
     public void setVoltage(double volts) {
         motorA.setControl(voltageControl.withOutput(volts));
+        positionControl = false;
     }
 
     @Override
     public void setPosition(double encoderPosition) {
-        motorA.setControl(motionMagicExpoControl.withPosition(encoderPosition));
+        // The profile and gain slot are sent in the same request, so they always switch together
+        if (useDynamicProfile) {
+            motorA.setControl(dynamicExpoControl.withPosition(encoderPosition).withSlot(gainSlot));
+        } else {
+            motorA.setControl(motionMagicExpoControl.withPosition(encoderPosition).withSlot(gainSlot));
+        }
+        positionControl = true;
+    }
+
+    @Override
+    public void setExpoProfile(double kV, double kA) {
+        dynamicExpoControl.withKV(kV).withKA(kA);
+        useDynamicProfile = true;
+    }
+
+    @Override
+    public void setGainSlot(int slot) {
+        gainSlot = slot;
+    }
+
+    @Override
+    public void applyFeedforward(int slot, double kS, double kG, double kV, double kA) {
+        SlotConfigs gains = slotConfigs[slot];
+        gains.kS = kS;
+        gains.kG = kG;
+        gains.kV = kV;
+        gains.kA = kA;
+        // Don't wait for the response, since this can happen while enabled
+        motorA.getConfigurator().apply(gains, 0);
+    }
+
+    @Override
+    public double[] getConfiguredFeedforward(int slot) {
+        SlotConfigs gains = slotConfigs[slot];
+        return new double[] { gains.kS, gains.kG, gains.kV, gains.kA };
+    }
+
+    @Override
+    public double getUnitsPerMeter() {
+        // In simulation the mechanism is measured in drum rotations, not meters
+        return Robot.isReal() ? 1 : metersToMotorRotations / elevatorGearing;
     }
 
     @Override
@@ -130,6 +202,10 @@ public class ElevatorIOTalonFX implements ElevatorIO {
         inputs.velocity = velocitySignal.getValueAsDouble();
         inputs.target = targetSignal.getValueAsDouble();
         inputs.dutyCycle = dutyCycleSignal.getValueAsDouble();
+        inputs.voltage = voltageSignal.getValueAsDouble();
+        inputs.acceleration = accelerationSignal.getValueAsDouble();
+        // Both slots only use kP for feedback
+        inputs.feedbackVoltage = positionControl ? slotConfigs[gainSlot].kP * (inputs.target - inputs.position) : 0;
 
         inputs.bottomLimit = false;
     }
@@ -149,6 +225,7 @@ public class ElevatorIOTalonFX implements ElevatorIO {
     @Override
     public void stopMotor() {
         motorA.stopMotor();
+        positionControl = false;
     }
 
     @Override
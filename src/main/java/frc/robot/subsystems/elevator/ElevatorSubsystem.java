@@ -6,23 +6,30 @@ package frc.robot.subsystems.elevator;
 
 import static edu.wpi.first.units.Units.*;
 import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import com.ctre.phoenix6.SignalLogger;
 import edu.wpi.first.epilogue.Logged;
 import edu.wpi.first.epilogue.NotLogged;
 import edu.wpi.first.epilogue.Logged.Importance;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.units.measure.Distance;
+import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.elevator.ElevatorIO.ElevatorIOInputs;
+import frc.robot.util.FeedforwardEstimator;
+import frc.robot.util.ProfileTiming;
+import frc.robot.util.RobotLoad;
 import frc.robot.util.simulation.SimVisuals;
 
 @Logged
-public class ElevatorSubsystem extends SubsystemBase {
+public class ElevatorSubsystem extends ProfiledSubsystemBase {
+
     public static final boolean LIVE_TUNING_ENABLED = false;
     // Distance presets, with 0 being the bottom of the elevator
     public static final Distance L1 = Meters.of(0.136).plus(Inches.of(5 - 2));
@@ -46,6 +53,47 @@ public class ElevatorSubsystem extends SubsystemBase {
     private static final double STOW_INTERMEDIATE = Inches.of(0.25).in(Meters);
     private static final boolean SOFT_STOW_ENABLED = true;
 
+    /**
+     * If true, identified feedforward gains are applied to the current load's gain slot at the end of each move,
+     * once the fit has converged. Either way, they can be applied from the dashboard.
+     */
+    public static final boolean AUTO_APPLY_IDENTIFIED_GAINS = false;
+    // Gain slots for each load. Coral is light enough to share the empty slot.
+    private static final int EMPTY_SLOT = 0;
+    private static final int ALGAE_SLOT = 1;
+    // Identified gains are only applied if one differs from the configured gain by at least this fraction
+    private static final double MIN_GAIN_CHANGE = 0.05;
+
+    /**
+     * A Motion Magic Expo profile, along with a trapezoid profile approximating it for estimating travel times.
+     */
+    public static class ExpoProfile {
+        public final double kV;
+        public final double kA;
+        public final TrapezoidProfile.Constraints approximateConstraints;
+
+        ExpoProfile(double kV, double kA) {
+            this.kV = kV;
+            this.kA = kA;
+            this.approximateConstraints = new TrapezoidProfile.Constraints(12 / kV, 12 / kA);
+        }
+    }
+
+    /**
+     * If true, the Motion Magic Expo profile is picked by what the robot is carrying (this needs a Pro license).
+     * Otherwise, every load uses the configured profile, which matches the algae profile.
+     */
+    public static final boolean LOAD_AWARE_PROFILES = true;
+    // The configured profile, kept for algae since it's the heaviest load
+    public static final ExpoProfile ALGAE_PROFILE = new ExpoProfile(2, 1.3);
+    // About 45% more acceleration when empty or carrying coral
+    public static final ExpoProfile LIGHT_PROFILE = new ExpoProfile(2, 0.9);
+
+    /**
+     * The most conservative profile, for planning that doesn't know what the robot will be carrying.
+     */
+    public static final TrapezoidProfile.Constraints APPROXIMATE_CONSTRAINTS = ALGAE_PROFILE.approximateConstraints;
+
     private ElevatorIO io;
     private ElevatorIOInputs inputs;
 
@@ -54,6 +102,17 @@ public class ElevatorSubsystem extends SubsystemBase {
     private double adjustedTargetPosition = ZERO.in(Meters);
     private boolean hasHomed = false;
 
+    private final FeedforwardEstimator emptyFeedforward;
+    private final FeedforwardEstimator algaeFeedforward;
+    @NotLogged
+    private Supplier<RobotLoad> loadSupplier = () -> RobotLoad.EMPTY;
+    private RobotLoad load = null;
+    private int gainSlot = EMPTY_SLOT;
+    @NotLogged
+    private ExpoProfile profile = ALGAE_PROFILE;
+    @NotLogged
+    private boolean wasInPosition = false;
+
     private Trigger atLowerLimitDebounced = new Trigger(this::isAtLowerLimit).debounce(0.3);
 
     @NotLogged
@@ -68,11 +127,23 @@ public class ElevatorSubsystem extends SubsystemBase {
         io = new ElevatorIOTalonFX();
         io.zero();
 
+        emptyFeedforward = createEstimator(EMPTY_SLOT);
+        algaeFeedforward = createEstimator(ALGAE_SLOT);
+        SmartDashboard.putData("Elevator/Apply Identified Gains", applyIdentifiedGains());
+
         initTuningFields();
     }
 
+    private FeedforwardEstimator createEstimator(int slot) {
+        double[] gains = io.getConfiguredFeedforward(slot);
+        // Ignore samples below 5 cm/s, near saturation, or with more than 1 V of feedback, and trust the fit after a
+        // second of motion each way
+        double minVelocity = 0.05 * io.getUnitsPerMeter();
+        return new FeedforwardEstimator(gains[0], gains[1], gains[2], gains[3], minVelocity, 11, 1, 50);
+    }
+
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.update(inputs);
         SimVisuals.setElevatorHeight(inputs.position);
 
@@ -83,6 +154,7 @@ public class ElevatorSubsystem extends SubsystemBase {
         }
 
         softStowLogic();
+        updateFeedforward();
 
         if (RobotContainer.POSING_MODE) {
             int level = (int) SmartDashboard.getNumber("Posing/Level", 4);
@@ -119,6 +191,24 @@ public class ElevatorSubsystem extends SubsystemBase {
                 );
     }
 
+    /**
+     * Sets what tells the elevator what the robot is carrying, which selects the gain slot and profile for moves. It's
+     * read when a position is requested, which is after every subsystem has updated its inputs for the loop.
+     */
+    public void setLoadSupplier(Supplier<RobotLoad> loadSupplier) {
+        this.loadSupplier = loadSupplier;
+    }
+
+    /**
+     * Applies the identified feedforward gains of each load whose fit has converged.
+     */
+    public Command applyIdentifiedGains() {
+        return Commands.runOnce(() -> {
+            applyIdentifiedGains(EMPTY_SLOT);
+            applyIdentifiedGains(ALGAE_SLOT);
+        }).ignoringDisable(true).withName("Apply Identified Gains");
+    }
+
     public Command stow() {
         return setPosition(STOW).withName("stow");
     }
@@ -189,6 +279,13 @@ public class ElevatorSubsystem extends SubsystemBase {
         return isElevatorInPosition() && isTargetingReefAlgaePosition();
     }
 
+    /**
+     * Estimates how long it will take the elevator to move from its current position to the given position.
+     */
+    public double estimateTravelTime(Distance position) {
+        return ProfileTiming.profileTime(Math.abs(position.in(Meters) - inputs.position), profile.approximateConstraints);
+    }
+
     public double getTargetErrorMeters() {
         return adjustedTargetPosition - inputs.position;
     }
@@ -215,7 +312,67 @@ public class ElevatorSubsystem extends SubsystemBase {
         return true;
     }
 
+    /**
+     * Picks the gain slot and profile for what the robot is carrying, right before a position request.
+     */
+    private void updateLoad() {
+        RobotLoad newLoad = loadSupplier.get();
+        if (newLoad == load) return;
+
+        load = newLoad;
+        gainSlot = load == RobotLoad.ALGAE ? ALGAE_SLOT : EMPTY_SLOT;
+        io.setGainSlot(gainSlot);
+        if (LOAD_AWARE_PROFILES) {
+            profile = load == RobotLoad.ALGAE ? ALGAE_PROFILE : LIGHT_PROFILE;
+            io.setExpoProfile(profile.kV, profile.kA);
+        }
+    }
+
+    /**
+     * Feeds this loop's sample to the current load's estimator.
+     */
+    private void updateFeedforward() {
+        getEstimator(gainSlot).addSample(inputs.voltage, inputs.feedbackVoltage, inputs.velocity, inputs.acceleration);
+
+        boolean inPosition = isElevatorInPosition();
+        if (AUTO_APPLY_IDENTIFIED_GAINS && inPosition && !wasInPosition) {
+            applyIdentifiedGains(gainSlot);
+        }
+        wasInPosition = inPosition;
+    }
+
+    /**
+     * Applies a load's identified feedforward gains, if its fit has converged, the gains are physically sensible,
+     * and they differ enough from the configured gains to be worth it.
+     * @return True if the gains were applied
+     */
+    private boolean applyIdentifiedGains(int slot) {
+        FeedforwardEstimator estimator = getEstimator(slot);
+        if (!estimator.isConverged()) return false;
+
+        double[] identified = { estimator.getKS(), estimator.getKG(), estimator.getKV(), estimator.getKA() };
+        if (identified[0] < 0 || identified[2] <= 0 || identified[3] < 0) return false;
+
+        double[] configured = io.getConfiguredFeedforward(slot);
+        boolean changed = false;
+        for (int i = 0; i < identified.length; i++) {
+            double scale = Math.max(Math.abs(configured[i]), 0.01);
+            if (Math.abs(identified[i] - configured[i]) / scale >= MIN_GAIN_CHANGE) changed = true;
+        }
+        if (!changed) return false;
+
+        io.applyFeedforward(slot, identified[0], identified[1], identified[2], identified[3]);
+        DataLogManager.log(String.format("Elevator slot %d feedforward: kS=%.3f kG=%.3f kV=%.3f kA=%.3f",
+                                         slot, identified[0], identified[1], identified[2], identified[3]));
+        return true;
+    }
+
+    private FeedforwardEstimator getEstimator(int slot) {
+        return slot == ALGAE_SLOT ? algaeFeedforward : emptyFeedforward;
+    }
+
     public void setPositionDirect(Distance position) {
+        updateLoad();
         targetPosition = position;
         adjustedTargetPosition = position.in(Meters) + getTuningAdjustment(position);
         if (!softStowLogic()) {
@@ -30,6 +30,7 @@ import frc.robot.Robot;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.elevatorArmPivot.ElevatorArmPivotSubsystem;
 import frc.robot.util.simulation.SimLogic;
+import frc.robot.util.StatusSignals.Priority;
 
 public class ElevatorArmIOTalonFX implements ElevatorArmIO {
 
@@ -80,10 +81,10 @@ public class ElevatorArmIOTalonFX implements ElevatorArmIO {
         candiA.getConfigurator().apply(candiConfig);
         candiB.getConfigurator().apply(candiConfig);
 
-        frontSensorSignal = trackSignal(candiA.getS2Closed());
-        middleSensorSignal = trackSignal(candiA.getS1Closed());
-        backSensorSignal = trackSignal(candiB.getS1Closed());
-        velocitySignal = trackSignal(rollerMotor.getVelocity());
+        frontSensorSignal = trackSignal(candiA, Priority.NORMAL, candiA.getS2Closed());
+        middleSensorSignal = trackSignal(candiA, Priority.NORMAL, candiA.getS1Closed());
+        backSensorSignal = trackSignal(candiB, Priority.NORMAL, candiB.getS1Closed());
+        velocitySignal = trackSignal(rollerMotor, Priority.NORMAL, rollerMotor.getVelocity());
 
         candiADisconnectedAlert = new Alert("ElevatorArm CANDi A disconnected (#" + Constants.ELEVATOR_ARM_CANDI_A + ")", AlertType.kError);
         candiBDisconnectedAlert = new Alert("ElevatorArm CANDi B disconnected (#" + Constants.ELEVATOR_ARM_CANDI_B + ")", AlertType.kError);
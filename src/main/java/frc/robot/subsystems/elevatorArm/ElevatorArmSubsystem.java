@@ -3,12 +3,13 @@ package frc.robot.subsystems.elevatorArm;
 import edu.wpi.first.epilogue.Logged;
 import edu.wpi.first.epilogue.NotLogged;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.subsystems.elevatorArm.ElevatorArmIO.ElevatorArmIOInputs;
+import frc.robot.util.CachedCondition;
 
 @Logged
-public class ElevatorArmSubsystem extends SubsystemBase{
+public class ElevatorArmSubsystem extends ProfiledSubsystemBase{
 
     final ElevatorArmIO io;
     final ElevatorArmIOInputs inputs;
@@ -28,14 +29,14 @@ public class ElevatorArmSubsystem extends SubsystemBase{
         inputs = new ElevatorArmIOInputs();
         io = new ElevatorArmIOTalonFX();
 
-        hasCoral = new Trigger(this::hasCoralBool);
-        hasPartialCoral = new Trigger(this::hasPartialCoralBool);
+        hasCoral = CachedCondition.trigger("Elevator Arm/Has Coral", this::hasCoralBool);
+        hasPartialCoral = CachedCondition.trigger("Elevator Arm/Has Partial Coral", this::hasPartialCoralBool);
         hasNoCoral = hasPartialCoral.negate();
-        hasEnteringCoral = new Trigger(this::hasEnteringCoralBool);
+        hasEnteringCoral = CachedCondition.trigger("Elevator Arm/Has Entering Coral", this::hasEnteringCoralBool);
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.update(inputs);
     }
 
@@ -24,6 +24,8 @@ import frc.robot.subsystems.IntakeAlgae.IntakeAlgaeSubsystem;
 import frc.robot.subsystems.elevator.ElevatorSubsystem;
 import frc.robot.subsystems.elevatorArmPivot.ElevatorArmPivotSubsystem;
 import frc.robot.util.simulation.SimLogic;
+import frc.robot.util.StatusSignals.Priority;
+import frc.robot.util.StatusSignals;
 
 public class ElevatorArmAlgaeIOTalonFX implements ElevatorArmAlgaeIO {
 
@@ -59,8 +61,9 @@ public class ElevatorArmAlgaeIOTalonFX implements ElevatorArmAlgaeIO {
         canrange = new CANrange(Constants.ALGAE_ARM_CANRANGE, Constants.CANIVORE);
         canrange.getConfigurator().apply(rangeConfig);
 
-        distanceSignal = trackSignal(canrange.getDistance());
-        signalStengthSignal = trackSignal(canrange.getSignalStrength());
+        distanceSignal = trackSignal(canrange, Priority.NORMAL, canrange.getDistance());
+        signalStengthSignal = trackSignal(canrange, Priority.DEBUG, canrange.getSignalStrength());
+        StatusSignals.registerDevices(motor);
         
         if (Robot.isReal()) return;
 
@@ -151,7 +154,7 @@ public class ElevatorArmAlgaeIOTalonFX implements ElevatorArmAlgaeIO {
             }
         }
 
-        double noise = Math.random() * 0.01 - 0.005;
+        double noise = SimLogic.random.nextDouble() * 0.01 - 0.005;
         canrangeSim.setDistance(distance + noise);
     }
 }
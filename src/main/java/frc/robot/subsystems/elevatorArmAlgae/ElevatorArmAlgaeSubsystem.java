@@ -5,12 +5,12 @@ import edu.wpi.first.math.filter.LinearFilter;
 import edu.wpi.first.math.filter.Debouncer.DebounceType;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.subsystems.elevatorArmAlgae.ElevatorArmAlgaeIO.ElevatorArmAlgaeInputs;
 
 @Logged
-public class ElevatorArmAlgaeSubsystem extends SubsystemBase {
+public class ElevatorArmAlgaeSubsystem extends ProfiledSubsystemBase {
 
     protected static final double HAS_ALGAE_THRESHOLD = 0.3;
     protected static final double HAS_ALGAE_CLOSE_THRESHOLD = 0.1;
@@ -35,7 +35,7 @@ public class ElevatorArmAlgaeSubsystem extends SubsystemBase {
     }
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.update(inputs);
         distanceFiltered = distanceFilter.calculate(inputs.distance);
     }
@@ -8,6 +8,8 @@ public interface ElevatorArmPivotIO {
     @Logged
     public class ElevatorArmPivotIOInputs {
         double position;
+        // When the position was measured, in seconds
+        double positionTimestamp;
         double voltage;
         double target;
         double absolutePosition;
@@ -16,6 +18,11 @@ public interface ElevatorArmPivotIO {
     
     public void setPosition(double encoderPosition);
 
+    /**
+     * Overrides the configured Motion Magic cruise velocity and acceleration, starting with the next position request.
+     */
+    public default void setProfile(double cruiseVelocity, double acceleration) {}
+
     public default void simulationPeriodic() {}
 
     public void update(ElevatorArmPivotIOInputs inputs);
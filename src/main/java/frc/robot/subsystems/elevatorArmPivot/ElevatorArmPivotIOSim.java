@@ -1,6 +1,7 @@
 package frc.robot.subsystems.elevatorArmPivot;
 
 import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.wpilibj.Timer;
 
 public class ElevatorArmPivotIOSim implements ElevatorArmPivotIO{
 
@@ -33,6 +34,7 @@ public class ElevatorArmPivotIOSim implements ElevatorArmPivotIO{
         }
 
         inputs.position = position;
+        inputs.positionTimestamp = Timer.getFPGATimestamp();
         inputs.target = target;
         inputs.voltage = speed * 12;
     }
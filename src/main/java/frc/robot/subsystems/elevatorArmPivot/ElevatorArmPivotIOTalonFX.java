@@ -5,6 +5,7 @@ import static frc.robot.util.StatusSignals.trackSignal;
 import com.ctre.phoenix6.StatusCode;
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.controls.DynamicMotionMagicVoltage;
 import com.ctre.phoenix6.controls.MotionMagicVoltage;
 import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.CANcoder;
@@ -23,6 +24,7 @@ import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
 import frc.robot.Constants;
 import frc.robot.Robot;
+import frc.robot.util.StatusSignals.Priority;
 
 public class ElevatorArmPivotIOTalonFX implements ElevatorArmPivotIO {
     final double PIVOT_GEARING = 128;
@@ -38,6 +40,8 @@ public class ElevatorArmPivotIOTalonFX implements ElevatorArmPivotIO {
     final TalonFX armPivotMotor;
     final AnalogPotentiometer potentiometer;
     final MotionMagicVoltage motionMagic;
+    final DynamicMotionMagicVoltage dynamicMotionMagic;
+    boolean useDynamicProfile = false;
     final VoltageOut voltageControl;
 
     NeutralModeValue neutralMode = null;
@@ -73,8 +77,8 @@ public class ElevatorArmPivotIOTalonFX implements ElevatorArmPivotIO {
             config.Slot0.kV = 17;
             config.Slot0.kA = 0;
         }
-        config.MotionMagic.MotionMagicCruiseVelocity = 2.6;
-        config.MotionMagic.MotionMagicAcceleration = 5;
+        config.MotionMagic.MotionMagicCruiseVelocity = ElevatorArmPivotSubsystem.PROFILE_CONSTRAINTS.maxVelocity;
+        config.MotionMagic.MotionMagicAcceleration = ElevatorArmPivotSubsystem.PROFILE_CONSTRAINTS.maxAcceleration;
         config.MotionMagic.MotionMagicJerk = 0;
         config.Slot0.GravityType = GravityTypeValue.Arm_Cosine;
 
@@ -88,6 +92,8 @@ public class ElevatorArmPivotIOTalonFX implements ElevatorArmPivotIO {
         setNeutralMode(NeutralModeValue.Coast);
 
         motionMagic = new MotionMagicVoltage(0);
+        dynamicMotionMagic = new DynamicMotionMagicVoltage(0, config.MotionMagic.MotionMagicCruiseVelocity,
+                                                           config.MotionMagic.MotionMagicAcceleration, 0);
         voltageControl = new VoltageOut(0);
 
         potentiometer = new AnalogPotentiometer(
@@ -96,9 +102,9 @@ public class ElevatorArmPivotIOTalonFX implements ElevatorArmPivotIO {
             POTENTIOMETER_OFFSET.in(Rotations)
         );
 
-        positionSignal = trackSignal(armPivotMotor.getPosition());
-        voltageSignal = trackSignal(armPivotMotor.getMotorVoltage());
-        targetSignal = trackSignal(armPivotMotor.getClosedLoopReference());
+        positionSignal = trackSignal(armPivotMotor, Priority.CRITICAL, armPivotMotor.getPosition());
+        voltageSignal = trackSignal(armPivotMotor, Priority.DEBUG, armPivotMotor.getMotorVoltage());
+        targetSignal = trackSignal(armPivotMotor, Priority.NORMAL, armPivotMotor.getClosedLoopReference());
 
         // Everything below this line is for simulation only
         if (Robot.isReal()) return;
@@ -122,6 +128,7 @@ public class ElevatorArmPivotIOTalonFX implements ElevatorArmPivotIO {
     @Override
     public void update(ElevatorArmPivotIOInputs inputs) {
         inputs.position = positionSignal.getValueAsDouble();
+        inputs.positionTimestamp = positionSignal.getTimestamp().getTime();
         inputs.voltage = voltageSignal.getValueAsDouble();
         inputs.target = targetSignal.getValueAsDouble();
 
@@ -154,7 +161,17 @@ public class ElevatorArmPivotIOTalonFX implements ElevatorArmPivotIO {
 
     @Override
     public void setPosition(double encoderPosition) {
-        armPivotMotor.setControl(motionMagic.withPosition(encoderPosition));
+        if (useDynamicProfile) {
+            armPivotMotor.setControl(dynamicMotionMagic.withPosition(encoderPosition));
+        } else {
+            armPivotMotor.setControl(motionMagic.withPosition(encoderPosition));
+        }
+    }
+
+    @Override
+    public void setProfile(double cruiseVelocity, double acceleration) {
+        dynamicMotionMagic.withVelocity(cruiseVelocity).withAcceleration(acceleration);
+        useDynamicProfile = true;
     }
 
     @Override
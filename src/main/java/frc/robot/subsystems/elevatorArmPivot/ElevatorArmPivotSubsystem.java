@@ -1,9 +1,10 @@
 package frc.robot.subsystems.elevatorArmPivot;
 
 import static edu.wpi.first.units.Units.*;
+import java.util.function.Supplier;
 import edu.wpi.first.epilogue.Logged;
 import edu.wpi.first.epilogue.NotLogged;
-import edu.wpi.first.math.filter.MedianFilter;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.Distance;
@@ -13,16 +14,19 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Robot;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.elevator.ElevatorSubsystem;
 import frc.robot.subsystems.elevatorArmPivot.ElevatorArmPivotIO.ElevatorArmPivotIOInputs;
+import frc.robot.util.EncoderFusion;
+import frc.robot.util.ProfileTiming;
+import frc.robot.util.RobotLoad;
 import frc.robot.util.simulation.SimVisuals;
 
 @Logged
-public class ElevatorArmPivotSubsystem extends SubsystemBase {
+public class ElevatorArmPivotSubsystem extends ProfiledSubsystemBase {
 
     private final ElevatorArmPivotIO io;
     private final ElevatorArmPivotIOInputs inputs;
@@ -51,6 +55,18 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
 
     private static final double IN_POSITION_TOLERANCE = Units.degreesToRotations(0.6);
 
+    /**
+     * If true, the Motion Magic profile is picked by what the robot is carrying (this needs a Pro license).
+     * Otherwise, every load uses PROFILE_CONSTRAINTS.
+     */
+    public static final boolean LOAD_AWARE_PROFILES = true;
+
+    // Motion Magic cruise velocity and acceleration, in rotations per second (squared).
+    // This is the configured profile, and is kept for algae since it's the heaviest load.
+    public static final TrapezoidProfile.Constraints PROFILE_CONSTRAINTS = new TrapezoidProfile.Constraints(2.6, 5);
+    // 50% more acceleration when empty or carrying coral
+    public static final TrapezoidProfile.Constraints LIGHT_PROFILE_CONSTRAINTS = new TrapezoidProfile.Constraints(2.6, 7.5);
+
     private final Alert notHomedAlert = new Alert("Arm Pivot is not homed!", AlertType.kWarning);
 
     private Double targetPositionMax = null;
@@ -58,16 +74,27 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
 
     private double targetPosition = 0;
     private boolean homed = false;
+
+    @NotLogged
+    private Supplier<RobotLoad> loadSupplier = () -> RobotLoad.EMPTY;
+    private RobotLoad load = null;
+    @NotLogged
+    private TrapezoidProfile.Constraints profileConstraints = PROFILE_CONSTRAINTS;
     private boolean absoluteSyncAllowed = true;
 
-    private double absoluteScalar = Robot.isReal() ? 1.03612754169595125 : 4;
-    private double absoluteOffset = Robot.isReal() ? -0.641 : 30 * 4;
+    // Fuses the potentiometer with the motor encoder. The starting scale and offset came from calibration, and the
+    // scale is refined as the arm moves.
+    private final EncoderFusion absoluteFusion = new EncoderFusion(
+        Robot.isReal() ? 1.03612754169595125 : 4,
+        Robot.isReal() ? -0.641 : 30 * 4,
+        Units.degreesToRotations(0.25),
+        Units.degreesToRotations(3),
+        Units.degreesToRotations(1),
+        Units.degreesToRotations(10)
+    );
+    private final Alert slipAlert = new Alert("Arm Pivot encoder slipped, resynced to potentiometer", AlertType.kWarning);
 
     private double lastPositionSyncTime = 0;
-    private double absoluteRatio = 0;
-    private double absoluteRatioFiltered = 0;
-    private double absoluteRatioSamples = 0;
-    private final MedianFilter absoluteRatioFilter = new MedianFilter(15);
 
     @NotLogged
     public Trigger elevatorArmInPosition = new Trigger(() -> isInPosition());
@@ -92,16 +119,13 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
     boolean absPosValid = false;
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         boolean enabled = RobotState.isEnabled();
         io.update(inputs);
         SimVisuals.setElevatorArmPivotDegrees(getDegrees());
 
         notHomedAlert.set(!homed);
 
-        absoluteRatio = inputs.position / getAbsolutePosition();
-        absoluteRatioFiltered = absoluteRatioFilter.calculate(absoluteRatio);
-
         double currentTime = Timer.getFPGATimestamp();
         boolean firstDisable = !enabled && !wasEverEnabled;
         boolean disableSync = firstDisable && !RobotContainer.POSING_MODE && currentTime - lastPositionSyncTime > 0.5;
@@ -118,6 +142,15 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
             lastPositionSyncTime = currentTime;
         }
 
+        // Keep the motor encoder anchored to the potentiometer, correcting drift and slip while the arm is still
+        boolean fuse = absoluteSyncAllowed && absPosValid && homed && !RobotContainer.POSING_MODE;
+        double corrected = absoluteFusion.update(inputs.positionTimestamp, inputs.absolutePosition, inputs.position, fuse);
+        if (!Double.isNaN(corrected)) {
+            io.zero(corrected);
+            lastPositionSyncTime = currentTime;
+        }
+        slipAlert.set(absoluteFusion.getSlipCount() > 0);
+
         if (!enabled && !wasEverEnabled) {
             unexpectedStartPositionAlert.set(Math.abs(getAbsolutePosition() - .165) > .005);
         }
@@ -130,6 +163,7 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
         if (!absoluteSyncAllowed) return;
 
         io.zero(getAbsolutePosition());
+        absoluteFusion.sync(inputs.absolutePosition);
         homed = true;
     }
 
@@ -182,9 +216,7 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
             runOnce(() -> {
                 io.zero(0);
                 zeroAbsolute();
-                absoluteRatioFiltered = 0;
-                absoluteRatioSamples = 0;
-                absoluteRatioFilter.reset();
+                absoluteFusion.sync(inputs.absolutePosition);
             })
         ).ignoringDisable(true);
     }
@@ -202,23 +234,54 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
 
     public Command matchElevatorPreset() {
         ElevatorSubsystem elevator = RobotContainer.instance.elevator;
-        return run(() -> {
-            Distance elevatorTarget = elevator.getTargetPosition();
-
-            if (elevatorTarget == ElevatorSubsystem.L4_ADVANCE) {
-                setArmPositionDirect(L4_ADVANCE);
-            } else if (elevatorTarget == ElevatorSubsystem.L4) {
-                setArmPositionDirect(L4_SCORE);
-            } else if (elevatorTarget == ElevatorSubsystem.L3) {
-                setArmPositionDirect(L3_SCORE);
-            } else if (elevatorTarget == ElevatorSubsystem.L2) {
-                setArmPositionDirect(L2_SCORE);
-            } else if (elevatorTarget == ElevatorSubsystem.L1) {
-                setArmPositionDirect(L1_SCORE);
-            } else {
-                setArmPositionDirect(receiving);
-            }
-        });
+        return run(() -> setArmPositionDirect(presetPosition(elevator.getTargetPosition())));
+    }
+
+    /**
+     * Returns the arm position that goes with an elevator preset.
+     */
+    public static double presetPosition(Distance elevatorTarget) {
+        if (elevatorTarget == ElevatorSubsystem.L4_ADVANCE) {
+            return L4_ADVANCE;
+        } else if (elevatorTarget == ElevatorSubsystem.L4) {
+            return L4_SCORE;
+        } else if (elevatorTarget == ElevatorSubsystem.L3) {
+            return L3_SCORE;
+        } else if (elevatorTarget == ElevatorSubsystem.L2) {
+            return L2_SCORE;
+        } else if (elevatorTarget == ElevatorSubsystem.L1) {
+            return L1_SCORE;
+        }
+        return receiving;
+    }
+
+    /**
+     * Estimates how long it will take the arm to move from its current position to the given position.
+     */
+    public double estimateTravelTime(double position) {
+        return ProfileTiming.profileTime(Math.abs(position - inputs.position), profileConstraints);
+    }
+
+    /**
+     * Sets what tells the arm what the robot is carrying, which selects the profile for moves. It's read when a
+     * position is requested, which is after every subsystem has updated its inputs for the loop.
+     */
+    public void setLoadSupplier(Supplier<RobotLoad> loadSupplier) {
+        this.loadSupplier = loadSupplier;
+    }
+
+    /**
+     * Picks the profile for what the robot is carrying, right before a position request.
+     */
+    private void updateLoad() {
+        RobotLoad newLoad = loadSupplier.get();
+        if (newLoad == load) return;
+
+        load = newLoad;
+        if (LOAD_AWARE_PROFILES) {
+            profileConstraints = load == RobotLoad.ALGAE ? PROFILE_CONSTRAINTS : LIGHT_PROFILE_CONSTRAINTS;
+            io.setProfile(profileConstraints.maxVelocity, profileConstraints.maxAcceleration);
+        }
     }
 
     public Command setPosition(double position) {
@@ -268,6 +331,7 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
     }
 
     public void setArmPositionDirect(double position) {
+        updateLoad();
         targetPosition = position;
         if (targetPositionMin != null) position = Math.max(position, targetPositionMin);
         if (targetPositionMax != null) position = Math.min(position, targetPositionMax);
@@ -309,7 +373,7 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
     }
 
     public double getAbsolutePosition() {
-        return (inputs.absolutePosition * absoluteScalar) - absoluteOffset;
+        return absoluteFusion.toMechanism(inputs.absolutePosition);
     }
 
     public double getAbsoluteDegrees() {
@@ -317,7 +381,7 @@ public class ElevatorArmPivotSubsystem extends SubsystemBase {
     }
 
     public void zeroAbsolute() {
-        absoluteOffset = (inputs.absolutePosition * absoluteScalar);
+        absoluteFusion.zeroAt(inputs.absolutePosition);
     }
 
     @NotLogged
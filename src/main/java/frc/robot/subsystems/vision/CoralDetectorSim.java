@@ -1,6 +1,7 @@
 package frc.robot.subsystems.vision;
 
-import org.ironmaple.simulation.SimulatedArena;
+import java.util.ArrayList;
+import java.util.List;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -9,6 +10,7 @@ import edu.wpi.first.math.geometry.Translation2d;
 import frc.robot.Robot;
 import frc.robot.RobotContainer;
 import frc.robot.util.LimelightHelpers.RawDetection;
+import frc.robot.util.simulation.GamePieceGrid;
 import frc.robot.util.simulation.SimLogic;
 
 /**
@@ -20,6 +22,7 @@ public class CoralDetectorSim implements CoralDetector {
     private final boolean useFOV;
 
     private double fovDegrees = 82; // Limelight 4 FOV
+    private final List<GamePieceGrid.Entry> visibleCoral = new ArrayList<>();
 
     /**
      * Create a new CoralDetectorSim with the given detection distance.
@@ -58,24 +61,28 @@ public class CoralDetectorSim implements CoralDetector {
      * Selects the closest coral to the robot within its field of view.
      */
     private Pose2d getCoralPoseMapleSim(Pose2d robotPose) {
-        Pose3d[] corals = SimulatedArena.getInstance().getGamePiecesArrayByType("Coral");
+        // The camera faces backwards
+        double heading = robotPose.getRotation().getRadians() + Math.PI;
+        visibleCoral.clear();
+        SimLogic.coralGrid.queryFov(robotPose.getX(), robotPose.getY(), heading, Math.toRadians(fovDegrees) / 2,
+                                    detectionDistance, visibleCoral);
+
         Pose2d bestCoral = null;
         double bestDistance = Double.MAX_VALUE;
-        for (int i = 0; i < corals.length; i++) {
+        for (int i = 0; i < visibleCoral.size(); i++) {
+            Pose3d coral3d = visibleCoral.get(i).getPose();
             // Filter out upright coral
-            if (corals[i].getRotation().getY() > 0.2) continue;
-
-            Pose2d coral = corals[i].toPose2d();
-            if (poseWithinPOV(robotPose, coral)) {
-                double distance = robotPose.getTranslation().getDistance(coral.getTranslation());
-                if (distance < bestDistance) {
-                    if (!CoralDetector.isValid(coral)) {
-                        continue;
-                    }
-
-                    bestCoral = coral;
-                    bestDistance = distance;
+            if (coral3d.getRotation().getY() > 0.2) continue;
+
+            double distance = Math.hypot(coral3d.getX() - robotPose.getX(), coral3d.getY() - robotPose.getY());
+            if (distance < bestDistance) {
+                Pose2d coral = coral3d.toPose2d();
+                if (!CoralDetector.isValid(coral)) {
+                    continue;
                 }
+
+                bestCoral = coral;
+                bestDistance = distance;
             }
         }
 
@@ -85,7 +92,7 @@ public class CoralDetectorSim implements CoralDetector {
     }
 
     private double randomRange(double min, double max) {
-        return Math.random() * (max - min) + min;
+        return SimLogic.random.nextDouble() * (max - min) + min;
     }
 
     // =========== Helper methods to calculate robot POV ===========
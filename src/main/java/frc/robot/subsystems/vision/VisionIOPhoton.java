@@ -1,14 +1,20 @@
 package frc.robot.subsystems.vision;
 
 import com.spamrobotics.vision.SimCamera;
+import com.spamrobotics.vision.SimDetectorCamera;
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
 
 public class VisionIOPhoton implements VisionIO {
     final SimCamera scoringCamera, frontCamera;
+    final SimDetectorCamera intakeCamera;
 
-    public VisionIOPhoton(AprilTagFieldLayout apriltagLayout) {
+    /**
+     * @param simulateDetector Whether to simulate the intake camera's detector, which needs MapleSim game pieces
+     */
+    public VisionIOPhoton(AprilTagFieldLayout apriltagLayout, boolean simulateDetector) {
         scoringCamera = new SimCamera("scoring", VisionSubsystem.ROBOT_TO_SCORING_CAMERA, apriltagLayout);
         frontCamera = new SimCamera("front", VisionSubsystem.ROBOT_TO_FRONT_CAMERA, apriltagLayout);
+        intakeCamera = simulateDetector ? new SimDetectorCamera(VisionSubsystem.ROBOT_TO_INTAKE_CAMERA) : null;
     }
 
     @Override
@@ -20,8 +26,14 @@ public class VisionIOPhoton implements VisionIO {
         inputs.scoringPoseEstimate = scoringCamera.getPoseEstimate();
         if (inputs.scoringPoseEstimate != null) {
             inputs.scoringTimestamp = inputs.scoringPoseEstimate.timestampSeconds;
-            // We're not fully simulating the other camera, but we can use the scoring camera's timestamp
-            inputs.backTimestamp = inputs.scoringTimestamp;
+            if (intakeCamera == null) {
+                // We're not simulating the intake camera, but we can use the scoring camera's timestamp
+                inputs.backTimestamp = inputs.scoringTimestamp;
+            }
+        }
+        if (intakeCamera != null) {
+            inputs.backDetections = intakeCamera.getDetections();
+            inputs.backTimestamp = intakeCamera.getTimestamp();
         }
         inputs.scoringFiducials = scoringCamera.getRawFiducials();
         inputs.frontPoseEstimate = frontCamera.getPoseEstimate();
@@ -31,5 +43,6 @@ public class VisionIOPhoton implements VisionIO {
     public void simulationPeriodic() {
         scoringCamera.update();
         frontCamera.update();
+        if (intakeCamera != null) intakeCamera.update();
     }
 }
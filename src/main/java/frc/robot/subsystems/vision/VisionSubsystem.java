@@ -23,7 +23,6 @@ import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.math.util.Units;
@@ -33,18 +32,20 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ProfiledSubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Field;
 import frc.robot.Robot;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.vision.VisionIO.VisionIOInputs;
 import frc.robot.util.ReefProximity;
+import frc.robot.util.PosePredictor.PredictedPose;
 import frc.robot.util.LimelightHelpers.PoseEstimate;
 import frc.robot.util.LimelightHelpers.RawFiducial;
+import frc.robot.util.CachedCondition;
 
 @Logged
-public class VisionSubsystem extends SubsystemBase {
+public class VisionSubsystem extends ProfiledSubsystemBase {
 
     /**
      * The source of a pose estimate, used to determine the standard deviation of the pose estimate
@@ -112,6 +113,9 @@ public class VisionSubsystem extends SubsystemBase {
     private static final int BLUE_PROCESSOR_TAG = 16;
 
     private static final double BAD_CAMERA_TEMP = 55;
+    // In simulation, run CoralDetectorReal on simulated intake camera detections, instead of using CoralDetectorSim
+    private static final boolean USE_SIM_DETECTOR = true;
+    private static final boolean SIMULATE_DETECTOR = USE_SIM_DETECTOR && RobotContainer.MAPLESIM;
 
     private final VisionIO io;
     private final VisionIOInputs inputs;
@@ -200,7 +204,7 @@ public class VisionSubsystem extends SubsystemBase {
         if (Robot.isReal()) {
             io = new VisionIOLimelight();
         } else {
-            io = new VisionIOPhoton(aprilTagFieldLayout);
+            io = new VisionIOPhoton(aprilTagFieldLayout, SIMULATE_DETECTOR);
         }
 
         allReefTags.addAll(redReefTags);
@@ -247,23 +251,26 @@ public class VisionSubsystem extends SubsystemBase {
 
         reefProximity = new ReefProximity(leftReefHashMap, rightReefHashMap);
         coralDetectorReal = new CoralDetectorReal();
-        coralDetector = Robot.isReal() ? coralDetectorReal : new CoralDetectorSim(4.0, true);
+        coralDetector = Robot.isReal() || SIMULATE_DETECTOR ? coralDetectorReal : new CoralDetectorSim(4.0, true);
 
         double diffMeters = Inches.of(1.5).in(Meters);
-        poseEstimateDiffLow = new Trigger(() -> {
+        poseEstimateDiffLow = CachedCondition.trigger("Vision/Pose Estimate Diff Low", () -> {
             return Math.abs(poseEstimateDiffX) <= diffMeters && 
                    Math.abs(poseEstimateDiffY) <= diffMeters && 
                    Math.abs(poseEstimateDiffTheta) < 5;
         });
-        scoringCameraConnected = new Trigger(() -> inputs.scoringCameraConnected);
+        scoringCameraConnected = CachedCondition.trigger("Vision/Scoring Camera Connected", () -> inputs.scoringCameraConnected);
     }
 
     boolean wasEnabled = false;
 
     Pose2d futureRobotPose;
+    // How far ahead to predict the robot's pose when picking the closest reef pose
+    private static final double REEF_SELECTION_HORIZON = 0.3;
+    private final PredictedPose predictedRobotPose = new PredictedPose();
 
     @Override
-    public void periodic() {
+    protected void profiledPeriodic() {
         io.update(inputs);
 
         scoringCameraDisconnectedAlert.set(!inputs.scoringCameraConnected);
@@ -331,12 +338,12 @@ public class VisionSubsystem extends SubsystemBase {
             backCameraPosition = robotPose3d.transformBy(ROBOT_TO_INTAKE_CAMERA);
         }
 
-        ChassisSpeeds speeds = RobotContainer.instance.drivetrain.getCachedState().Speeds;
-        futureRobotPose = robotPose.plus(new Transform2d(speeds.vxMetersPerSecond * 0.3, speeds.vyMetersPerSecond * 0.3, Rotation2d.kZero));
+        RobotContainer.instance.drivetrain.predictPose(REEF_SELECTION_HORIZON, predictedRobotPose);
+        futureRobotPose = predictedRobotPose.toPose2d();
 
         // Allow targeting opponent's reef tags, which is needed for stealing algae
         // Entry<Integer, Pose2d> closestTagAndPose = reefProximity.closestReefPose(futureRobotPose, Robot.isBlue());
-        Entry<Integer, Pose2d> closestTagAndPose = reefProximity.closestReefPose(futureRobotPose, allReefTags);
+        Entry<Integer, Pose2d> closestTagAndPose = reefProximity.closestReefPose(predictedRobotPose.x, predictedRobotPose.y, allReefTags);
         if (closestTagAndPose == null) {
             closestReefPose = Pose2d.kZero;
             closestReefPoseValid = false;
@@ -346,7 +353,7 @@ public class VisionSubsystem extends SubsystemBase {
         }
 
         Pose2d latencyCompensatedRobotPose;
-        if (Robot.isReal()) {
+        if (Robot.isReal() || SIMULATE_DETECTOR) {
             latencyCompensatedRobotPose = RobotContainer.instance.drivetrain.getBufferPose(inputs.backTimestamp);
         } else {
             latencyCompensatedRobotPose = robotPose;
@@ -0,0 +1,56 @@
+package frc.robot.util;
+
+/**
+ * Decides when a motor's relative encoder should be reset to a mechanism's absolute encoder, so closed-loop control
+ * can run on the motor controller against the relative encoder while staying anchored to the absolute one.
+ * <p>
+ * The first valid absolute reading always seeds. After that, the relative encoder is only reset when the mechanism is
+ * nearly still (so a slow or noisy absolute reading can't yank it mid-motion) and the two disagree by more than
+ * the tolerance.
+ */
+public class AbsoluteSeeder {
+
+    private final double tolerance;
+    private final double maxVelocity;
+
+    private boolean seeded = false;
+    private int seedCount = 0;
+
+    /**
+     * @param tolerance How far the encoders can disagree before reseeding, in mechanism rotations
+     * @param maxVelocity Only reseed below this speed, in mechanism rotations per second
+     */
+    public AbsoluteSeeder(double tolerance, double maxVelocity) {
+        this.tolerance = tolerance;
+        this.maxVelocity = maxVelocity;
+    }
+
+    /**
+     * Returns true if the relative encoder should be set to the absolute position this loop.
+     * @param relative The relative encoder's position
+     * @param absolute The absolute encoder's position
+     * @param velocity The mechanism's velocity
+     * @param absoluteValid Whether the absolute encoder is connected and reading
+     */
+    public boolean shouldSeed(double relative, double absolute, double velocity, boolean absoluteValid) {
+        if (!absoluteValid) return false;
+
+        boolean seed = !seeded || (Math.abs(velocity) < maxVelocity && Math.abs(absolute - relative) > tolerance);
+        if (seed) {
+            seeded = true;
+            seedCount++;
+        }
+        return seed;
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Returns how many times the relative encoder has been seeded, including the first time.
+     */
+    public int getSeedCount() {
+        return seedCount;
+    }
+}
@@ -0,0 +1,595 @@
+package frc.robot.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import edu.wpi.first.epilogue.logging.EpilogueBackend;
+import edu.wpi.first.networktables.BooleanArrayPublisher;
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.FloatArrayPublisher;
+import edu.wpi.first.networktables.FloatPublisher;
+import edu.wpi.first.networktables.IntegerArrayPublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.RawPublisher;
+import edu.wpi.first.networktables.StringArrayPublisher;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.util.WPIUtilJNI;
+import edu.wpi.first.util.datalog.BooleanArrayLogEntry;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.FloatArrayLogEntry;
+import edu.wpi.first.util.datalog.FloatLogEntry;
+import edu.wpi.first.util.datalog.IntegerArrayLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.util.datalog.RawLogEntry;
+import edu.wpi.first.util.datalog.StringArrayLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+
+/**
+ * An Epilogue backend that moves serialization and I/O off the main loop. Logged values are copied into a
+ * preallocated ring of records on the main thread, and a background thread writes them to NetworkTables or the
+ * DataLog, with every value from one Epilogue pass sharing that pass's timestamp.
+ * <p>
+ * Values go to NetworkTables (which the DataLog also records) unless we're in a match, where only fields marked by
+ * {@link #markPublishedInMatch(Runnable)} are published and everything else is written straight to the DataLog
+ * instead.
+ * <p>
+ * Fields can also be decimated, logging only every Nth pass, with {@link #setDecimation(String, int)}.
+ * <p>
+ * A field keeps the type it was first logged with. If it's later logged with a different type, those values are
+ * dropped and an alert is raised, since neither NetworkTables nor the DataLog can change a topic's type.
+ * <p>
+ * {@link #flush} waits for the writer to catch up, and {@link #close} flushes and stops the writer. A shutdown hook
+ * flushes whatever is left when the program exits.
+ */
+public class AsyncEpilogueBackend implements EpilogueBackend, AutoCloseable {
+
+    private static final int CAPACITY = 16384;
+    private static final double FLUSH_TIMEOUT = 1;
+
+    private enum Type {
+        INT, LONG, FLOAT, DOUBLE, BOOLEAN, RAW,
+        INT_ARRAY, LONG_ARRAY, FLOAT_ARRAY, DOUBLE_ARRAY, BOOLEAN_ARRAY,
+        STRING, STRING_ARRAY, STRUCT, STRUCT_ARRAY
+    }
+
+    /**
+     * A logged value waiting to be written. Array contents are copied into buffers that are reused between passes.
+     */
+    private static class Record {
+        Field field;
+        Type type;
+        long timestamp;
+        boolean publish;
+        long bits;
+        Object value;
+        int length;
+        long[] numbers = new long[0];
+        Object[] objects = new Object[0];
+        ByteBuffer bytes = ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+
+        long[] numbers(int length) {
+            if (numbers.length < length) numbers = new long[length];
+            this.length = length;
+            return numbers;
+        }
+
+        Object[] objects(int length) {
+            if (objects.length < length) objects = new Object[length];
+            this.length = length;
+            return objects;
+        }
+
+        ByteBuffer bytes(int length) {
+            if (bytes.capacity() < length) bytes = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.clear();
+            this.length = length;
+            return bytes;
+        }
+    }
+
+    /**
+     * A single logged field. The type is set on the main thread when the field is created. The publisher, log entry
+     * and array buffers are only touched by the writer thread.
+     */
+    private static class Field {
+        final String name;
+        final Type type;
+        final int decimation;
+        boolean publishedInMatch = false;
+        int counter = 0;
+
+        Object publisher = null;
+        Object entry = null;
+        // Exact-length arrays for the publisher and log entry, reused while the length stays the same
+        long[] longs = new long[0];
+        float[] floats = new float[0];
+        double[] doubles = new double[0];
+        boolean[] booleans = new boolean[0];
+        String[] strings = new String[0];
+
+        Field(String name, Type type, int decimation) {
+            this.name = name;
+            this.type = type;
+            this.decimation = decimation;
+        }
+    }
+
+    /**
+     * State shared by the root backend and all nested backends.
+     */
+    private static class Core {
+        final NetworkTableInstance nt;
+        final DataLog log;
+        final Record[] records = new Record[CAPACITY];
+        final List<String> decimationFragments = new ArrayList<>();
+        final List<Integer> decimationRates = new ArrayList<>();
+        final Semaphore batchReady = new Semaphore(0);
+        final Semaphore batchWritten = new Semaphore(0);
+        final Alert typeMismatchAlert = new Alert("", AlertType.kWarning);
+        Thread writer;
+
+        // Main thread only
+        long head = 0;
+        long batchTimestamp = 0;
+        boolean debugPublishing = true;
+        boolean marking = false;
+        long dropped = 0;
+        long typeMismatches = 0;
+
+        // Shared between threads
+        volatile long publishedHead = 0;
+        volatile long tail = 0;
+        volatile boolean running = true;
+
+        Core(NetworkTableInstance nt, DataLog log) {
+            this.nt = nt;
+            this.log = log;
+            for (int i = 0; i < CAPACITY; i++) {
+                records[i] = new Record();
+            }
+        }
+
+        int decimationFor(String name) {
+            int rate = 1;
+            for (int i = 0; i < decimationFragments.size(); i++) {
+                if (name.contains(decimationFragments.get(i))) rate = Math.max(rate, decimationRates.get(i));
+            }
+            return rate;
+        }
+    }
+
+    private final Core core;
+    private final String prefix;
+    private final Map<String, AsyncEpilogueBackend> nested = new HashMap<>();
+    private final Map<String, Field> fields = new HashMap<>();
+
+    /**
+     * Creates the backend and starts its writer thread.
+     */
+    public AsyncEpilogueBackend(NetworkTableInstance nt, DataLog log) {
+        this.core = new Core(nt, log);
+        this.prefix = "";
+
+        core.writer = new Thread(this::writeLoop, "Epilogue Writer");
+        core.writer.setDaemon(true);
+        core.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "Epilogue Writer Shutdown"));
+    }
+
+    private AsyncEpilogueBackend(Core core, String prefix) {
+        this.core = core;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Only logs fields whose full name contains the given fragment every {@code every} passes. If several
+     * fragments match, the slowest rate is used. Must be called before the fields are first logged.
+     */
+    public void setDecimation(String fragment, int every) {
+        core.decimationFragments.add(fragment);
+        core.decimationRates.add(every);
+    }
+
+    /**
+     * Runs an Epilogue pass that doesn't log anything, but keeps publishing every field it logs to NetworkTables during
+     * matches. Run it with the minimum importance raised to what should stay on NetworkTables, so the set of fields
+     * comes from their {@code @Logged} importance. Fields that weren't logged in the pass (like a null struct) aren't
+     * marked.
+     */
+    public void markPublishedInMatch(Runnable pass) {
+        core.marking = true;
+        try {
+            pass.run();
+        } finally {
+            core.marking = false;
+        }
+    }
+
+    /**
+     * Call before each Epilogue pass. Everything logged until {@link #endBatch()} shares one timestamp.
+     */
+    public void beginBatch() {
+        core.batchTimestamp = WPIUtilJNI.now();
+        core.debugPublishing = !DriverStation.isFMSAttached();
+    }
+
+    /**
+     * Call after each Epilogue pass, to hand everything logged since {@link #beginBatch()} to the writer thread.
+     */
+    public void endBatch() {
+        log("Epilogue/Stats/Dropped Records", core.dropped);
+        log("Epilogue/Stats/Type Mismatches", core.typeMismatches);
+        core.publishedHead = core.head;
+        core.batchReady.release();
+    }
+
+    /**
+     * Waits for the writer thread to write everything handed to it by {@link #endBatch()}, for up to a second.
+     * @return If everything was written
+     */
+    public boolean flush() {
+        long target = core.publishedHead;
+        long deadline = System.nanoTime() + (long) (FLUSH_TIMEOUT * 1e9);
+        while (core.tail < target) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !core.writer.isAlive()) return core.tail >= target;
+            try {
+                core.batchWritten.tryAcquire(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return core.tail >= target;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes everything handed to the writer thread so far, then stops it. Values logged afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        if (!core.running) return;
+        flush();
+        core.running = false;
+        core.batchReady.release();
+    }
+
+    @Override
+    public EpilogueBackend getNested(String path) {
+        AsyncEpilogueBackend backend = nested.get(path);
+        if (backend == null) {
+            backend = new AsyncEpilogueBackend(core, prefix + path + "/");
+            nested.put(path, backend);
+        }
+        return backend;
+    }
+
+    /**
+     * Claims the next record for a field, or returns null if it shouldn't be logged this pass.
+     */
+    private Record claim(String identifier, Type type) {
+        Field field = fields.get(identifier);
+        if (field == null) {
+            String name = prefix + identifier;
+            field = new Field(name, type, core.decimationFor(name));
+            fields.put(identifier, field);
+        }
+        if (core.marking) {
+            field.publishedInMatch = true;
+            return null;
+        }
+
+        if (field.type != type) {
+            core.typeMismatches++;
+            core.typeMismatchAlert.setText("Epilogue field " + field.name + " was logged as " + type +
+                                           " after " + field.type + "; dropping it");
+            core.typeMismatchAlert.set(true);
+            return null;
+        }
+        if (!core.running) {
+            return null;
+        }
+        if (field.decimation > 1 && field.counter++ % field.decimation != 0) {
+            return null;
+        }
+        if (core.head - core.tail >= CAPACITY) {
+            core.dropped++;
+            return null;
+        }
+
+        Record record = core.records[(int) (core.head % CAPACITY)];
+        core.head++;
+        record.field = field;
+        record.type = type;
+        record.timestamp = core.batchTimestamp;
+        record.publish = core.debugPublishing || field.publishedInMatch;
+        record.value = null;
+        return record;
+    }
+
+    @Override
+    public void log(String identifier, int value) {
+        Record record = claim(identifier, Type.INT);
+        if (record != null) record.bits = value;
+    }
+
+    @Override
+    public void log(String identifier, long value) {
+        Record record = claim(identifier, Type.LONG);
+        if (record != null) record.bits = value;
+    }
+
+    @Override
+    public void log(String identifier, float value) {
+        Record record = claim(identifier, Type.FLOAT);
+        if (record != null) record.bits = Float.floatToRawIntBits(value);
+    }
+
+    @Override
+    public void log(String identifier, double value) {
+        Record record = claim(identifier, Type.DOUBLE);
+        if (record != null) record.bits = Double.doubleToRawLongBits(value);
+    }
+
+    @Override
+    public void log(String identifier, boolean value) {
+        Record record = claim(identifier, Type.BOOLEAN);
+        if (record != null) record.bits = value ? 1 : 0;
+    }
+
+    @Override
+    public void log(String identifier, byte[] value) {
+        Record record = claim(identifier, Type.RAW);
+        if (record != null) record.bytes(value.length).put(value);
+    }
+
+    @Override
+    public void log(String identifier, int[] value) {
+        Record record = claim(identifier, Type.INT_ARRAY);
+        if (record == null) return;
+        long[] numbers = record.numbers(value.length);
+        for (int i = 0; i < value.length; i++) numbers[i] = value[i];
+    }
+
+    @Override
+    public void log(String identifier, long[] value) {
+        Record record = claim(identifier, Type.LONG_ARRAY);
+        if (record == null) return;
+        System.arraycopy(value, 0, record.numbers(value.length), 0, value.length);
+    }
+
+    @Override
+    public void log(String identifier, float[] value) {
+        Record record = claim(identifier, Type.FLOAT_ARRAY);
+        if (record == null) return;
+        long[] numbers = record.numbers(value.length);
+        for (int i = 0; i < value.length; i++) numbers[i] = Float.floatToRawIntBits(value[i]);
+    }
+
+    @Override
+    public void log(String identifier, double[] value) {
+        Record record = claim(identifier, Type.DOUBLE_ARRAY);
+        if (record == null) return;
+        long[] numbers = record.numbers(value.length);
+        for (int i = 0; i < value.length; i++) numbers[i] = Double.doubleToRawLongBits(value[i]);
+    }
+
+    @Override
+    public void log(String identifier, boolean[] value) {
+        Record record = claim(identifier, Type.BOOLEAN_ARRAY);
+        if (record == null) return;
+        long[] numbers = record.numbers(value.length);
+        for (int i = 0; i < value.length; i++) numbers[i] = value[i] ? 1 : 0;
+    }
+
+    @Override
+    public void log(String identifier, String value) {
+        Record record = claim(identifier, Type.STRING);
+        if (record != null) record.value = value;
+    }
+
+    @Override
+    public void log(String identifier, String[] value) {
+        Record record = claim(identifier, Type.STRING_ARRAY);
+        if (record == null) return;
+        System.arraycopy(value, 0, record.objects(value.length), 0, value.length);
+    }
+
+    @Override
+    public <S> void log(String identifier, S value, Struct<S> struct) {
+        if (value == null) return;
+        Record record = claim(identifier, Type.STRUCT);
+        if (record == null) return;
+        // Structs can be mutable, so they're packed now rather than on the writer thread
+        struct.pack(record.bytes(struct.getSize()), value);
+        record.value = struct;
+    }
+
+    @Override
+    public <S> void log(String identifier, S[] value, Struct<S> struct) {
+        Record record = claim(identifier, Type.STRUCT_ARRAY);
+        if (record == null) return;
+        ByteBuffer bytes = record.bytes(struct.getSize() * value.length);
+        for (S element : value) {
+            struct.pack(bytes, element);
+        }
+        record.value = struct;
+    }
+
+    private void writeLoop() {
+        while (core.running) {
+            core.batchReady.acquireUninterruptibly();
+            core.batchReady.drainPermits();
+
+            long end = core.publishedHead;
+            for (long i = core.tail; i < end; i++) {
+                Record record = core.records[(int) (i % CAPACITY)];
+                if (record.publish) {
+                    publish(record);
+                } else {
+                    append(record);
+                }
+                record.value = null;
+                core.tail = i + 1;
+            }
+            core.batchWritten.release();
+        }
+    }
+
+    /**
+     * Publishes a record to NetworkTables. Runs on the writer thread.
+     */
+    private void publish(Record record) {
+        Field field = record.field;
+        long timestamp = record.timestamp;
+        if (field.publisher == null) {
+            field.publisher = createPublisher(field.name, record);
+        }
+
+        switch (record.type) {
+            case INT, LONG -> ((IntegerPublisher) field.publisher).set(record.bits, timestamp);
+            case FLOAT -> ((FloatPublisher) field.publisher).set(Float.intBitsToFloat((int) record.bits), timestamp);
+            case DOUBLE -> ((DoublePublisher) field.publisher).set(Double.longBitsToDouble(record.bits), timestamp);
+            case BOOLEAN -> ((BooleanPublisher) field.publisher).set(record.bits != 0, timestamp);
+            case RAW, STRUCT, STRUCT_ARRAY ->
+                ((RawPublisher) field.publisher).set(record.bytes.array(), 0, record.length, timestamp);
+            case INT_ARRAY, LONG_ARRAY -> ((IntegerArrayPublisher) field.publisher).set(longs(record), timestamp);
+            case FLOAT_ARRAY -> ((FloatArrayPublisher) field.publisher).set(floats(record), timestamp);
+            case DOUBLE_ARRAY -> ((DoubleArrayPublisher) field.publisher).set(doubles(record), timestamp);
+            case BOOLEAN_ARRAY -> ((BooleanArrayPublisher) field.publisher).set(booleans(record), timestamp);
+            case STRING -> ((StringPublisher) field.publisher).set((String) record.value, timestamp);
+            case STRING_ARRAY -> ((StringArrayPublisher) field.publisher).set(strings(record), timestamp);
+        }
+    }
+
+    /**
+     * Writes a record straight to the DataLog. Runs on the writer thread.
+     */
+    private void append(Record record) {
+        Field field = record.field;
+        long timestamp = record.timestamp;
+        if (field.entry == null) {
+            field.entry = createEntry(field.name, record);
+        }
+
+        switch (record.type) {
+            case INT, LONG -> ((IntegerLogEntry) field.entry).append(record.bits, timestamp);
+            case FLOAT -> ((FloatLogEntry) field.entry).append(Float.intBitsToFloat((int) record.bits), timestamp);
+            case DOUBLE -> ((DoubleLogEntry) field.entry).append(Double.longBitsToDouble(record.bits), timestamp);
+            case BOOLEAN -> ((BooleanLogEntry) field.entry).append(record.bits != 0, timestamp);
+            case RAW, STRUCT, STRUCT_ARRAY ->
+                ((RawLogEntry) field.entry).append(record.bytes.array(), 0, record.length, timestamp);
+            case INT_ARRAY, LONG_ARRAY -> ((IntegerArrayLogEntry) field.entry).append(longs(record), timestamp);
+            case FLOAT_ARRAY -> ((FloatArrayLogEntry) field.entry).append(floats(record), timestamp);
+            case DOUBLE_ARRAY -> ((DoubleArrayLogEntry) field.entry).append(doubles(record), timestamp);
+            case BOOLEAN_ARRAY -> ((BooleanArrayLogEntry) field.entry).append(booleans(record), timestamp);
+            case STRING -> ((StringLogEntry) field.entry).append((String) record.value, timestamp);
+            case STRING_ARRAY -> ((StringArrayLogEntry) field.entry).append(strings(record), timestamp);
+        }
+    }
+
+    private Object createPublisher(String name, Record record) {
+        NetworkTableInstance nt = core.nt;
+        return switch (record.type) {
+            case INT, LONG -> nt.getIntegerTopic(name).publish();
+            case FLOAT -> nt.getFloatTopic(name).publish();
+            case DOUBLE -> nt.getDoubleTopic(name).publish();
+            case BOOLEAN -> nt.getBooleanTopic(name).publish();
+            case RAW -> nt.getRawTopic(name).publish("raw");
+            case STRUCT, STRUCT_ARRAY -> {
+                Struct<?> struct = (Struct<?>) record.value;
+                nt.addSchema(struct);
+                yield nt.getRawTopic(name).publish(structType(record));
+            }
+            case INT_ARRAY, LONG_ARRAY -> nt.getIntegerArrayTopic(name).publish();
+            case FLOAT_ARRAY -> nt.getFloatArrayTopic(name).publish();
+            case DOUBLE_ARRAY -> nt.getDoubleArrayTopic(name).publish();
+            case BOOLEAN_ARRAY -> nt.getBooleanArrayTopic(name).publish();
+            case STRING -> nt.getStringTopic(name).publish();
+            case STRING_ARRAY -> nt.getStringArrayTopic(name).publish();
+        };
+    }
+
+    private Object createEntry(String name, Record record) {
+        DataLog log = core.log;
+        return switch (record.type) {
+            case INT, LONG -> new IntegerLogEntry(log, name);
+            case FLOAT -> new FloatLogEntry(log, name);
+            case DOUBLE -> new DoubleLogEntry(log, name);
+            case BOOLEAN -> new BooleanLogEntry(log, name);
+            case RAW -> new RawLogEntry(log, name);
+            case STRUCT, STRUCT_ARRAY -> {
+                Struct<?> struct = (Struct<?>) record.value;
+                log.addSchema(struct);
+                yield new RawLogEntry(log, name, "", structType(record));
+            }
+            case INT_ARRAY, LONG_ARRAY -> new IntegerArrayLogEntry(log, name);
+            case FLOAT_ARRAY -> new FloatArrayLogEntry(log, name);
+            case DOUBLE_ARRAY -> new DoubleArrayLogEntry(log, name);
+            case BOOLEAN_ARRAY -> new BooleanArrayLogEntry(log, name);
+            case STRING -> new StringLogEntry(log, name);
+            case STRING_ARRAY -> new StringArrayLogEntry(log, name);
+        };
+    }
+
+    private static String structType(Record record) {
+        String type = "struct:" + ((Struct<?>) record.value).getTypeName();
+        return record.type == Type.STRUCT_ARRAY ? type + "[]" : type;
+    }
+
+    // Conversions back to exact-length arrays, reusing the field's array while the length stays the same. The
+    // publishers and log entries copy the values, so the arrays can be reused right away.
+
+    private static long[] longs(Record record) {
+        Field field = record.field;
+        if (field.longs.length != record.length) field.longs = new long[record.length];
+        System.arraycopy(record.numbers, 0, field.longs, 0, record.length);
+        return field.longs;
+    }
+
+    private static float[] floats(Record record) {
+        Field field = record.field;
+        if (field.floats.length != record.length) field.floats = new float[record.length];
+        for (int i = 0; i < record.length; i++) field.floats[i] = Float.intBitsToFloat((int) record.numbers[i]);
+        return field.floats;
+    }
+
+    private static double[] doubles(Record record) {
+        Field field = record.field;
+        if (field.doubles.length != record.length) field.doubles = new double[record.length];
+        for (int i = 0; i < record.length; i++) field.doubles[i] = Double.longBitsToDouble(record.numbers[i]);
+        return field.doubles;
+    }
+
+    private static boolean[] booleans(Record record) {
+        Field field = record.field;
+        if (field.booleans.length != record.length) field.booleans = new boolean[record.length];
+        for (int i = 0; i < record.length; i++) field.booleans[i] = record.numbers[i] != 0;
+        return field.booleans;
+    }
+
+    private static String[] strings(Record record) {
+        Field field = record.field;
+        if (field.strings.length != record.length) field.strings = new String[record.length];
+        for (int i = 0; i < record.length; i++) {
+            field.strings[i] = (String) record.objects[i];
+            record.objects[i] = null;
+        }
+        return field.strings;
+    }
+}
@@ -0,0 +1,403 @@
+package frc.robot.util;
+
+import static edu.wpi.first.units.Units.Meters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.subsystems.elevator.ElevatorSubsystem;
+import frc.robot.subsystems.vision.VisionSubsystem;
+
+/**
+ * Chooses the order to score a set of coral placements in during autonomous.
+ * <p>
+ * Travel times between every reef scoring pose and both human player stations are precomputed once using the
+ * drivetrain's profile constraints. Orderings are then searched with branch-and-bound to find the one that
+ * finishes all placements the soonest, including the time the elevator needs to reach each level.
+ */
+public class AutoScoringOptimizer {
+
+    public static final int MAX_PLACEMENTS = 8;
+
+    public static final int LEFT_STATION = 0;
+    public static final int RIGHT_STATION = 1;
+
+    // Time between arriving at the station and the coral being inside the robot
+    private static final double PICKUP_TIME = 0.5;
+    // Time between being aligned at the reef (with the elevator in position) and the coral leaving the arm
+    private static final double SCORE_TIME = 0.5;
+    // The elevator starts moving once we're this close to the reef pose (matches RobotContainer's nearReef trigger)
+    private static final double NEAR_REEF_DISTANCE = 0.35;
+    // Paths have to wrap around a circle of this radius centered on the reef (reef radius + half the bumpers)
+    private static final double REEF_AVOID_RADIUS = 1.3;
+
+    private static final double[] LEVEL_HEIGHTS = {
+        ElevatorSubsystem.STOW.in(Meters),
+        ElevatorSubsystem.L1.in(Meters),
+        ElevatorSubsystem.L2.in(Meters),
+        ElevatorSubsystem.L3.in(Meters),
+        ElevatorSubsystem.L4.in(Meters)
+    };
+
+    private final TrapezoidProfile.Constraints driveConstraints;
+    private final TrapezoidProfile.Constraints rotationConstraints;
+
+    private final HashMap<Integer, Integer> nodeIndexes = new HashMap<>();
+    private final List<Pose2d> nodePoses = new ArrayList<>();
+    private final Pose2d[] stationPoses;
+    private final Translation2d blueReefCenter, redReefCenter;
+
+    /** Travel time from each reef scoring pose to each station (and back) */
+    private final double[][] stationTravelTimes;
+    /** Extra time spent waiting at the reef for the elevator, indexed by level */
+    private final double[] elevatorWaitTimes = new double[LEVEL_HEIGHTS.length];
+
+    // Search state, preallocated so solving doesn't allocate
+    private final int[] placementNodes = new int[MAX_PLACEMENTS];
+    private final double[] firstCosts = new double[MAX_PLACEMENTS];
+    private final double[][] cycleCosts = new double[MAX_PLACEMENTS][MAX_PLACEMENTS];
+    private final double[] minIncomingCosts = new double[MAX_PLACEMENTS];
+    private final int[] order = new int[MAX_PLACEMENTS];
+    private final int[] bestOrder = new int[MAX_PLACEMENTS];
+    private final double[] completionTimes = new double[MAX_PLACEMENTS];
+    private int placementCount = 0;
+    private long nodeBudget = Long.MAX_VALUE;
+    private double bestTime = 0;
+    private long nodesExplored = 0;
+    private double lastSolveMillis = 0;
+
+    /**
+     * Creates a new optimizer and precomputes its travel-time matrix.
+     * @param leftReefPoses Left branch scoring poses, keyed by reef tag
+     * @param rightReefPoses Right branch scoring poses, keyed by reef tag
+     * @param leftStation Pose the robot picks up coral from at the left human player station
+     * @param rightStation Pose the robot picks up coral from at the right human player station
+     * @param driveConstraints Translation constraints used when driving to a pose
+     * @param rotationConstraints Rotation constraints used when driving to a pose
+     */
+    public AutoScoringOptimizer(
+        Map<Integer, Pose2d> leftReefPoses,
+        Map<Integer, Pose2d> rightReefPoses,
+        Pose2d leftStation,
+        Pose2d rightStation,
+        TrapezoidProfile.Constraints driveConstraints,
+        TrapezoidProfile.Constraints rotationConstraints
+    ) {
+        this.driveConstraints = driveConstraints;
+        this.rotationConstraints = rotationConstraints;
+        stationPoses = new Pose2d[] { leftStation, rightStation };
+
+        for (var entry : leftReefPoses.entrySet()) {
+            addNode(entry.getKey(), true, entry.getValue());
+        }
+        for (var entry : rightReefPoses.entrySet()) {
+            addNode(entry.getKey(), false, entry.getValue());
+        }
+
+        blueReefCenter = averageTranslation(true);
+        redReefCenter = averageTranslation(false);
+
+        stationTravelTimes = new double[nodePoses.size()][stationPoses.length];
+        for (int node = 0; node < nodePoses.size(); node++) {
+            for (int station = 0; station < stationPoses.length; station++) {
+                stationTravelTimes[node][station] = travelTime(nodePoses.get(node), stationPoses[station]);
+            }
+        }
+
+        // The elevator waits until we're near the reef to raise, so only the part of the raise that doesn't
+        // overlap the end of the drive (decelerating over NEAR_REEF_DISTANCE) adds to the cycle
+        double approachOverlap = Math.sqrt(2 * NEAR_REEF_DISTANCE / driveConstraints.maxAcceleration);
+        for (int level = 0; level < LEVEL_HEIGHTS.length; level++) {
+            double raiseTime = ProfileTiming.profileTime(Math.abs(LEVEL_HEIGHTS[level] - LEVEL_HEIGHTS[0]), ElevatorSubsystem.APPROXIMATE_CONSTRAINTS);
+            elevatorWaitTimes[level] = Math.max(0, raiseTime - approachOverlap);
+        }
+    }
+
+    /**
+     * Reorders the given placements to minimize the time to score all of them, picking up from whichever
+     * human player station is quicker on each cycle.
+     * @param start The pose the robot starts autonomous at
+     * @param placements The placements to score, in any order. The first one in the returned order is scored with
+     * the preloaded coral.
+     */
+    public List<CoralScoringPosition> optimize(Pose2d start, List<CoralScoringPosition> placements) {
+        solve(start, placements, true, true, false);
+        return bestOrder(placements);
+    }
+
+    /**
+     * Reorders the given placements to minimize the time to score all of them, only picking up from the
+     * human player station on one side of the field.
+     * @param start The pose the robot starts autonomous at
+     * @param placements The placements to score, in any order. The first one in the returned order is scored with
+     * the preloaded coral.
+     * @param leftSide Whether to use the left station (true) or the right station (false)
+     */
+    public List<CoralScoringPosition> optimize(Pose2d start, List<CoralScoringPosition> placements, boolean leftSide) {
+        return optimize(start, placements, leftSide, false);
+    }
+
+    /**
+     * Reorders the given placements to minimize the time to score all of them, only picking up from the
+     * human player station on one side of the field.
+     * @param start The robot's current pose
+     * @param placements The placements left to score
+     * @param leftSide Whether to use the left station (true) or the right station (false)
+     * @param startWithPickup Whether the robot needs to visit the station before the first placement
+     */
+    public List<CoralScoringPosition> optimize(Pose2d start, List<CoralScoringPosition> placements, boolean leftSide, boolean startWithPickup) {
+        solve(start, placements, leftSide, !leftSide, startWithPickup);
+        return bestOrder(placements);
+    }
+
+    private List<CoralScoringPosition> bestOrder(List<CoralScoringPosition> placements) {
+        List<CoralScoringPosition> optimized = new ArrayList<>(placementCount);
+        for (int i = 0; i < placementCount; i++) {
+            optimized.add(placements.get(bestOrder[i]));
+        }
+        return optimized;
+    }
+
+    /**
+     * Finds the fastest order to score the given placements in, without allocating. Read the result with
+     * {@link #getOptimizedIndex(int)} and {@link #getCompletionTime(int)}.
+     */
+    public void solve(Pose2d start, List<CoralScoringPosition> placements, boolean useLeft, boolean useRight, boolean startWithPickup) {
+        if (placements.size() > MAX_PLACEMENTS) {
+            throw new IllegalArgumentException("Cannot optimize more than " + MAX_PLACEMENTS + " placements");
+        }
+        long startNanos = System.nanoTime();
+
+        placementCount = placements.size();
+        for (int i = 0; i < placementCount; i++) {
+            CoralScoringPosition position = placements.get(i);
+            Integer node = nodeIndexes.get(nodeKey(position.tag, position.isLeft));
+            if (node == null) {
+                throw new IllegalArgumentException("No reef pose for tag " + position.tag);
+            }
+            placementNodes[i] = node;
+        }
+        computeCosts(start, placements, useLeft, useRight, startWithPickup);
+
+        // Seed the search with the greedy (nearest next placement) order, so the bound prunes well from the start
+        // and we still have a good answer if the node budget runs out
+        greedyOrder();
+        nodesExplored = 0;
+        search(0, 0, -1, 0);
+
+        double time = 0;
+        for (int i = 0; i < placementCount; i++) {
+            time += i == 0 ? firstCosts[bestOrder[0]] : cycleCosts[bestOrder[i - 1]][bestOrder[i]];
+            completionTimes[i] = time;
+        }
+
+        lastSolveMillis = (System.nanoTime() - startNanos) / 1e6;
+    }
+
+    /**
+     * Limits how many partial orderings a single solve may visit, to bound its run time. Once the budget is
+     * used up, the best order found so far is returned.
+     */
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Returns the index (into the placements that were solved for) of the i-th placement in the best order.
+     */
+    public int getOptimizedIndex(int i) {
+        return bestOrder[i];
+    }
+
+    /**
+     * Returns the expected time, in seconds from the start of the solve, at which the i-th placement
+     * in the best order will have been scored.
+     */
+    public double getCompletionTime(int i) {
+        return completionTimes[i];
+    }
+
+    /**
+     * Returns the expected time, in seconds, to score a single placement (by index into the placements
+     * that were solved for) if it were the next one.
+     */
+    public double getFirstCost(int placementIndex) {
+        return firstCosts[placementIndex];
+    }
+
+    /**
+     * Returns the expected time, in seconds, to score every placement in the most recent optimized order.
+     */
+    public double getBestTime() {
+        return bestTime;
+    }
+
+    /**
+     * Returns how long the most recent call to optimize took, in milliseconds.
+     */
+    public double getLastSolveMillis() {
+        return lastSolveMillis;
+    }
+
+    /**
+     * Returns the number of partial orderings visited by the most recent search.
+     */
+    public long getNodesExplored() {
+        return nodesExplored;
+    }
+
+    private void computeCosts(Pose2d start, List<CoralScoringPosition> placements, boolean useLeft, boolean useRight, boolean startWithPickup) {
+        double startToLeftStation = useLeft && startWithPickup ? travelTime(start, stationPoses[LEFT_STATION]) : 0;
+        double startToRightStation = useRight && startWithPickup ? travelTime(start, stationPoses[RIGHT_STATION]) : 0;
+
+        for (int j = 0; j < placementCount; j++) {
+            int nodeJ = placementNodes[j];
+            double reefTime = elevatorWaitTimes[placements.get(j).level] + SCORE_TIME;
+
+            if (startWithPickup) {
+                double stationTime = Double.MAX_VALUE;
+                if (useLeft) {
+                    stationTime = startToLeftStation + stationTravelTimes[nodeJ][LEFT_STATION];
+                }
+                if (useRight) {
+                    stationTime = Math.min(stationTime, startToRightStation + stationTravelTimes[nodeJ][RIGHT_STATION]);
+                }
+                firstCosts[j] = stationTime + PICKUP_TIME + reefTime;
+            } else {
+                firstCosts[j] = travelTime(start, nodePoses.get(nodeJ)) + reefTime;
+            }
+            minIncomingCosts[j] = firstCosts[j];
+
+            for (int i = 0; i < placementCount; i++) {
+                if (i == j) continue;
+
+                int nodeI = placementNodes[i];
+                double stationTime = Double.MAX_VALUE;
+                if (useLeft) {
+                    stationTime = stationTravelTimes[nodeI][LEFT_STATION] + stationTravelTimes[nodeJ][LEFT_STATION];
+                }
+                if (useRight) {
+                    stationTime = Math.min(stationTime, stationTravelTimes[nodeI][RIGHT_STATION] + stationTravelTimes[nodeJ][RIGHT_STATION]);
+                }
+                cycleCosts[i][j] = stationTime + PICKUP_TIME + reefTime;
+                minIncomingCosts[j] = Math.min(minIncomingCosts[j], cycleCosts[i][j]);
+            }
+        }
+    }
+
+    private void greedyOrder() {
+        int usedMask = 0;
+        int previous = -1;
+        bestTime = 0;
+        for (int depth = 0; depth < placementCount; depth++) {
+            int best = -1;
+            double bestCost = Double.MAX_VALUE;
+            for (int next = 0; next < placementCount; next++) {
+                if ((usedMask & (1 << next)) != 0) continue;
+
+                double cost = previous == -1 ? firstCosts[next] : cycleCosts[previous][next];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = next;
+                }
+            }
+            bestOrder[depth] = best;
+            bestTime += bestCost;
+            usedMask |= 1 << best;
+            previous = best;
+        }
+    }
+
+    private void search(int depth, int usedMask, int previous, double time) {
+        if (nodesExplored >= nodeBudget) return;
+        nodesExplored++;
+        if (depth == placementCount) {
+            if (time < bestTime) {
+                bestTime = time;
+                System.arraycopy(order, 0, bestOrder, 0, placementCount);
+            }
+            return;
+        }
+
+        // Lower bound: every remaining placement costs at least its cheapest way of being reached
+        double bound = time;
+        for (int i = 0; i < placementCount; i++) {
+            if ((usedMask & (1 << i)) == 0) bound += minIncomingCosts[i];
+        }
+        if (bound >= bestTime) return;
+
+        for (int next = 0; next < placementCount; next++) {
+            if ((usedMask & (1 << next)) != 0) continue;
+
+            double cost = previous == -1 ? firstCosts[next] : cycleCosts[previous][next];
+            order[depth] = next;
+            search(depth + 1, usedMask | (1 << next), next, time + cost);
+        }
+    }
+
+    /**
+     * Estimates the time to drive between two poses, limited by whichever of translation or rotation takes longer.
+     * Paths that would cross a reef are lengthened to wrap around it.
+     */
+    public double travelTime(Pose2d from, Pose2d to) {
+        double distance = Math.max(
+            pathLength(from.getTranslation(), to.getTranslation(), blueReefCenter),
+            pathLength(from.getTranslation(), to.getTranslation(), redReefCenter)
+        );
+        double rotation = Math.abs(to.getRotation().minus(from.getRotation()).getRadians());
+        return Math.max(ProfileTiming.profileTime(distance, driveConstraints), ProfileTiming.profileTime(rotation, rotationConstraints));
+    }
+
+    /**
+     * Length of the shortest path between two points that stays outside the circle around a reef.
+     */
+    private static double pathLength(Translation2d a, Translation2d b, Translation2d reefCenter) {
+        Translation2d relA = a.minus(reefCenter);
+        Translation2d relB = b.minus(reefCenter);
+        double distA = Math.max(relA.getNorm(), REEF_AVOID_RADIUS);
+        double distB = Math.max(relB.getNorm(), REEF_AVOID_RADIUS);
+
+        double angleBetween = Math.abs(relA.getAngle().minus(relB.getAngle()).getRadians());
+        double tangentAngleA = Math.acos(REEF_AVOID_RADIUS / distA);
+        double tangentAngleB = Math.acos(REEF_AVOID_RADIUS / distB);
+
+        // The straight line doesn't come within the radius of the reef
+        if (angleBetween <= tangentAngleA + tangentAngleB) {
+            return a.getDistance(b);
+        }
+
+        double tangentA = Math.sqrt(distA * distA - REEF_AVOID_RADIUS * REEF_AVOID_RADIUS);
+        double tangentB = Math.sqrt(distB * distB - REEF_AVOID_RADIUS * REEF_AVOID_RADIUS);
+        double arc = REEF_AVOID_RADIUS * (angleBetween - tangentAngleA - tangentAngleB);
+        return tangentA + tangentB + arc;
+    }
+
+    private void addNode(int tag, boolean left, Pose2d pose) {
+        if (pose == null) return;
+
+        nodeIndexes.put(nodeKey(tag, left), nodePoses.size());
+        nodePoses.add(pose);
+    }
+
+    private Translation2d averageTranslation(boolean blue) {
+        double x = 0, y = 0;
+        int count = 0;
+        for (var entry : nodeIndexes.entrySet()) {
+            int tag = entry.getKey() / 2;
+            if (blue != VisionSubsystem.blueReefTags.contains(tag)) continue;
+
+            Pose2d pose = nodePoses.get(entry.getValue());
+            x += pose.getX();
+            y += pose.getY();
+            count++;
+        }
+        return count == 0 ? Translation2d.kZero : new Translation2d(x / count, y / count);
+    }
+
+    private static int nodeKey(int tag, boolean left) {
+        return tag * 2 + (left ? 1 : 0);
+    }
+}
@@ -0,0 +1,108 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.Auto;
+import frc.robot.subsystems.vision.VisionSubsystem;
+
+/**
+ * Desktop benchmark for {@link AutoScoringOptimizer}. Run with {@code ./gradlew autoOptimizerBenchmark}.
+ * <p>
+ * This runs without the robot code (no HAL), so the reef poses and drive constraints below are close
+ * approximations of the ones VisionSubsystem and DrivetrainSubsystem use, which is all solve time depends on.
+ */
+public class AutoScoringOptimizerBenchmark {
+
+    private static final int WARMUP_RUNS = 200;
+    private static final int TIMED_RUNS = 1000;
+
+    private static final Transform2d LEFT_REEF_TRANSFORM = new Transform2d(0.54, -0.165, Rotation2d.k180deg);
+    private static final Transform2d RIGHT_REEF_TRANSFORM = new Transform2d(0.54, 0.165, Rotation2d.k180deg);
+
+    public static void main(String[] args) throws Exception {
+        AprilTagFieldLayout layout = AprilTagFieldLayout.loadFromResource(AprilTagFields.k2025ReefscapeWelded.m_resourceFile);
+
+        HashMap<Integer, Pose2d> left = new HashMap<>();
+        HashMap<Integer, Pose2d> right = new HashMap<>();
+        for (int tag : VisionSubsystem.blueReefTags) {
+            Pose2d tagPose = layout.getTagPose(tag).get().toPose2d();
+            left.put(tag, tagPose.transformBy(LEFT_REEF_TRANSFORM));
+            right.put(tag, tagPose.transformBy(RIGHT_REEF_TRANSFORM));
+        }
+
+        AutoScoringOptimizer optimizer = new AutoScoringOptimizer(
+            left,
+            right,
+            new Pose2d(1.2, 7.0, Rotation2d.fromDegrees(-54)),
+            new Pose2d(1.2, 1.0, Rotation2d.fromDegrees(54)),
+            new TrapezoidProfile.Constraints(4.8 * 0.8, 5),
+            new TrapezoidProfile.Constraints(3 * Math.PI, 24 * Math.PI)
+        );
+
+        List<CoralScoringPosition> all = new ArrayList<>();
+        for (int tag : VisionSubsystem.blueReefTags) {
+            for (int level = 2; level <= 4; level++) {
+                all.add(new CoralScoringPosition(tag, level, true));
+                all.add(new CoralScoringPosition(tag, level, false));
+            }
+        }
+
+        Pose2d start = new Pose2d(7, 5.5, Rotation2d.fromDegrees(240));
+        Random random = new Random(180);
+
+        System.out.println("Full search, from the starting line:");
+        for (int count = 1; count <= AutoScoringOptimizer.MAX_PLACEMENTS; count++) {
+            int placements = count;
+            time(count, () -> optimizer.optimize(start, randomPlacements(all, placements, random)), optimizer);
+        }
+
+        // Like Auto.replanCoralScoringPositions(), heading back to the station after scoring
+        Pose2d reef = left.get(19);
+        optimizer.setNodeBudget(Auto.REPLAN_NODE_BUDGET);
+        System.out.printf("Re-plan, at a budget of %d nodes:%n", Auto.REPLAN_NODE_BUDGET);
+        for (int count = 2; count <= AutoScoringOptimizer.MAX_PLACEMENTS; count++) {
+            int placements = count;
+            time(count, () -> optimizer.optimize(reef, randomPlacements(all, placements, random), true, true),
+                 optimizer);
+        }
+    }
+
+    private static void time(int count, Runnable solve, AutoScoringOptimizer optimizer) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            solve.run();
+        }
+
+        double totalMillis = 0;
+        double maxMillis = 0;
+        long totalNodes = 0;
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            solve.run();
+            totalMillis += optimizer.getLastSolveMillis();
+            maxMillis = Math.max(maxMillis, optimizer.getLastSolveMillis());
+            totalNodes += optimizer.getNodesExplored();
+        }
+
+        System.out.printf(
+            "%d placements: mean %.3f ms, max %.3f ms, %d nodes/solve%n",
+            count,
+            totalMillis / TIMED_RUNS,
+            maxMillis,
+            totalNodes / TIMED_RUNS
+        );
+    }
+
+    private static List<CoralScoringPosition> randomPlacements(List<CoralScoringPosition> all, int count, Random random) {
+        List<CoralScoringPosition> shuffled = new ArrayList<>(all);
+        Collections.shuffle(shuffled, random);
+        return shuffled.subList(0, count);
+    }
+}
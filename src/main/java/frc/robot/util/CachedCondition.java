@@ -0,0 +1,111 @@
+package frc.robot.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+
+/**
+ * A condition that is evaluated at most once per robot loop. The first read in a loop runs the underlying supplier,
+ * and every later read in the same loop returns that value, so a base condition shared by many composed triggers
+ * only does its work once.
+ * <p>
+ * The loop counter is advanced by {@link #nextCycle()} at the start of {@code Robot.robotPeriodic}. Since the value
+ * is sampled on the first read, conditions should be read after subsystem periodics have updated their inputs
+ * (i.e. from triggers and commands), which is where the scheduler reads them.
+ * <p>
+ * Only cache conditions that depend on nothing but the inputs a subsystem reads in its periodic, like beam breaks or
+ * measured speeds. A condition that compares against a target (a setpoint, a target pose) can be read, then have its
+ * target changed by a command later in the same loop, and the cached value would be stale until the next loop.
+ */
+public class CachedCondition implements BooleanSupplier {
+
+    private static final Map<String, CachedCondition> conditions = new LinkedHashMap<>();
+    private static long cycle = 0;
+
+    private final String name;
+    private final BooleanSupplier source;
+    private long cachedCycle = -1;
+    private boolean value = false;
+    private long evaluations = 0;
+    private long reads = 0;
+
+    private CachedCondition(String name, BooleanSupplier source) {
+        this.name = name;
+        this.source = source;
+    }
+
+    /**
+     * Creates a cached condition. Its evaluation counts are included in {@link #logCounts()} under the given name.
+     * @throws IllegalArgumentException If a condition with the same name already exists
+     */
+    public static CachedCondition of(String name, BooleanSupplier source) {
+        if (conditions.containsKey(name)) {
+            throw new IllegalArgumentException("Cached condition \"" + name + "\" already exists");
+        }
+        CachedCondition condition = new CachedCondition(name, source);
+        conditions.put(name, condition);
+        return condition;
+    }
+
+    /**
+     * Creates a trigger backed by a cached condition.
+     */
+    public static Trigger trigger(String name, BooleanSupplier source) {
+        return new Trigger(of(name, source));
+    }
+
+    /**
+     * Starts a new loop, so every condition is evaluated again on its next read.
+     */
+    public static void nextCycle() {
+        cycle++;
+    }
+
+    public static long getCycle() {
+        return cycle;
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+        reads++;
+        if (cachedCycle != cycle) {
+            value = source.getAsBoolean();
+            cachedCycle = cycle;
+            evaluations++;
+        }
+        return value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns how many times the underlying supplier has been evaluated.
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Returns how many times this condition has been read, including reads served from the cache.
+     */
+    public long getReads() {
+        return reads;
+    }
+
+    /**
+     * Writes the evaluation and read counts of every condition to the data log.
+     */
+    public static void logCounts() {
+        StringBuilder builder = new StringBuilder("Condition evaluations after ").append(cycle).append(" loops:");
+        for (CachedCondition condition : conditions.values()) {
+            builder.append("\n  ").append(condition.name)
+                   .append(": ").append(condition.evaluations).append(" evaluated, ")
+                   .append(condition.reads).append(" read");
+        }
+        DataLogManager.log(builder.toString());
+    }
+}
@@ -0,0 +1,278 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleSupplier;
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.CANBus;
+import com.ctre.phoenix6.CANBus.CANBusStatus;
+import com.ctre.phoenix6.hardware.ParentDevice;
+import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.hardware.TalonFXS;
+import edu.wpi.first.epilogue.Logged;
+import edu.wpi.first.epilogue.NotLogged;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Estimates the frame load on one CAN bus from every frame source we know about, and compares it to the bus's
+ * measured utilization.
+ * <p>
+ * Signals tracked or kept by {@link StatusSignals} are counted at their applied update frequency, along with the
+ * control frames of every motor controller it knows about. Frames that StatusSignals doesn't manage (swerve odometry,
+ * REV and Grapple devices, the CANdle) are added with {@link #addSignals} and {@link #addLoad}. Every signal is
+ * counted as its own frame, so the estimate is an upper bound for devices that pack several signals into one frame.
+ * <p>
+ * The full report is written to the data log (and console) by {@link #report()}. An estimate over the warning level
+ * raises an error alert, since it means the configured frame rates don't fit on the bus, and
+ * {@link #isWithinBudget()} lets tests fail on it. A measured utilization over the warning level raises a separate
+ * warning while it lasts.
+ */
+@Logged
+public class CanBudget {
+
+    // Approximate capacity of each bus type, for 8-byte extended frames including bit stuffing
+    private static final double CAN_2_FRAMES_PER_SECOND = 6600;
+    private static final double CAN_FD_FRAMES_PER_SECOND = 20000;
+    // Rough default status frame load of a Phoenix 6 device that hasn't been optimized
+    private static final double UNOPTIMIZED_DEVICE_FRAMES_PER_SECOND = 100;
+    // Phoenix 6 control requests are resent at 100 Hz by default
+    private static final double CONTROL_FRAMES_PER_SECOND = 100;
+    private static final double WARNING_UTILIZATION = 0.7;
+    private static final int HEAVIEST_COUNT = 5;
+    // Reading the measured utilization is a call into the CAN driver, so only do it once a second
+    private static final int MEASURE_LOOPS = 50;
+
+    private static class Load {
+        final String bus;
+        final String name;
+        // Device and signal name for status signals, so a signal that's both tracked and kept is only counted once
+        final String signal;
+        final DoubleSupplier framesPerSecond;
+
+        Load(String bus, String name, DoubleSupplier framesPerSecond) {
+            this(bus, name, null, framesPerSecond);
+        }
+
+        Load(String bus, String name, String signal, DoubleSupplier framesPerSecond) {
+            this.bus = normalizeBus(bus);
+            this.name = name;
+            this.signal = signal;
+            this.framesPerSecond = framesPerSecond;
+        }
+    }
+
+    private static final List<Load> extraLoads = new ArrayList<>();
+
+    static {
+        addLoad("rio", "roboRIO heartbeat", 50);
+    }
+
+    @NotLogged
+    private final String bus;
+    @NotLogged
+    private final CANBus canBus;
+    @NotLogged
+    private final Alert estimateAlert;
+    @NotLogged
+    private final Alert measuredAlert;
+    @NotLogged
+    private int loops = 0;
+
+    private final double capacity;
+    private double estimatedFramesPerSecond = 0;
+    private double estimatedUtilization = 0;
+    private double measuredUtilization = 0;
+    private String[] heaviest = new String[0];
+
+    /**
+     * @param bus The CAN bus to report on ("rio" for the roboRIO's bus)
+     */
+    public CanBudget(String bus) {
+        this(normalizeBus(bus), isRio(bus) ? null : new CANBus(bus));
+    }
+
+    private CanBudget(String bus, CANBus canBus) {
+        this(bus, canBus, canBus != null && canBus.isNetworkFD() ? CAN_FD_FRAMES_PER_SECOND : CAN_2_FRAMES_PER_SECOND);
+    }
+
+    /**
+     * Reports on a bus with a fixed capacity, without reading its measured utilization. Used by tests.
+     */
+    CanBudget(String bus, double capacity) {
+        this(normalizeBus(bus), null, capacity);
+    }
+
+    private CanBudget(String bus, CANBus canBus, double capacity) {
+        this.bus = bus;
+        this.canBus = canBus;
+        this.capacity = capacity;
+        this.estimateAlert = new Alert("", AlertType.kError);
+        this.measuredAlert = new Alert("", AlertType.kWarning);
+    }
+
+    /**
+     * Counts a fixed frame rate on a bus, for devices that StatusSignals doesn't manage.
+     */
+    public static void addLoad(String bus, String name, double framesPerSecond) {
+        extraLoads.add(new Load(bus, name, () -> framesPerSecond));
+    }
+
+    /**
+     * Counts signals that are used but not tracked by StatusSignals, at whatever frequency they end up applied at.
+     */
+    public static void addSignals(ParentDevice device, BaseStatusSignal... signals) {
+        String deviceName = StatusSignals.deviceName(device);
+        for (BaseStatusSignal signal : signals) {
+            String name = deviceName + "/" + signal.getName();
+            extraLoads.add(new Load(device.getNetwork(), name, name, signal::getAppliedUpdateFrequency));
+        }
+    }
+
+    /**
+     * Builds the estimate and writes every frame source on this bus to the data log, heaviest first.
+     * Call once after all devices have been created and {@link StatusSignals#applyFrequencies()} has run.
+     */
+    public void report() {
+        List<Load> loads = collectLoads();
+        double[] rates = new double[loads.size()];
+        Integer[] order = new Integer[loads.size()];
+        estimatedFramesPerSecond = 0;
+        for (int i = 0; i < loads.size(); i++) {
+            rates[i] = loads.get(i).framesPerSecond.getAsDouble();
+            order[i] = i;
+            estimatedFramesPerSecond += rates[i];
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> -rates[i]));
+        estimatedUtilization = estimatedFramesPerSecond / capacity;
+
+        heaviest = new String[Math.min(HEAVIEST_COUNT, order.length)];
+        for (int i = 0; i < heaviest.length; i++) {
+            heaviest[i] = String.format("%s (%.0f Hz)", loads.get(order[i]).name, rates[order[i]]);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("CAN budget for %s: ~%.0f frames/s of ~%.0f (%.0f%%), %d sources",
+                                     bus, estimatedFramesPerSecond, capacity, estimatedUtilization * 100, loads.size()));
+        for (Integer i : order) {
+            builder.append(String.format("%n  %7.1f Hz  %s", rates[i], loads.get(i).name));
+        }
+        DataLogManager.log(builder.toString());
+
+        // The estimate only changes with the configuration, so this stays up until the frame rates are fixed
+        if (!isWithinBudget()) {
+            estimateAlert.setText(String.format("CAN bus %s is over budget: estimated %.0f%% of %.0f frames/s - heaviest: %s",
+                                                bus, estimatedUtilization * 100, capacity,
+                                                heaviest.length > 0 ? heaviest[0] : "unknown"));
+        }
+        estimateAlert.set(!isWithinBudget());
+    }
+
+    /**
+     * Reads the measured utilization once a second. Call every loop.
+     */
+    public void update() {
+        if (++loops < MEASURE_LOOPS) return;
+        loops = 0;
+
+        if (canBus != null) {
+            CANBusStatus status = canBus.getStatus();
+            measuredUtilization = status.Status.isOK() ? status.BusUtilization : 0;
+        } else if (isRio(bus)) {
+            measuredUtilization = RobotController.getCANStatus().percentBusUtilization;
+        }
+
+        if (measuredUtilization > WARNING_UTILIZATION) {
+            measuredAlert.setText(String.format("CAN bus %s is at %.0f%% (estimated %.0f%%) - heaviest: %s",
+                                                bus, measuredUtilization * 100, estimatedUtilization * 100,
+                                                heaviest.length > 0 ? heaviest[0] : "unknown"));
+        }
+        measuredAlert.set(measuredUtilization > WARNING_UTILIZATION);
+    }
+
+    private List<Load> collectLoads() {
+        List<Load> loads = new ArrayList<>();
+
+        for (StatusSignals.SignalGroup group : StatusSignals.getGroups()) {
+            BaseStatusSignal[] signals = group.getSignals();
+            String[] names = group.getSignalNames();
+            for (int i = 0; i < signals.length; i++) {
+                loads.add(new Load(group.getBus(), names[i], names[i], signals[i]::getAppliedUpdateFrequency));
+            }
+        }
+        for (Map.Entry<BaseStatusSignal, ParentDevice> kept : StatusSignals.getKeptSignals().entrySet()) {
+            ParentDevice device = kept.getValue();
+            BaseStatusSignal signal = kept.getKey();
+            String name = StatusSignals.deviceName(device) + "/" + signal.getName();
+            loads.add(new Load(device.getNetwork(), name + " (kept)", name, signal::getAppliedUpdateFrequency));
+        }
+        for (ParentDevice device : StatusSignals.getDevices()) {
+            if (device instanceof TalonFX || device instanceof TalonFXS) {
+                loads.add(new Load(device.getNetwork(), StatusSignals.deviceName(device) + " control",
+                                   () -> CONTROL_FRAMES_PER_SECOND));
+            }
+        }
+        for (ParentDevice device : StatusSignals.getUnoptimizedDevices()) {
+            loads.add(new Load(device.getNetwork(), StatusSignals.deviceName(device) + " default status frames",
+                               () -> UNOPTIMIZED_DEVICE_FRAMES_PER_SECOND));
+        }
+        loads.addAll(extraLoads);
+
+        loads.removeIf(load -> !load.bus.equals(bus));
+        // A signal has one frame rate however many times it's registered, so keep the first entry (tracked before kept)
+        Set<String> signals = new HashSet<>();
+        loads.removeIf(load -> load.signal != null && !signals.add(load.signal));
+        return loads;
+    }
+
+    private static boolean isRio(String bus) {
+        return bus.isEmpty() || bus.equals("rio");
+    }
+
+    private static String normalizeBus(String bus) {
+        return isRio(bus) ? "rio" : bus;
+    }
+
+    public String getBus() {
+        return bus;
+    }
+
+    /**
+     * Estimated frames per second on this bus.
+     */
+    public double getEstimatedFramesPerSecond() {
+        return estimatedFramesPerSecond;
+    }
+
+    /**
+     * Whether the estimate from the last {@link #report()} is under the warning level.
+     */
+    public boolean isWithinBudget() {
+        return estimatedUtilization <= WARNING_UTILIZATION;
+    }
+
+    /**
+     * Estimated fraction of the bus's capacity in use.
+     */
+    public double getEstimatedUtilization() {
+        return estimatedUtilization;
+    }
+
+    /**
+     * Fraction of the bus's capacity in use, as measured by the CAN driver. Always 0 in simulation.
+     */
+    public double getMeasuredUtilization() {
+        return measuredUtilization;
+    }
+
+    public String[] getHeaviest() {
+        return heaviest;
+    }
+}
@@ -0,0 +1,116 @@
+package frc.robot.util;
+
+import static edu.wpi.first.units.Units.*;
+import java.util.function.Supplier;
+import edu.wpi.first.epilogue.Logged;
+import edu.wpi.first.epilogue.NotLogged;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.units.measure.Distance;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.Constants;
+import frc.robot.RobotContainer;
+import frc.robot.subsystems.DrivetrainSubsystem;
+import frc.robot.subsystems.elevator.ElevatorSubsystem;
+import frc.robot.subsystems.elevatorArmPivot.ElevatorArmPivotSubsystem;
+
+/**
+ * Decides when to start raising the elevator and arm on the way to the reef, so that they finish moving at the same
+ * moment the drivetrain arrives, instead of waiting until the robot is within a fixed distance of the reef.
+ * <p>
+ * The drivetrain's time to arrival comes from its active DriveToPose profile, and the mechanism travel time from
+ * approximations of the elevator and arm Motion Magic profiles. As a tipping interlock, we hold off on raising
+ * if the drive profile will still be moving fast by the time the elevator gets tall.
+ */
+@Logged
+public class ElevatorPrepositioner {
+
+    // Start this much earlier than needed, to cover the time for the command to be scheduled and for the mechanisms to react
+    private static final double START_MARGIN = Constants.LOOP_TIME * 2;
+    // The same limits teleop driving uses: above the L3 preset, drivers are held to a quarter of max speed
+    private static final double TIPPING_HEIGHT = RobotContainer.SLOW_ELEVATOR_HEIGHT;
+    private static final double TIPPING_SPEED_LIMIT = RobotContainer.SLOW_ELEVATOR_SPEED_SCALE * DrivetrainSubsystem.MAX_SPEED;
+
+    @NotLogged
+    private final DrivetrainSubsystem drivetrain;
+    @NotLogged
+    private final ElevatorSubsystem elevator;
+    @NotLogged
+    private final ElevatorArmPivotSubsystem elevatorArmPivot;
+    @NotLogged
+    private final Supplier<Distance> targetHeightSupplier;
+
+    @NotLogged
+    private Pose2d latchedTargetPose = null;
+    private boolean started = false;
+    private double timeToArrival = 0;
+    private double mechanismTime = 0;
+    private boolean tippingLimited = false;
+
+    @NotLogged
+    public final Trigger shouldStart = new Trigger(this::shouldStart);
+
+    /**
+     * @param targetHeightSupplier Supplies the elevator preset we'll score at, or {@link ElevatorSubsystem#STOW} if none
+     */
+    public ElevatorPrepositioner(
+        DrivetrainSubsystem drivetrain,
+        ElevatorSubsystem elevator,
+        ElevatorArmPivotSubsystem elevatorArmPivot,
+        Supplier<Distance> targetHeightSupplier
+    ) {
+        this.drivetrain = drivetrain;
+        this.elevator = elevator;
+        this.elevatorArmPivot = elevatorArmPivot;
+        this.targetHeightSupplier = targetHeightSupplier;
+    }
+
+    /**
+     * Returns if the elevator and arm should start moving to their reef preset now. Once this returns true,
+     * it stays true until we stop targeting that reef pose, so a replanned drive profile can't make the
+     * elevator drop back down mid-approach.
+     */
+    private boolean shouldStart() {
+        Pose2d targetPose = drivetrain.getTargetPose();
+        if (!drivetrain.isTargetingReefPose()) {
+            latchedTargetPose = null;
+            started = false;
+            return false;
+        }
+
+        if (started && targetPose == latchedTargetPose) {
+            return true;
+        }
+        started = false;
+        latchedTargetPose = targetPose;
+
+        Distance targetHeight = targetHeightSupplier.get();
+        if (targetHeight == ElevatorSubsystem.STOW) {
+            return false;
+        }
+
+        timeToArrival = drivetrain.getTimeToTargetPose();
+        if (Double.isInfinite(timeToArrival)) {
+            return false;
+        }
+
+        double elevatorTime = elevator.estimateTravelTime(targetHeight);
+        double armTime = elevatorArmPivot.estimateTravelTime(ElevatorArmPivotSubsystem.presetPosition(targetHeight));
+        mechanismTime = Math.max(elevatorTime, armTime);
+
+        if (timeToArrival > mechanismTime + START_MARGIN) {
+            return false;
+        }
+
+        // Tipping interlock: check how fast we'll still be driving once the elevator passes the tipping height
+        tippingLimited = false;
+        double targetMeters = targetHeight.in(Meters);
+        if (targetMeters > TIPPING_HEIGHT && elevator.getPositionMeters() < TIPPING_HEIGHT) {
+            double timeToTippingHeight = ProfileTiming.accelerationTime(TIPPING_HEIGHT - elevator.getPositionMeters(),
+                                                                        ElevatorSubsystem.APPROXIMATE_CONSTRAINTS);
+            tippingLimited = drivetrain.getProfiledSpeedIn(timeToTippingHeight) > TIPPING_SPEED_LIMIT;
+        }
+
+        started = !tippingLimited;
+        return started;
+    }
+}
@@ -0,0 +1,215 @@
+package frc.robot.util;
+
+import edu.wpi.first.epilogue.Logged;
+import edu.wpi.first.epilogue.NotLogged;
+import edu.wpi.first.math.filter.Debouncer;
+
+/**
+ * Continuously fuses a mechanism's absolute sensor with its motor's relative encoder.
+ * <p>
+ * The relative encoder is precise but can drift or slip, and the absolute sensor is always right on average but noisy.
+ * The absolute sensor's reading is converted to mechanism rotations with {@code raw * scale - offset}. Every loop:
+ * <ul>
+ * <li>The residual (absolute minus relative) is watched for slip: a large residual that persists means the relative
+ * encoder has skipped, and it is reset to the absolute position as soon as the mechanism is still.</li>
+ * <li>While the mechanism is still, the residual is low-pass filtered, and small drift is corrected once the
+ * filtered residual passes a tolerance.</li>
+ * <li>Each time the mechanism settles, the relative distance moved since it last settled is compared to the absolute
+ * distance, which refines the scale. The offset is adjusted along with the scale, so the absolute position at the
+ * last sync doesn't move.</li>
+ * </ul>
+ */
+@Logged
+public class EncoderFusion {
+
+    // How quickly the still residual and the scale follow new samples
+    private static final double RESIDUAL_FILTER_GAIN = 0.1;
+    private static final double SCALE_GAIN = 0.2;
+    // Scale samples further than this from the current scale are treated as bad data
+    private static final double MAX_SCALE_CHANGE = 0.2;
+
+    @NotLogged
+    private final double driftTolerance;
+    @NotLogged
+    private final double slipThreshold;
+    @NotLogged
+    private final double stillVelocity;
+    @NotLogged
+    private final double minScaleSpan;
+    @NotLogged
+    private final Debouncer stillDebouncer = new Debouncer(0.2);
+    @NotLogged
+    private final Debouncer slipDebouncer = new Debouncer(0.25);
+
+    private double scale;
+    private double offset;
+    @NotLogged
+    private double anchorRaw = 0;
+    private boolean anchored = false;
+
+    @NotLogged
+    private double lastRelative = Double.NaN;
+    @NotLogged
+    private double lastTimestamp = Double.NaN;
+    private double velocity = 0;
+    private boolean still = false;
+    @NotLogged
+    private boolean wasStill = false;
+    @NotLogged
+    private double settledRaw = Double.NaN;
+    @NotLogged
+    private double settledRelative = Double.NaN;
+
+    private double residual = 0;
+    private double stillResidual = 0;
+    private boolean slipping = false;
+    private int slipCount = 0;
+    private int correctionCount = 0;
+
+    /**
+     * @param scale Initial scale from raw absolute units to mechanism rotations
+     * @param offset Initial offset, in mechanism rotations
+     * @param driftTolerance Drift smaller than this is left alone, in mechanism rotations
+     * @param slipThreshold Residuals larger than this are treated as slip, in mechanism rotations
+     * @param stillVelocity The mechanism counts as still below this speed, in mechanism rotations per second
+     * @param minScaleSpan Moves shorter than this aren't used to refine the scale, in mechanism rotations
+     */
+    public EncoderFusion(double scale, double offset, double driftTolerance, double slipThreshold,
+                         double stillVelocity, double minScaleSpan) {
+        this.scale = scale;
+        this.offset = offset;
+        this.driftTolerance = driftTolerance;
+        this.slipThreshold = slipThreshold;
+        this.stillVelocity = stillVelocity;
+        this.minScaleSpan = minScaleSpan;
+    }
+
+    /**
+     * Converts a raw absolute reading to mechanism rotations.
+     */
+    public double toMechanism(double raw) {
+        return raw * scale - offset;
+    }
+
+    /**
+     * Records that the relative encoder was just set to the absolute position, which starts fusion.
+     */
+    public void sync(double raw) {
+        anchorRaw = raw;
+        anchored = true;
+        settledRaw = Double.NaN;
+        stillResidual = 0;
+    }
+
+    /**
+     * Changes the offset so the given raw reading is at 0.
+     */
+    public void zeroAt(double raw) {
+        offset = raw * scale;
+    }
+
+    /**
+     * Updates the fusion with this loop's readings.
+     * @param timestamp When the relative position was measured, in seconds
+     * @param raw The raw absolute reading
+     * @param relative The relative encoder's position, in mechanism rotations
+     * @param absoluteValid Whether the absolute reading can be trusted
+     * @return The position to reset the relative encoder to, or NaN to leave it alone
+     */
+    public double update(double timestamp, double raw, double relative, boolean absoluteValid) {
+        // Loops don't run exactly a period apart, and a loop without a new frame says nothing about the velocity
+        double dt = timestamp - lastTimestamp;
+        if (Double.isNaN(lastRelative)) {
+            velocity = 0;
+        } else if (dt > 0) {
+            velocity = (relative - lastRelative) / dt;
+        }
+        if (Double.isNaN(lastRelative) || dt > 0) {
+            lastRelative = relative;
+            lastTimestamp = timestamp;
+        }
+        still = stillDebouncer.calculate(Math.abs(velocity) < stillVelocity);
+
+        if (!absoluteValid || !anchored) {
+            wasStill = false;
+            return Double.NaN;
+        }
+
+        residual = toMechanism(raw) - relative;
+        boolean wasSlipping = slipping;
+        slipping = slipDebouncer.calculate(Math.abs(residual) > slipThreshold);
+        if (slipping && !wasSlipping) slipCount++;
+
+        if (!still) {
+            wasStill = false;
+            return Double.NaN;
+        }
+
+        if (!wasStill) {
+            // Just settled, so compare how far each sensor says we've moved since we last settled
+            if (!slipping && !Double.isNaN(settledRaw)) {
+                refineScale(raw - settledRaw, relative - settledRelative);
+            }
+            settledRaw = raw;
+            settledRelative = relative;
+            stillResidual = 0;
+            wasStill = true;
+        }
+        stillResidual += RESIDUAL_FILTER_GAIN * (residual - stillResidual);
+
+        if (slipping || Math.abs(stillResidual) > driftTolerance) {
+            double corrected = toMechanism(raw);
+            correctionCount++;
+            settledRelative = corrected;
+            lastRelative = corrected;
+            stillResidual = 0;
+            return corrected;
+        }
+        return Double.NaN;
+    }
+
+    private void refineScale(double rawDelta, double relativeDelta) {
+        if (Math.abs(relativeDelta) < minScaleSpan || rawDelta == 0) return;
+
+        double sampleScale = relativeDelta / rawDelta;
+        if (Math.abs(sampleScale - scale) > Math.abs(scale) * MAX_SCALE_CHANGE) return;
+
+        double newScale = scale + SCALE_GAIN * (sampleScale - scale);
+        // Keep the absolute position at the last sync where it was
+        offset += (newScale - scale) * anchorRaw;
+        scale = newScale;
+    }
+
+    /**
+     * Returns the relative encoder's velocity, in mechanism rotations per second.
+     */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public double getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns true while the relative encoder disagrees with the absolute sensor by more than the slip threshold.
+     */
+    public boolean isSlipping() {
+        return slipping;
+    }
+
+    public int getSlipCount() {
+        return slipCount;
+    }
+
+    /**
+     * Returns how many times the relative encoder has been corrected, for drift or slip.
+     */
+    public int getCorrectionCount() {
+        return correctionCount;
+    }
+}
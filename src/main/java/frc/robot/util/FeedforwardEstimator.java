@@ -0,0 +1,265 @@
+package frc.robot.util;
+
+import edu.wpi.first.epilogue.Logged;
+import edu.wpi.first.epilogue.NotLogged;
+
+/**
+ * Fits elevator feedforward gains online with recursive least squares, using the model
+ * {@code voltage = kS * sign(velocity) + kG + kV * velocity + kA * acceleration}.
+ * <p>
+ * Samples are only used while the mechanism is clearly moving, the motor isn't saturated, and the feedback term is
+ * small. Samples at rest can't separate kS from kG, saturated samples don't follow the model, and samples where
+ * feedback is doing the work fit the controller's corrections to tracking error rather than the plant. Old samples
+ * are slowly forgotten, so the fit follows changes like battery sag.
+ * <p>
+ * The fit only counts as converged once it has seen enough samples in both directions and the samples it remembers
+ * pin down every gain, which is checked with the condition number of their normal matrix.
+ */
+@Logged
+public class FeedforwardEstimator {
+
+    private static final int N = 4;
+    private static final int KS = 0, KG = 1, KV = 2, KA = 3;
+
+    // Each sample's weight decays by this much per sample (a memory of ~500 samples, or 10 seconds of motion)
+    private static final double FORGETTING_FACTOR = 0.998;
+    private static final double INITIAL_VARIANCE = 10;
+    // Stops the covariance from growing without bound if the motion isn't exciting every gain
+    private static final double MAX_VARIANCE = 100;
+    // Above this, some combination of gains barely changes the predicted voltage, so the fit can't be trusted
+    private static final double MAX_CONDITION = 1000;
+    private static final int JACOBI_SWEEPS = 10;
+
+    @NotLogged
+    private final double minVelocity;
+    @NotLogged
+    private final double maxVoltage;
+    @NotLogged
+    private final double maxFeedbackVoltage;
+    @NotLogged
+    private final int minSamplesPerDirection;
+
+    @NotLogged
+    private final double[] theta = new double[N];
+    @NotLogged
+    private final double[][] covariance = new double[N][N];
+    @NotLogged
+    private final double[] phi = new double[N];
+    @NotLogged
+    private final double[] gain = new double[N];
+    @NotLogged
+    private final double[] pPhi = new double[N];
+    // Forgetting-weighted sum of phi * phi' over the used samples, without the initial covariance
+    @NotLogged
+    private final double[][] normal = new double[N][N];
+    @NotLogged
+    private final double[][] scaled = new double[N][N];
+    @NotLogged
+    private boolean conditionStale = true;
+    @NotLogged
+    private double condition = Double.POSITIVE_INFINITY;
+
+    private int upSamples = 0;
+    private int downSamples = 0;
+    private double lastError = 0;
+
+    /**
+     * @param kS Initial static gain (V)
+     * @param kG Initial gravity gain (V)
+     * @param kV Initial velocity gain (V per unit/s)
+     * @param kA Initial acceleration gain (V per unit/s²)
+     * @param minVelocity Samples slower than this (units/s) are ignored
+     * @param maxVoltage Samples with more voltage than this are ignored
+     * @param maxFeedbackVoltage Samples where the feedback term is more than this are ignored
+     * @param minSamplesPerDirection Samples needed both up and down before the fit is trusted
+     */
+    public FeedforwardEstimator(double kS, double kG, double kV, double kA, double minVelocity, double maxVoltage,
+                                double maxFeedbackVoltage, int minSamplesPerDirection) {
+        this.minVelocity = minVelocity;
+        this.maxVoltage = maxVoltage;
+        this.maxFeedbackVoltage = maxFeedbackVoltage;
+        this.minSamplesPerDirection = minSamplesPerDirection;
+        reset(kS, kG, kV, kA);
+    }
+
+    /**
+     * Restarts the fit from the given gains.
+     */
+    public void reset(double kS, double kG, double kV, double kA) {
+        theta[KS] = kS;
+        theta[KG] = kG;
+        theta[KV] = kV;
+        theta[KA] = kA;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                covariance[i][j] = i == j ? INITIAL_VARIANCE : 0;
+                normal[i][j] = 0;
+            }
+        }
+        upSamples = 0;
+        downSamples = 0;
+        conditionStale = true;
+    }
+
+    /**
+     * Adds a sample, if it's usable.
+     * @param voltage The voltage applied to the motor
+     * @param feedbackVoltage The part of the applied voltage from the feedback gains
+     * @param velocity The mechanism velocity
+     * @param acceleration The mechanism acceleration
+     * @return True if the sample was used
+     */
+    public boolean addSample(double voltage, double feedbackVoltage, double velocity, double acceleration) {
+        if (Math.abs(velocity) < minVelocity || Math.abs(voltage) > maxVoltage) return false;
+        if (Math.abs(feedbackVoltage) > maxFeedbackVoltage) return false;
+        if (!Double.isFinite(voltage) || !Double.isFinite(velocity) || !Double.isFinite(acceleration)) return false;
+
+        phi[KS] = Math.signum(velocity);
+        phi[KG] = 1;
+        phi[KV] = velocity;
+        phi[KA] = acceleration;
+
+        // gain = P * phi / (lambda + phi' * P * phi)
+        double denominator = FORGETTING_FACTOR;
+        for (int i = 0; i < N; i++) {
+            pPhi[i] = 0;
+            for (int j = 0; j < N; j++) {
+                pPhi[i] += covariance[i][j] * phi[j];
+            }
+            denominator += phi[i] * pPhi[i];
+        }
+        double predicted = 0;
+        for (int i = 0; i < N; i++) {
+            gain[i] = pPhi[i] / denominator;
+            predicted += phi[i] * theta[i];
+        }
+
+        lastError = voltage - predicted;
+        for (int i = 0; i < N; i++) {
+            theta[i] += gain[i] * lastError;
+        }
+
+        // P = (P - gain * phi' * P) / lambda. P is symmetric, so phi' * P = pPhi'.
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                covariance[i][j] = (covariance[i][j] - gain[i] * pPhi[j]) / FORGETTING_FACTOR;
+                normal[i][j] = FORGETTING_FACTOR * normal[i][j] + phi[i] * phi[j];
+            }
+        }
+        conditionStale = true;
+        for (int i = 0; i < N; i++) {
+            if (covariance[i][i] > MAX_VARIANCE) {
+                double scale = Math.sqrt(MAX_VARIANCE / covariance[i][i]);
+                for (int j = 0; j < N; j++) {
+                    covariance[i][j] *= scale;
+                    covariance[j][i] *= scale;
+                }
+            }
+        }
+
+        if (velocity > 0) {
+            upSamples++;
+        } else {
+            downSamples++;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true once the fit has seen enough motion in both directions to be trusted.
+     */
+    public boolean isConverged() {
+        return upSamples >= minSamplesPerDirection && downSamples >= minSamplesPerDirection
+            && getCondition() <= MAX_CONDITION;
+    }
+
+    /**
+     * Returns the condition number of the remembered samples' normal matrix, with each gain's column scaled to unit
+     * size so the units of velocity and acceleration don't matter. Infinite until every gain has been excited.
+     */
+    public double getCondition() {
+        if (!conditionStale) return condition;
+        conditionStale = false;
+
+        for (int i = 0; i < N; i++) {
+            if (normal[i][i] <= 0) return condition = Double.POSITIVE_INFINITY;
+        }
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                scaled[i][j] = normal[i][j] / Math.sqrt(normal[i][i] * normal[j][j]);
+            }
+        }
+        symmetricEigenvalues(scaled);
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = 0;
+        for (int i = 0; i < N; i++) {
+            min = Math.min(min, scaled[i][i]);
+            max = Math.max(max, scaled[i][i]);
+        }
+        return condition = min > 0 ? max / min : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Diagonalizes a symmetric matrix in place with cyclic Jacobi rotations, leaving its eigenvalues on the diagonal.
+     */
+    private static void symmetricEigenvalues(double[][] a) {
+        for (int sweep = 0; sweep < JACOBI_SWEEPS; sweep++) {
+            for (int p = 0; p < N - 1; p++) {
+                for (int q = p + 1; q < N; q++) {
+                    if (a[p][q] == 0) continue;
+
+                    double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+                    double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    if (theta == 0) t = 1;
+                    double c = 1 / Math.sqrt(t * t + 1);
+                    double s = t * c;
+
+                    for (int k = 0; k < N; k++) {
+                        double akp = a[k][p];
+                        double akq = a[k][q];
+                        a[k][p] = c * akp - s * akq;
+                        a[k][q] = s * akp + c * akq;
+                    }
+                    for (int k = 0; k < N; k++) {
+                        double apk = a[p][k];
+                        double aqk = a[q][k];
+                        a[p][k] = c * apk - s * aqk;
+                        a[q][k] = s * apk + c * aqk;
+                    }
+                }
+            }
+        }
+    }
+
+    public double getKS() {
+        return theta[KS];
+    }
+
+    public double getKG() {
+        return theta[KG];
+    }
+
+    public double getKV() {
+        return theta[KV];
+    }
+
+    public double getKA() {
+        return theta[KA];
+    }
+
+    /**
+     * Returns the model's error on the last sample, in volts.
+     */
+    public double getLastError() {
+        return lastError;
+    }
+
+    public int getUpSamples() {
+        return upSamples;
+    }
+
+    public int getDownSamples() {
+        return downSamples;
+    }
+}
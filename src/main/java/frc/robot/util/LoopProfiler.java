@@ -0,0 +1,294 @@
+package frc.robot.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import edu.wpi.first.epilogue.Logged;
+import edu.wpi.first.epilogue.NotLogged;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.robot.Constants;
+
+/**
+ * Always-on profiler for the main robot loop. Records the wall time of each subsystem's periodic, the trigger poll,
+ * each scheduled command, the Epilogue logging pass and the status signal refresh into preallocated
+ * histograms, and publishes p50/p99/max for each item over a rolling window.
+ * <p>
+ * Each subsystem's periodic is wrapped with {@link #profile} (usually by extending {@link ProfiledSubsystemBase}), so
+ * the profiler doesn't depend on the order the scheduler runs subsystems in. The trigger poll is timed between a binding made when the profiler is
+ * created and one made after all other bindings. Commands are timed from the scheduler's callbacks: a command's
+ * item runs from the end of the previous command (or the poll) to its execute callback, and a command that finishes
+ * also gets the time until its finish callback, so its isFinished() and end() are counted with it. The only thing
+ * counted with the next command instead is isFinished() of a command that keeps running, which is normally a simple
+ * check.
+ */
+@Logged
+public class LoopProfiler {
+
+    // Histogram resolution and range. Anything slower than the range lands in the last bin, but max is still exact.
+    private static final double BIN_MS = 0.1;
+    private static final int BINS = 500;
+    private static final int MAX_ITEMS = 64;
+    // Stats are computed over windows of this many loops
+    private static final int WINDOW_LOOPS = 250;
+    private static final double OVERRUN_MS = Constants.LOOP_TIME * 1000;
+    // Keep the overrun alert up for this long, so it can be seen on the dashboard
+    private static final int ALERT_HOLD_LOOPS = 100;
+
+    private static LoopProfiler instance;
+
+    @NotLogged
+    private final String[] itemNames = new String[MAX_ITEMS];
+    @NotLogged
+    private final int[][] histograms = new int[MAX_ITEMS][BINS];
+    @NotLogged
+    private final int[] counts = new int[MAX_ITEMS];
+    @NotLogged
+    private final long[] maxNanos = new long[MAX_ITEMS];
+    // Time spent in each item during the current loop, to find the top offender of an overrun
+    @NotLogged
+    private final long[] loopNanos = new long[MAX_ITEMS];
+    @NotLogged
+    private int itemCount = 0;
+
+    // Keyed by name, since commands like Commands.runOnce() are often created fresh each time they're scheduled
+    @NotLogged
+    private final Map<String, Integer> commandItems = new HashMap<>();
+    @NotLogged
+    private final int loopItem, refreshItem, pollItem, epilogueItem, otherCommandsItem;
+
+    @NotLogged
+    private final Alert overrunAlert = new Alert("", AlertType.kWarning);
+    @NotLogged
+    private int alertLoops = 0;
+
+    @NotLogged
+    private long loopStart = 0;
+    @NotLogged
+    private long lastMark = 0;
+    @NotLogged
+    private int windowLoops = 0;
+
+    private String[] names = new String[0];
+    private double[] p50 = new double[0];
+    private double[] p99 = new double[0];
+    private double[] max = new double[0];
+    private double lastLoopMs = 0;
+    private int overruns = 0;
+
+    /**
+     * Returns the profiler, creating it the first time. Like the command scheduler it hooks into, there's only one.
+     */
+    public static LoopProfiler getInstance() {
+        if (instance == null) {
+            instance = new LoopProfiler();
+        }
+        return instance;
+    }
+
+    private LoopProfiler() {
+        loopItem = addItem("Loop");
+        refreshItem = addItem("StatusSignals.refreshAll()");
+        pollItem = addItem("Trigger poll");
+        epilogueItem = addItem("Epilogue");
+        otherCommandsItem = addItem("Other commands");
+
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        scheduler.onCommandExecute(this::markCommand);
+        scheduler.onCommandFinish(this::markCommand);
+        // Bound before the robot's triggers, to mark the start of the poll
+        scheduler.getDefaultButtonLoop().bind(() -> lastMark = System.nanoTime());
+    }
+
+    /**
+     * Adds an item for a subsystem's periodic.
+     * @param periodic The subsystem's periodic work
+     * @return The periodic work, recording its time under the new item each time it runs
+     */
+    public Runnable profile(Subsystem subsystem, Runnable periodic) {
+        int item = addItem(subsystem.getName() + ".periodic()");
+        return () -> {
+            long start = System.nanoTime();
+            periodic.run();
+            record(item, System.nanoTime() - start);
+        };
+    }
+
+    private int addItem(String name) {
+        if (itemCount >= MAX_ITEMS) {
+            throw new IllegalStateException("Too many profiled items (max " + MAX_ITEMS + ")");
+        }
+        itemNames[itemCount] = name;
+        return itemCount++;
+    }
+
+    /**
+     * Marks the end of the trigger poll. This must be called after all other triggers have been bound.
+     */
+    public void bindPollEnd() {
+        CommandScheduler.getInstance().getDefaultButtonLoop().bind(() -> mark(pollItem));
+    }
+
+    /**
+     * Call at the start of each loop.
+     */
+    public void startLoop() {
+        loopStart = System.nanoTime();
+        lastMark = loopStart;
+        // Epilogue runs between loops, so keep its most recent pass
+        long epilogueNanos = loopNanos[epilogueItem];
+        Arrays.fill(loopNanos, 0, itemCount, 0);
+        loopNanos[epilogueItem] = epilogueNanos;
+    }
+
+    /**
+     * Starts timing a section of code.
+     * @return The start time to pass to {@link #stopRefresh} or {@link #stopEpilogue}
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stopRefresh(long start) {
+        record(refreshItem, System.nanoTime() - start);
+    }
+
+    public void stopEpilogue(long start) {
+        loopNanos[epilogueItem] = 0;
+        record(epilogueItem, System.nanoTime() - start);
+    }
+
+    /**
+     * Call at the end of each loop. Checks for an overrun (counting the most recent Epilogue pass as part of the loop)
+     * and updates the published stats.
+     */
+    public void endLoop() {
+        long loopTime = System.nanoTime() - loopStart + loopNanos[epilogueItem];
+        record(loopItem, loopTime);
+        lastLoopMs = loopTime / 1e6;
+
+        if (lastLoopMs > OVERRUN_MS) {
+            overruns++;
+            int worst = -1;
+            for (int i = 0; i < itemCount; i++) {
+                if (i != loopItem && (worst == -1 || loopNanos[i] > loopNanos[worst])) worst = i;
+            }
+            overrunAlert.setText(String.format("Loop overrun (%.1f ms) - slowest: %s (%.1f ms)",
+                                    lastLoopMs, itemNames[worst], loopNanos[worst] / 1e6));
+            alertLoops = ALERT_HOLD_LOOPS;
+        }
+        overrunAlert.set(alertLoops > 0);
+        if (alertLoops > 0) alertLoops--;
+
+        if (++windowLoops >= WINDOW_LOOPS) {
+            publish();
+            windowLoops = 0;
+        }
+    }
+
+    private void markCommand(Command command) {
+        String name = command.getName();
+        Integer item = commandItems.get(name);
+        if (item == null) {
+            if (itemCount >= MAX_ITEMS) {
+                // Not cached, so the map can't grow once the items run out
+                mark(otherCommandsItem);
+                return;
+            }
+            item = addItem(name);
+            commandItems.put(name, item);
+        }
+        mark(item);
+    }
+
+    /**
+     * Records the time since the last mark as a section of the given item.
+     */
+    private void mark(int item) {
+        long now = System.nanoTime();
+        record(item, now - lastMark);
+        lastMark = now;
+    }
+
+    private void record(int item, long nanos) {
+        int bin = (int) (nanos / (BIN_MS * 1e6));
+        histograms[item][Math.min(bin, BINS - 1)]++;
+        counts[item]++;
+        maxNanos[item] = Math.max(maxNanos[item], nanos);
+        loopNanos[item] += nanos;
+    }
+
+    /**
+     * Computes the stats for the current window, then starts a new window.
+     */
+    private void publish() {
+        if (names.length != itemCount) {
+            names = Arrays.copyOf(itemNames, itemCount);
+            p50 = new double[itemCount];
+            p99 = new double[itemCount];
+            max = new double[itemCount];
+        }
+
+        for (int i = 0; i < itemCount; i++) {
+            p50[i] = percentile(i, 0.5);
+            p99[i] = percentile(i, 0.99);
+            max[i] = maxNanos[i] / 1e6;
+
+            Arrays.fill(histograms[i], 0);
+            counts[i] = 0;
+            maxNanos[i] = 0;
+        }
+    }
+
+    /**
+     * Returns the given percentile of an item's window, in milliseconds (to the upper edge of the bin).
+     */
+    private double percentile(int item, double percentile) {
+        int count = counts[item];
+        if (count == 0) return 0;
+
+        int target = (int) Math.ceil(count * percentile);
+        int seen = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            seen += histograms[item][bin];
+            if (seen >= target) return (bin + 1) * BIN_MS;
+        }
+        return BINS * BIN_MS;
+    }
+
+    public String[] getNames() {
+        return names;
+    }
+
+    /**
+     * Median time of each item over the last window, in milliseconds.
+     */
+    public double[] getP50() {
+        return p50;
+    }
+
+    /**
+     * 99th percentile time of each item over the last window, in milliseconds.
+     */
+    public double[] getP99() {
+        return p99;
+    }
+
+    /**
+     * Max time of each item over the last window, in milliseconds.
+     */
+    public double[] getMax() {
+        return max;
+    }
+
+    public double getLastLoopMs() {
+        return lastLoopMs;
+    }
+
+    public int getOverruns() {
+        return overruns;
+    }
+}
@@ -0,0 +1,163 @@
+package frc.robot.util;
+
+import com.ctre.phoenix6.swerve.SwerveDrivetrain.SwerveDriveState;
+import edu.wpi.first.epilogue.Logged;
+import edu.wpi.first.epilogue.NotLogged;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.filter.LinearFilter;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Predicts where the robot will be a short time in the future, from its current field-relative velocity and
+ * acceleration and its angular velocity. Acceleration is measured from the drivetrain's high-rate odometry history.
+ * <p>
+ * Acceleration is assumed to stay constant until the robot either reaches max speed or brakes to a stop, so
+ * a robot that is slowing down into a target is predicted to stop rather than reverse.
+ */
+@Logged
+public class PosePredictor {
+
+    /**
+     * A mutable pose, so predictions can be made every loop without allocating.
+     */
+    public static class PredictedPose {
+        public double x = 0;
+        public double y = 0;
+        public double theta = 0;
+
+        public double getDistance(Translation2d translation) {
+            return Math.hypot(translation.getX() - x, translation.getY() - y);
+        }
+
+        /**
+         * Same as {@link com.spamrobotics.util.Helpers#withinTolerance(Pose2d, Pose2d, Double, Double, Double)},
+         * using this predicted pose.
+         */
+        public boolean withinTolerance(Pose2d targetPose, Double xMeters, Double yMeters, Double degrees) {
+            if (targetPose == null) return false;
+
+            if (xMeters != null && Math.abs(x - targetPose.getX()) > xMeters) return false;
+            if (yMeters != null && Math.abs(y - targetPose.getY()) > yMeters) return false;
+            if (degrees == null) return true;
+
+            double radiansDiff = MathUtil.angleModulus(theta - targetPose.getRotation().getRadians());
+            return Math.abs(Math.toDegrees(radiansDiff)) <= degrees;
+        }
+
+        /**
+         * Converts this prediction to a Pose2d. This allocates, so it should only be used for logging.
+         */
+        public Pose2d toPose2d() {
+            return new Pose2d(x, y, new Rotation2d(theta));
+        }
+    }
+
+    private static final int SUBSTEPS = 5;
+
+    @NotLogged
+    private final double maxSpeed;
+    @NotLogged
+    private final LinearFilter accelXFilter, accelYFilter;
+
+    @NotLogged
+    private double x = 0, y = 0, theta = 0;
+    private double velocityX = 0;
+    private double velocityY = 0;
+    private double angularVelocity = 0;
+    private double accelX = 0;
+    private double accelY = 0;
+
+    /**
+     * @param maxSpeed The max speed of the robot, in meters per second. Predictions won't exceed this speed.
+     * @param period The time between calls to {@link #update}, in seconds
+     */
+    public PosePredictor(double maxSpeed, double period) {
+        this.maxSpeed = maxSpeed;
+        accelXFilter = LinearFilter.singlePoleIIR(0.05, period);
+        accelYFilter = LinearFilter.singlePoleIIR(0.05, period);
+    }
+
+    /**
+     * Updates the predictor with the latest drivetrain state.
+     * @param state The latest drivetrain state
+     * @param previous An older drivetrain state to measure acceleration against, or null if there isn't one
+     */
+    public void update(SwerveDriveState state, SwerveDriveState previous) {
+        x = state.Pose.getX();
+        y = state.Pose.getY();
+        theta = state.Pose.getRotation().getRadians();
+        angularVelocity = state.Speeds.omegaRadiansPerSecond;
+
+        double cos = state.Pose.getRotation().getCos();
+        double sin = state.Pose.getRotation().getSin();
+        velocityX = state.Speeds.vxMetersPerSecond * cos - state.Speeds.vyMetersPerSecond * sin;
+        velocityY = state.Speeds.vxMetersPerSecond * sin + state.Speeds.vyMetersPerSecond * cos;
+
+        double dt = previous == null ? 0 : state.Timestamp - previous.Timestamp;
+        if (dt <= 1e-3) {
+            return;
+        }
+
+        double previousCos = previous.Pose.getRotation().getCos();
+        double previousSin = previous.Pose.getRotation().getSin();
+        double previousVelocityX = previous.Speeds.vxMetersPerSecond * previousCos - previous.Speeds.vyMetersPerSecond * previousSin;
+        double previousVelocityY = previous.Speeds.vxMetersPerSecond * previousSin + previous.Speeds.vyMetersPerSecond * previousCos;
+        accelX = accelXFilter.calculate((velocityX - previousVelocityX) / dt);
+        accelY = accelYFilter.calculate((velocityY - previousVelocityY) / dt);
+    }
+
+    /**
+     * Predicts the robot's pose in the future.
+     * @param horizon How far in the future to predict, in seconds
+     * @param out The pose to write the prediction into
+     * @return {@code out}, for chaining
+     */
+    public PredictedPose predict(double horizon, PredictedPose out) {
+        double dt = horizon / SUBSTEPS;
+        double px = x;
+        double py = y;
+        double vx = velocityX;
+        double vy = velocityY;
+        boolean accelerating = true;
+        boolean braking = accelX * vx + accelY * vy < 0;
+
+        for (int i = 0; i < SUBSTEPS; i++) {
+            double nextVx = vx;
+            double nextVy = vy;
+            if (accelerating) {
+                nextVx += accelX * dt;
+                nextVy += accelY * dt;
+
+                if (braking && nextVx * vx + nextVy * vy <= 0) {
+                    // Braking would reverse our direction, so assume we come to a stop partway through this step
+                    double closingAccel = -(accelX * vx + accelY * vy);
+                    double stopTime = closingAccel > 0 ? Math.min(dt, (vx * vx + vy * vy) / closingAccel) : 0;
+                    px += vx * 0.5 * stopTime;
+                    py += vy * 0.5 * stopTime;
+                    vx = 0;
+                    vy = 0;
+                    accelerating = false;
+                    continue;
+                }
+
+                double speed = Math.hypot(nextVx, nextVy);
+                if (speed > maxSpeed) {
+                    nextVx *= maxSpeed / speed;
+                    nextVy *= maxSpeed / speed;
+                }
+            }
+
+            px += (vx + nextVx) * 0.5 * dt;
+            py += (vy + nextVy) * 0.5 * dt;
+            vx = nextVx;
+            vy = nextVy;
+        }
+
+        out.x = px;
+        out.y = py;
+        out.theta = MathUtil.angleModulus(theta + angularVelocity * horizon);
+        return out;
+    }
+}
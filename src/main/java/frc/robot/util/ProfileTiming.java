@@ -0,0 +1,36 @@
+package frc.robot.util;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+
+/**
+ * Closed-form timing of trapezoid motion profiles, for estimating how long a move will take without running the
+ * profile.
+ */
+public final class ProfileTiming {
+
+    private ProfileTiming() {}
+
+    /**
+     * Returns the time a trapezoid profile starting and ending at rest takes to cover a distance.
+     */
+    public static double profileTime(double distance, TrapezoidProfile.Constraints constraints) {
+        double accelDistance = constraints.maxVelocity * constraints.maxVelocity / constraints.maxAcceleration;
+        if (distance < accelDistance) {
+            // Triangular profile, we never reach max velocity
+            return 2 * Math.sqrt(distance / constraints.maxAcceleration);
+        }
+        return distance / constraints.maxVelocity + constraints.maxVelocity / constraints.maxAcceleration;
+    }
+
+    /**
+     * Returns the time a trapezoid profile starting at rest takes to cover a distance, without slowing down at the
+     * end (i.e. when the distance is only part of a longer move).
+     */
+    public static double accelerationTime(double distance, TrapezoidProfile.Constraints constraints) {
+        double accelDistance = constraints.maxVelocity * constraints.maxVelocity / (2 * constraints.maxAcceleration);
+        if (distance < accelDistance) {
+            return Math.sqrt(2 * distance / constraints.maxAcceleration);
+        }
+        return constraints.maxVelocity / constraints.maxAcceleration + (distance - accelDistance) / constraints.maxVelocity;
+    }
+}
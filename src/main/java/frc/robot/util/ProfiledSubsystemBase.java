@@ -0,0 +1,22 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+/**
+ * A subsystem whose periodic is timed by the {@link LoopProfiler}. Put the periodic work in
+ * {@link #profiledPeriodic()} instead of overriding periodic().
+ */
+public abstract class ProfiledSubsystemBase extends SubsystemBase {
+
+    private final Runnable periodic = LoopProfiler.getInstance().profile(this, this::profiledPeriodic);
+
+    @Override
+    public final void periodic() {
+        periodic.run();
+    }
+
+    /**
+     * This method is called periodically by the scheduler, and timed by the loop profiler.
+     */
+    protected void profiledPeriodic() {}
+}
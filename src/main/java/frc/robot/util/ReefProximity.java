@@ -25,6 +25,10 @@ public class ReefProximity {
     }
 
     public Entry<Integer, Pose2d> closestReefPose(Pose2d position, List<Integer> tagOptions) {
+        return closestReefPose(position.getX(), position.getY(), tagOptions);
+    }
+
+    public Entry<Integer, Pose2d> closestReefPose(double x, double y, List<Integer> tagOptions) {
         double currentDistance = Double.MAX_VALUE;
         Entry<Integer, Pose2d> closest = null;
 
@@ -34,7 +38,8 @@ public class ReefProximity {
                 continue;
             }
 
-            double distance = position.getTranslation().getDistance(entry.getValue().getTranslation());
+            Pose2d reefPose = entry.getValue();
+            double distance = Math.hypot(reefPose.getX() - x, reefPose.getY() - y);
             if (distance < currentDistance) {
                 currentDistance = distance;
                 closest = entry;
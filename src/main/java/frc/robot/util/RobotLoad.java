@@ -0,0 +1,19 @@
+package frc.robot.util;
+
+/**
+ * What the robot is carrying, which sets how aggressively the elevator and arm can move.
+ */
+public enum RobotLoad {
+    EMPTY,
+    CORAL,
+    ALGAE;
+
+    /**
+     * Returns the load for the given game pieces. Algae takes priority, since it's the heavier load.
+     */
+    public static RobotLoad of(boolean hasCoral, boolean hasAlgae) {
+        if (hasAlgae) return ALGAE;
+        if (hasCoral) return CORAL;
+        return EMPTY;
+    }
+}
@@ -0,0 +1,171 @@
+package frc.robot.util;
+
+import com.ctre.phoenix6.swerve.SwerveDrivetrain.SwerveDriveState;
+import edu.wpi.first.epilogue.Logged;
+import edu.wpi.first.epilogue.NotLogged;
+import edu.wpi.first.math.filter.Debouncer;
+import edu.wpi.first.math.filter.Debouncer.DebounceType;
+import edu.wpi.first.math.filter.LinearFilter;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Detects when wheel odometry has likely diverged from the robot's actual motion, either from wheels slipping or
+ * from the robot being pushed (collisions, defense, pushing partners).
+ * <p>
+ * Two checks are used:
+ * <ul>
+ *   <li><b>Kinematic fit</b>: the module velocities are compared against the rigid-body motion that best fits them.
+ *   If the modules disagree with each other (one wheel spinning out, or being dragged sideways), the fit residual grows.</li>
+ *   <li><b>Acceleration</b>: the acceleration measured by the gyro's accelerometer is compared against the
+ *   acceleration the drivetrain was commanded to make. Wheels that slip still follow the command, so they can't be
+ *   compared against themselves. A commanded acceleration the chassis doesn't actually have (or a chassis
+ *   acceleration from a hit that wasn't commanded) means a mismatch.</li>
+ * </ul>
+ * Detections are held for a short time so the pose estimator has time to be corrected by vision.
+ */
+@Logged
+public class SlipDetector {
+
+    private static final double GRAVITY = 9.80665;
+    // Meters per second of disagreement between a module and the kinematic fit
+    private static final double FIT_RESIDUAL_THRESHOLD = 0.5;
+    // Meters per second squared of disagreement between the accelerometer and the commanded acceleration
+    private static final double ACCEL_ERROR_THRESHOLD = 4;
+    private static final double HOLD_TIME = 0.5;
+    // Commands further apart than this are too old to differentiate, or were replaced by requests without speeds
+    private static final double MAX_COMMAND_GAP = 0.1;
+
+    @NotLogged
+    private final Translation2d[] moduleLocations;
+    @NotLogged
+    private final double maxAccel;
+    @NotLogged
+    private final LinearFilter accelXFilter, accelYFilter;
+    @NotLogged
+    private final Debouncer slipDebouncer = new Debouncer(HOLD_TIME, DebounceType.kFalling);
+
+    @NotLogged
+    private double lastCommandVx = 0;
+    @NotLogged
+    private double lastCommandVy = 0;
+    @NotLogged
+    private double lastCommandTime = Double.NaN;
+
+    private double commandedAccelX = Double.NaN;
+    private double commandedAccelY = Double.NaN;
+    private double fitResidual = 0;
+    private double accelError = 0;
+    private boolean slipping = false;
+    private int slipEvents = 0;
+
+    /**
+     * @param moduleLocations The locations of the modules relative to the center of the robot
+     * @param maxAccel The most the drivetrain can accelerate, in meters per second squared. Commands asking for more
+     * (like a joystick flick) are limited to this, since the wheels can't follow them whether or not they slip.
+     */
+    public SlipDetector(Translation2d[] moduleLocations, double maxAccel) {
+        this.moduleLocations = moduleLocations;
+        this.maxAccel = maxAccel;
+        // The accelerometer is noisy, so filter its difference from the command
+        accelXFilter = LinearFilter.movingAverage(3);
+        accelYFilter = LinearFilter.movingAverage(3);
+    }
+
+    /**
+     * Records the robot-relative speeds the drivetrain was just commanded to. The commanded acceleration is measured
+     * over the time between commands, so loop overruns don't look like slip.
+     * @param speeds The commanded robot-relative speeds
+     * @param timestamp The FPGA time of the command, in seconds
+     */
+    public void command(ChassisSpeeds speeds, double timestamp) {
+        double vx = speeds.vxMetersPerSecond;
+        double vy = speeds.vyMetersPerSecond;
+        double dt = timestamp - lastCommandTime;
+        if (Double.isNaN(lastCommandTime) || dt > MAX_COMMAND_GAP) {
+            commandedAccelX = Double.NaN;
+            commandedAccelY = Double.NaN;
+        } else if (dt > 0) {
+            // The accelerometer is robot-relative, so this needs the term from the frame rotating
+            double accelX = (vx - lastCommandVx) / dt - speeds.omegaRadiansPerSecond * vy;
+            double accelY = (vy - lastCommandVy) / dt + speeds.omegaRadiansPerSecond * vx;
+            double scale = Math.min(1, maxAccel / Math.hypot(accelX, accelY));
+            commandedAccelX = accelX * scale;
+            commandedAccelY = accelY * scale;
+        }
+        lastCommandVx = vx;
+        lastCommandVy = vy;
+        // A second command in the same instant replaces the first, measured from the same starting point
+        if (!(dt <= 0)) lastCommandTime = timestamp;
+    }
+
+    /**
+     * Updates the detector with the latest drivetrain state.
+     * @param state The latest drivetrain state
+     * @param imuAccelX The robot-relative X acceleration measured by the gyro, in g, or NaN if unavailable
+     * @param imuAccelY The robot-relative Y acceleration measured by the gyro, in g, or NaN if unavailable
+     * @param timestamp The current FPGA time, in seconds
+     * @return If slip or a collision is currently detected (including the hold time)
+     */
+    public boolean update(SwerveDriveState state, double imuAccelX, double imuAccelY, double timestamp) {
+        double vx = state.Speeds.vxMetersPerSecond;
+        double vy = state.Speeds.vyMetersPerSecond;
+        double omega = state.Speeds.omegaRadiansPerSecond;
+
+        // Speeds is the least-squares fit of the module states, so compare each module against it
+        fitResidual = 0;
+        SwerveModuleState[] modules = state.ModuleStates;
+        for (int i = 0; i < modules.length; i++) {
+            double fitX = vx - omega * moduleLocations[i].getY();
+            double fitY = vy + omega * moduleLocations[i].getX();
+            double measuredX = modules[i].speedMetersPerSecond * modules[i].angle.getCos();
+            double measuredY = modules[i].speedMetersPerSecond * modules[i].angle.getSin();
+            fitResidual = Math.max(fitResidual, Math.hypot(measuredX - fitX, measuredY - fitY));
+        }
+
+        // Without a recent command with speeds (e.g. braking or characterizing), there's nothing to compare against
+        boolean commandFresh = timestamp - lastCommandTime <= MAX_COMMAND_GAP;
+        if (!commandFresh || Double.isNaN(commandedAccelX) || Double.isNaN(imuAccelX) || Double.isNaN(imuAccelY)) {
+            accelError = 0;
+            accelXFilter.reset();
+            accelYFilter.reset();
+        } else {
+            double errorX = accelXFilter.calculate(commandedAccelX - imuAccelX * GRAVITY);
+            double errorY = accelYFilter.calculate(commandedAccelY - imuAccelY * GRAVITY);
+            accelError = Math.hypot(errorX, errorY);
+        }
+
+        boolean detected = fitResidual > FIT_RESIDUAL_THRESHOLD || accelError > ACCEL_ERROR_THRESHOLD;
+        boolean wasSlipping = slipping;
+        slipping = slipDebouncer.calculate(detected);
+        if (slipping && !wasSlipping) {
+            slipEvents++;
+        }
+        return slipping;
+    }
+
+    public boolean isSlipping() {
+        return slipping;
+    }
+
+    public int getSlipEvents() {
+        return slipEvents;
+    }
+
+    public double getFitResidual() {
+        return fitResidual;
+    }
+
+    public double getCommandedAccelX() {
+        return commandedAccelX;
+    }
+
+    public double getCommandedAccelY() {
+        return commandedAccelY;
+    }
+
+    public double getAccelError() {
+        return accelError;
+    }
+}
@@ -0,0 +1,175 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+
+/**
+ * A table-driven state machine. Transitions are checked in the order they were added, and at most one transition
+ * happens per loop, so the outcome of a loop doesn't depend on the order triggers happen to be polled in.
+ * <p>
+ * Each guard is evaluated exactly once per loop, even if several transitions share it, so stateful guards
+ * (like debounced triggers) behave the same as if they were bound directly.
+ * <p>
+ * The machine registers itself with the {@link CommandScheduler} so it updates after every subsystem created before
+ * it has run its periodic, but before any triggers are polled. Commands bound to {@link #isState} therefore start
+ * on the same loop as the transition. Every transition is written to the data log, timestamped by the log.
+ */
+public class StateMachine<S extends Enum<S>> implements Subsystem {
+
+    private static class Transition<S> {
+        final S to;
+        final int guardIndex;
+        final boolean guardValue;
+
+        Transition(S to, int guardIndex, boolean guardValue) {
+            this.to = to;
+            this.guardIndex = guardIndex;
+            this.guardValue = guardValue;
+        }
+    }
+
+    private final String name;
+    private final EnumMap<S, List<Transition<S>>> transitions;
+    private final EnumMap<S, Trigger> stateTriggers;
+    private final Map<BooleanSupplier, Integer> guardIndices = new IdentityHashMap<>();
+    private final List<BooleanSupplier> guards = new ArrayList<>();
+    private boolean[] guardValues = new boolean[0];
+
+    private S state;
+    private double stateStartTime;
+    private int transitionCount = 0;
+    private StringLogEntry stateLog = null;
+    private StringLogEntry transitionLog = null;
+
+    /**
+     * @param name The name to log the state and transitions under
+     * @param type The state enum class
+     * @param initialState The state to start in
+     */
+    public StateMachine(String name, Class<S> type, S initialState) {
+        this.name = name;
+        this.transitions = new EnumMap<>(type);
+        this.stateTriggers = new EnumMap<>(type);
+        for (S s : type.getEnumConstants()) {
+            transitions.put(s, new ArrayList<>());
+            stateTriggers.put(s, new Trigger(() -> state == s));
+        }
+        this.state = initialState;
+        this.stateStartTime = Timer.getFPGATimestamp();
+
+        CommandScheduler.getInstance().registerSubsystem(this);
+    }
+
+    /**
+     * Adds a transition that happens when the guard is true.
+     * @return This state machine, for chaining
+     */
+    public StateMachine<S> addTransition(S from, S to, BooleanSupplier guard) {
+        return addTransition(from, to, guard, true);
+    }
+
+    /**
+     * Adds a transition that happens when the guard is false.
+     * @return This state machine, for chaining
+     */
+    public StateMachine<S> addTransitionUnless(S from, S to, BooleanSupplier guard) {
+        return addTransition(from, to, guard, false);
+    }
+
+    private StateMachine<S> addTransition(S from, S to, BooleanSupplier guard, boolean guardValue) {
+        if (from == to) {
+            throw new IllegalArgumentException("Transition from " + from + " to itself is not allowed");
+        }
+
+        Integer index = guardIndices.get(guard);
+        if (index == null) {
+            index = guards.size();
+            guards.add(guard);
+            guardIndices.put(guard, index);
+            guardValues = new boolean[guards.size()];
+        }
+        transitions.get(from).add(new Transition<>(to, index, guardValue));
+        return this;
+    }
+
+    @Override
+    public void periodic() {
+        update();
+    }
+
+    /**
+     * Evaluates every guard once, then takes the first matching transition out of the current state (if any).
+     * This is called automatically by the scheduler.
+     */
+    public void update() {
+        for (int i = 0; i < guards.size(); i++) {
+            guardValues[i] = guards.get(i).getAsBoolean();
+        }
+
+        List<Transition<S>> options = transitions.get(state);
+        for (int i = 0; i < options.size(); i++) {
+            Transition<S> transition = options.get(i);
+            if (guardValues[transition.guardIndex] == transition.guardValue) {
+                setState(transition.to);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Immediately moves to a state, bypassing the transition table. Useful for resetting the machine
+     * (e.g. when the robot is disabled).
+     */
+    public void setState(S newState) {
+        if (newState == state) return;
+
+        double now = Timer.getFPGATimestamp();
+        if (transitionLog == null) {
+            stateLog = new StringLogEntry(DataLogManager.getLog(), name + "/State");
+            transitionLog = new StringLogEntry(DataLogManager.getLog(), name + "/Transitions");
+        }
+        transitionLog.append(String.format("%s -> %s (%.3fs in %s)", state, newState, now - stateStartTime, state));
+        stateLog.append(newState.name());
+
+        state = newState;
+        stateStartTime = now;
+        transitionCount++;
+    }
+
+    public S getState() {
+        return state;
+    }
+
+    /**
+     * Returns how long we've been in the current state, in seconds.
+     */
+    public double getTimeInState() {
+        return Timer.getFPGATimestamp() - stateStartTime;
+    }
+
+    public int getTransitionCount() {
+        return transitionCount;
+    }
+
+    /**
+     * Returns a trigger that is true while the machine is in the given state.
+     */
+    public Trigger isState(S s) {
+        return stateTriggers.get(s);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
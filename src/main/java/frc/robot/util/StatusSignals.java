@@ -1,39 +1,293 @@
 package frc.robot.util;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusCode;
 import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.hardware.ParentDevice;
+import com.ctre.phoenix6.hardware.TalonFX;
+import edu.wpi.first.epilogue.Logged;
+import edu.wpi.first.epilogue.NotLogged;
+import frc.robot.Constants;
 
+/**
+ * Tracks the status signals read every loop, grouped by CAN bus, and refreshes them together.
+ * <p>
+ * Each signal is tracked with a {@link Priority} that sets its update frequency. Once every device has been
+ * created, {@link #applyFrequencies()} applies those frequencies and runs optimizeBusUtilization on every
+ * device, which turns off any signals that weren't tracked.
+ */
 public class StatusSignals {
 
-    private static List<StatusSignal<?>> statusSignals = new ArrayList<>();
-    private static StatusSignal<?>[] statusSignalsArray = null;
+    /**
+     * If true, each loop waits for a fresh frame of every critical signal before continuing, so the loop is
+     * time-aligned to the drivetrain's data. This can wait up to one critical period (4 ms).
+     */
+    private static final boolean WAIT_FOR_CRITICAL_SIGNALS = false;
+    private static final double WAIT_TIMEOUT = 0.005;
+
+    /**
+     * Update frequency policies for tracked signals.
+     */
+    public enum Priority {
+        /** Signals the drivetrain and closed-loop mechanisms depend on */
+        CRITICAL(250),
+        /** Signals read every loop */
+        NORMAL(50),
+        /** Signals only used for logging and diagnostics */
+        DEBUG(4);
+
+        public final double frequency;
+
+        Priority(double frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    /**
+     * The tracked signals on one CAN bus, along with how fresh they are.
+     */
+    @Logged
+    public static class SignalGroup {
+        @NotLogged
+        private final String bus;
+        @NotLogged
+        private final List<BaseStatusSignal> signalList = new ArrayList<>();
+        @NotLogged
+        private final List<Priority> priorityList = new ArrayList<>();
+        @NotLogged
+        private final List<String> nameList = new ArrayList<>();
+
+        @NotLogged
+        private BaseStatusSignal[] signals = new BaseStatusSignal[0];
+        @NotLogged
+        private BaseStatusSignal[] criticalSignals = new BaseStatusSignal[0];
+        @NotLogged
+        private BaseStatusSignal[] otherSignals = new BaseStatusSignal[0];
+        @NotLogged
+        private double[] staleThresholds = new double[0];
+
+        private String[] signalNames = new String[0];
+        private double[] signalAgesMs = new double[0];
+        private double refreshMs = 0;
+        private double maxAgeMs = 0;
+        private int staleSignals = 0;
+        private long staleSignalsTotal = 0;
+        private long waitTimeouts = 0;
+
+        SignalGroup(String bus) {
+            this.bus = bus;
+        }
+
+        void add(ParentDevice device, Priority priority, BaseStatusSignal signal) {
+            signalList.add(signal);
+            priorityList.add(priority);
+            nameList.add(deviceName(device) + "/" + signal.getName());
+
+            signals = signalList.toArray(new BaseStatusSignal[0]);
+            signalNames = nameList.toArray(new String[0]);
+            signalAgesMs = new double[signals.length];
+            staleThresholds = new double[signals.length];
+
+            List<BaseStatusSignal> critical = new ArrayList<>();
+            List<BaseStatusSignal> other = new ArrayList<>();
+            for (int i = 0; i < signals.length; i++) {
+                Priority p = priorityList.get(i);
+                (p == Priority.CRITICAL ? critical : other).add(signals[i]);
+                // A signal is stale once it has missed a couple of frames, or is older than a loop
+                staleThresholds[i] = Math.max(2 / p.frequency, Constants.LOOP_TIME);
+            }
+            criticalSignals = critical.toArray(new BaseStatusSignal[0]);
+            otherSignals = other.toArray(new BaseStatusSignal[0]);
+        }
+
+        StatusCode refresh() {
+            if (signals.length == 0) return StatusCode.OK;
+
+            long start = System.nanoTime();
+            StatusCode status;
+            if (WAIT_FOR_CRITICAL_SIGNALS && criticalSignals.length > 0) {
+                status = BaseStatusSignal.waitForAll(WAIT_TIMEOUT, criticalSignals);
+                if (status == StatusCode.RxTimeout) waitTimeouts++;
+                if (otherSignals.length > 0) {
+                    StatusCode otherStatus = BaseStatusSignal.refreshAll(otherSignals);
+                    if (status.isOK()) status = otherStatus;
+                }
+            } else {
+                status = BaseStatusSignal.refreshAll(signals);
+            }
+            refreshMs = (System.nanoTime() - start) / 1e6;
+
+            maxAgeMs = 0;
+            staleSignals = 0;
+            for (int i = 0; i < signals.length; i++) {
+                double age = signals[i].getTimestamp().getLatency();
+                signalAgesMs[i] = age * 1000;
+                maxAgeMs = Math.max(maxAgeMs, signalAgesMs[i]);
+                if (age > staleThresholds[i]) staleSignals++;
+            }
+            staleSignalsTotal += staleSignals;
+            return status;
+        }
+
+        void applyFrequencies() {
+            for (Priority priority : Priority.values()) {
+                List<BaseStatusSignal> matching = new ArrayList<>();
+                for (int i = 0; i < signals.length; i++) {
+                    if (priorityList.get(i) == priority) matching.add(signals[i]);
+                }
+                if (!matching.isEmpty()) {
+                    BaseStatusSignal.setUpdateFrequencyForAll(priority.frequency, matching.toArray(new BaseStatusSignal[0]));
+                }
+            }
+        }
+
+        public String getBus() {
+            return bus;
+        }
+
+        BaseStatusSignal[] getSignals() {
+            return signals;
+        }
+
+        String[] getSignalNames() {
+            return signalNames;
+        }
+    }
+
+    private static final Map<String, SignalGroup> groups = new LinkedHashMap<>();
+    private static SignalGroup[] groupsArray = new SignalGroup[0];
+    private static final Set<ParentDevice> devices = new LinkedHashSet<>();
+    private static final Set<ParentDevice> unoptimizedDevices = new LinkedHashSet<>();
+    // Signals that aren't read by robot code but must keep their frequency (e.g. for followers)
+    private static final Map<Priority, List<BaseStatusSignal>> keptSignals = new LinkedHashMap<>();
+    private static final Map<BaseStatusSignal, ParentDevice> keptSignalDevices = new IdentityHashMap<>();
+
+    /**
+     * Returns the signal group for a CAN bus, creating it if needed.
+     */
+    public static SignalGroup getGroup(String bus) {
+        SignalGroup group = groups.get(bus);
+        if (group == null) {
+            group = new SignalGroup(bus);
+            groups.put(bus, group);
+            groupsArray = groups.values().toArray(new SignalGroup[0]);
+        }
+        return group;
+    }
 
-    public static <T> StatusSignal<T> trackSignal(StatusSignal<T> statusSignal) {
-        statusSignals.add(statusSignal);
+    /**
+     * Tracks a signal, so it's refreshed every loop by {@link #refreshAll()}.
+     * @param device The device the signal is from
+     * @param priority Sets the signal's update frequency
+     */
+    public static <T> StatusSignal<T> trackSignal(ParentDevice device, Priority priority, StatusSignal<T> statusSignal) {
+        devices.add(device);
+        getGroup(device.getNetwork()).add(device, priority, statusSignal);
         return statusSignal;
     }
 
-    public static void trackSignals(StatusSignal<?>... statusSignals) {
+    public static void trackSignals(ParentDevice device, Priority priority, StatusSignal<?>... statusSignals) {
         for (StatusSignal<?> statusSignal : statusSignals) {
-            trackSignal(statusSignal);
+            trackSignal(device, priority, statusSignal);
         }
     }
 
     /**
-     * Calls {@link BaseStatusSignal#refreshAll()} on all tracked signals.
-     * @return The StatusCode returned by {@link BaseStatusSignal#refreshAll()}.
+     * Keeps a signal at the given priority's frequency without refreshing it, for signals that other devices use.
      */
-    public static StatusCode refreshAll() {
-        return BaseStatusSignal.refreshAll(getArray());
+    public static void keepSignals(ParentDevice device, Priority priority, BaseStatusSignal... statusSignals) {
+        devices.add(device);
+        List<BaseStatusSignal> kept = keptSignals.computeIfAbsent(priority, p -> new ArrayList<>());
+        for (BaseStatusSignal statusSignal : statusSignals) {
+            kept.add(statusSignal);
+            keptSignalDevices.put(statusSignal, device);
+        }
+    }
+
+    /**
+     * Keeps the leader's output signals that its followers follow.
+     */
+    public static void keepFollowerSignals(TalonFX leader, Priority priority) {
+        keepSignals(leader, priority, leader.getDutyCycle(), leader.getMotorVoltage(), leader.getTorqueCurrent());
+    }
+
+    /**
+     * Registers devices that have no tracked signals (e.g. followers and open-loop motors), so their unused signals
+     * are turned off by {@link #applyFrequencies()}.
+     */
+    public static void registerDevices(ParentDevice... newDevices) {
+        for (ParentDevice device : newDevices) {
+            devices.add(device);
+        }
+    }
+
+    /**
+     * Excludes a device from optimizeBusUtilization, for devices whose untracked signals are used elsewhere
+     * (e.g. by the swerve odometry thread).
+     */
+    public static void skipOptimization(ParentDevice device) {
+        unoptimizedDevices.add(device);
     }
 
-    private static StatusSignal<?>[] getArray() {
-        if (statusSignalsArray == null || statusSignalsArray.length != statusSignals.size()) {
-            statusSignalsArray = statusSignals.toArray(new StatusSignal<?>[0]);
+    /**
+     * Applies each tracked signal's update frequency, then optimizes bus utilization of every device.
+     * Call once, after all devices have been created.
+     */
+    public static void applyFrequencies() {
+        for (SignalGroup group : groupsArray) {
+            group.applyFrequencies();
+        }
+        keptSignals.forEach((priority, signals) -> {
+            BaseStatusSignal.setUpdateFrequencyForAll(priority.frequency, signals.toArray(new BaseStatusSignal[0]));
+        });
+
+        List<ParentDevice> optimized = new ArrayList<>();
+        for (ParentDevice device : devices) {
+            if (!unoptimizedDevices.contains(device)) optimized.add(device);
+        }
+        ParentDevice.optimizeBusUtilizationForAll(optimized.toArray(new ParentDevice[0]));
+    }
+
+    /**
+     * Returns a short name for a device, like "TalonFX 12".
+     */
+    public static String deviceName(ParentDevice device) {
+        return device.getClass().getSimpleName() + " " + device.getDeviceID();
+    }
+
+    static SignalGroup[] getGroups() {
+        return groupsArray;
+    }
+
+    static Set<ParentDevice> getDevices() {
+        return devices;
+    }
+
+    static Set<ParentDevice> getUnoptimizedDevices() {
+        return unoptimizedDevices;
+    }
+
+    static Map<BaseStatusSignal, ParentDevice> getKeptSignals() {
+        return keptSignalDevices;
+    }
+
+    /**
+     * Refreshes all tracked signals, one CAN bus at a time.
+     * @return The first error from any bus, or OK
+     */
+    public static StatusCode refreshAll() {
+        StatusCode result = StatusCode.OK;
+        for (SignalGroup group : groupsArray) {
+            StatusCode status = group.refresh();
+            if (result.isOK() && !status.isOK()) result = status;
         }
-        return statusSignalsArray;
+        return result;
     }
 }
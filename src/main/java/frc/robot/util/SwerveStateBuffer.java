@@ -0,0 +1,131 @@
+package frc.robot.util;
+
+import java.lang.invoke.VarHandle;
+import com.ctre.phoenix6.swerve.SwerveDrivetrain.SwerveDriveState;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Lock-free buffer of drivetrain state snapshots. The odometry thread publishes into it, and any thread can read it.
+ * <p>
+ * Snapshots are written into a small ring of preallocated states and the newest one is published with a volatile
+ * sequence number. Readers copy a snapshot into a state they own, then check the sequence again, seqlock-style: a
+ * slot is only rewritten once {@code SLOTS - 1} newer snapshots have been published, so if the sequence hasn't moved
+ * that far the copy can't have been torn. Otherwise the read is retried. Neither side locks or allocates.
+ */
+public class SwerveStateBuffer {
+
+    // Enough for readers to look several updates back, even after the odometry thread has moved on a few more
+    static final int SLOTS = 16;
+    // A reader should never lose this many races in a row, but don't spin forever if it does
+    private static final int MAX_READ_ATTEMPTS = 10;
+
+    private final SwerveDriveState[] slots = new SwerveDriveState[SLOTS];
+    private volatile long sequence = -1;
+
+    public SwerveStateBuffer(int moduleCount) {
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = createState(moduleCount);
+        }
+    }
+
+    /**
+     * Creates a state with every field allocated, to read snapshots into.
+     */
+    public static SwerveDriveState createState(int moduleCount) {
+        SwerveDriveState state = new SwerveDriveState();
+        state.Pose = Pose2d.kZero;
+        state.Speeds = new ChassisSpeeds();
+        state.ModuleStates = new SwerveModuleState[moduleCount];
+        state.ModuleTargets = new SwerveModuleState[moduleCount];
+        state.ModulePositions = new SwerveModulePosition[moduleCount];
+        for (int j = 0; j < moduleCount; j++) {
+            state.ModuleStates[j] = new SwerveModuleState();
+            state.ModuleTargets[j] = new SwerveModuleState();
+            state.ModulePositions[j] = new SwerveModulePosition();
+        }
+        return state;
+    }
+
+    /**
+     * Copies a drivetrain state into the next slot and publishes it. This must only be called from a single
+     * thread (the odometry thread).
+     */
+    public void publish(SwerveDriveState source) {
+        // The volatile read keeps the writes below from being reordered before the previous publish, so a slot is
+        // never written to before readers can see that it's about to be
+        long next = sequence + 1;
+        copy(source, slots[(int) (next % SLOTS)]);
+        // The volatile write makes the copy visible to readers that see the new sequence
+        sequence = next;
+    }
+
+    /**
+     * Copies the newest published snapshot into a state owned by the caller.
+     * @param out The state to copy into, from {@link #createState(int)}
+     * @return The sequence number of the snapshot, or -1 if nothing has been published yet
+     */
+    public long read(SwerveDriveState out) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long current = sequence;
+            if (current < 0) return -1;
+            if (read(current, out)) return current;
+        }
+        return -1;
+    }
+
+    /**
+     * Copies the snapshot with the given sequence number into a state owned by the caller, if it's still in the
+     * buffer.
+     * @param snapshotSequence The sequence number of the snapshot, like one returned by {@link #read(SwerveDriveState)}
+     * minus how many updates back to go
+     * @param out The state to copy into, from {@link #createState(int)}
+     * @return Whether the snapshot was copied. If not, {@code out} may have been partly written.
+     */
+    public boolean read(long snapshotSequence, SwerveDriveState out) {
+        if (snapshotSequence < 0 || !isAvailable(snapshotSequence, sequence)) return false;
+
+        copy(slots[(int) (snapshotSequence % SLOTS)], out);
+        // Keep the copy from being reordered after the check below
+        VarHandle.acquireFence();
+        return isAvailable(snapshotSequence, sequence);
+    }
+
+    /**
+     * Returns the sequence number of the newest published snapshot.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    // Whether a snapshot hasn't been, and isn't being, overwritten
+    private static boolean isAvailable(long snapshotSequence, long currentSequence) {
+        return snapshotSequence <= currentSequence && currentSequence - snapshotSequence < SLOTS - 1;
+    }
+
+    private static void copy(SwerveDriveState source, SwerveDriveState destination) {
+        // Pose2d and Rotation2d are immutable, so their references can be shared
+        destination.Pose = source.Pose;
+        destination.RawHeading = source.RawHeading;
+        destination.Speeds.vxMetersPerSecond = source.Speeds.vxMetersPerSecond;
+        destination.Speeds.vyMetersPerSecond = source.Speeds.vyMetersPerSecond;
+        destination.Speeds.omegaRadiansPerSecond = source.Speeds.omegaRadiansPerSecond;
+        for (int i = 0; i < destination.ModuleStates.length; i++) {
+            copy(source.ModuleStates[i], destination.ModuleStates[i]);
+            copy(source.ModuleTargets[i], destination.ModuleTargets[i]);
+            destination.ModulePositions[i].distanceMeters = source.ModulePositions[i].distanceMeters;
+            destination.ModulePositions[i].angle = source.ModulePositions[i].angle;
+        }
+        destination.Timestamp = source.Timestamp;
+        destination.OdometryPeriod = source.OdometryPeriod;
+        destination.SuccessfulDaqs = source.SuccessfulDaqs;
+        destination.FailedDaqs = source.FailedDaqs;
+    }
+
+    private static void copy(SwerveModuleState source, SwerveModuleState destination) {
+        destination.speedMetersPerSecond = source.speedMetersPerSecond;
+        destination.angle = source.angle;
+    }
+}
@@ -0,0 +1,358 @@
+package frc.robot.util.simulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import com.spamrobotics.vision.SimCamera;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.Auto;
+import frc.robot.Auto.AutoState;
+
+/**
+ * Runs every auto many times in {@link LockstepSim}, with randomized human player coral, start placement and camera
+ * latency, and reports how they did. Run with
+ * {@code ./gradlew autoMonteCarlo -PsimArgs="--runs 50 --jobs 8 \"Left Barge - Optimized\""}.
+ * <p>
+ * Each run is a separate JVM, since WPILib and the robot code keep a lot of static state, and runs are spread over
+ * the CPU cores. Results go to {@code trials.csv} (one row per run) and {@code summary.json} (per auto) in the
+ * output directory.
+ */
+public class AutoMonteCarlo {
+
+    private static final double START_POSITION_STDDEV = 0.05;
+    private static final double START_HEADING_STDDEV = 2;
+    private static final double MIN_LATENCY_MS = 30;
+    private static final double MAX_LATENCY_MS = 80;
+    private static final double MAX_LATENCY_STDDEV_MS = 25;
+    // A robot that hasn't moved this far in this long, while auto still has work to do, is stuck
+    private static final double STALL_DISTANCE = 0.1;
+    private static final double STALL_TIME = 3;
+
+    private static final String RESULT_PREFIX = "MONTE_CARLO_RESULT\t";
+    private static final String AUTO_PREFIX = "MONTE_CARLO_AUTO\t";
+
+    private record Trial(String auto, long seed, String failure, int scored, int retries, AutoState finalState,
+                         double[] scoreTimes) {
+
+        double[] cycleTimes() {
+            double[] cycles = new double[scoreTimes.length];
+            for (int i = 0; i < scoreTimes.length; i++) {
+                cycles[i] = scoreTimes[i] - (i == 0 ? 0 : scoreTimes[i - 1]);
+            }
+            return cycles;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--trial")) {
+            runTrial(args[1], Long.parseLong(args[2]), Double.parseDouble(args[3]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--list")) {
+            listAutos();
+            return;
+        }
+
+        int runs = 20;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        double duration = 15;
+        long baseSeed = 1;
+        Path outputDir = Path.of("build", "monte-carlo");
+        List<String> autos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[++i]);
+                case "--jobs" -> jobs = Integer.parseInt(args[++i]);
+                case "--duration" -> duration = Double.parseDouble(args[++i]);
+                case "--seed" -> baseSeed = Long.parseLong(args[++i]);
+                case "--out" -> outputDir = Path.of(args[++i]);
+                default -> autos.add(args[i]);
+            }
+        }
+        if (autos.isEmpty()) {
+            for (String line : fork(List.of("--list"), 120)) {
+                if (line.startsWith(AUTO_PREFIX)) autos.add(line.substring(AUTO_PREFIX.length()));
+            }
+            autos.remove("Do Nothing");
+        }
+        if (autos.isEmpty()) {
+            throw new IllegalStateException("No autos to run");
+        }
+
+        System.out.printf("Running %d autos %d times each, %d at a time%n", autos.size(), runs, jobs);
+        ExecutorService executor = Executors.newFixedThreadPool(jobs);
+        List<Future<Trial>> futures = new ArrayList<>();
+        final double trialDuration = duration;
+        for (String auto : autos) {
+            for (int i = 0; i < runs; i++) {
+                long seed = baseSeed + i;
+                futures.add(executor.submit(() -> forkTrial(auto, seed, trialDuration)));
+            }
+        }
+
+        Map<String, List<Trial>> results = new LinkedHashMap<>();
+        for (String auto : autos) {
+            results.put(auto, new ArrayList<>());
+        }
+        int done = 0;
+        for (Future<Trial> future : futures) {
+            Trial trial = future.get();
+            results.get(trial.auto()).add(trial);
+            done++;
+            if (done % jobs == 0 || done == futures.size()) {
+                System.out.printf("%d/%d runs done%n", done, futures.size());
+            }
+        }
+        executor.shutdown();
+
+        Files.createDirectories(outputDir);
+        writeTrials(outputDir.resolve("trials.csv"), results);
+        writeSummary(outputDir.resolve("summary.json"), results);
+        printSummary(results);
+        System.out.println("Results written to " + outputDir.toAbsolutePath());
+    }
+
+    // ================= Parent process =================
+
+    private static Trial forkTrial(String auto, long seed, double duration) {
+        // Startup takes a few seconds, and lockstep runs a little slower than real time, paced by the odometry thread
+        long timeout = 60 + (long) (duration * 10);
+        List<String> output;
+        try {
+            output = fork(List.of("--trial", auto, Long.toString(seed), Double.toString(duration)), timeout);
+        } catch (IOException | InterruptedException e) {
+            return new Trial(auto, seed, "EXCEPTION", 0, 0, AutoState.IDLE, new double[0]);
+        }
+        if (output == null) {
+            return new Trial(auto, seed, "TIMEOUT", 0, 0, AutoState.IDLE, new double[0]);
+        }
+
+        for (String line : output) {
+            if (!line.startsWith(RESULT_PREFIX)) continue;
+            String[] fields = line.substring(RESULT_PREFIX.length()).split("\t", -1);
+            double[] scoreTimes = fields[4].isEmpty() ? new double[0]
+                                  : Arrays.stream(fields[4].split(";")).mapToDouble(Double::parseDouble).toArray();
+            return new Trial(auto, seed, fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                             AutoState.valueOf(fields[3]), scoreTimes);
+        }
+        return new Trial(auto, seed, "EXCEPTION", 0, 0, AutoState.IDLE, new double[0]);
+    }
+
+    /**
+     * Runs this class in a new JVM with the same classpath and native libraries.
+     * @return The process's output, or null if it timed out
+     */
+    private static List<String> fork(List<String> args, long timeoutSeconds) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Djava.library.path=" + System.getProperty("java.library.path"));
+        command.add(AutoMonteCarlo.class.getName());
+        command.addAll(args);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> output = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith(RESULT_PREFIX) || line.startsWith(AUTO_PREFIX)) {
+                        synchronized (output) {
+                            output.add(line);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // The process was killed
+            }
+        });
+        reader.start();
+
+        if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            return null;
+        }
+        reader.join();
+        return output;
+    }
+
+    private static void writeTrials(Path file, Map<String, List<Trial>> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("auto,seed,failure,coral_scored,intake_retries,final_state,score_times,mean_cycle_time");
+            for (List<Trial> trials : results.values()) {
+                for (Trial trial : trials) {
+                    StringBuilder times = new StringBuilder();
+                    for (double time : trial.scoreTimes()) {
+                        if (times.length() > 0) times.append(';');
+                        times.append(String.format("%.3f", time));
+                    }
+                    out.printf("\"%s\",%d,%s,%d,%d,%s,%s,%.3f%n", trial.auto(), trial.seed(), trial.failure(),
+                               trial.scored(), trial.retries(), trial.finalState(), times,
+                               mean(trial.cycleTimes()));
+                }
+            }
+        }
+    }
+
+    private static void writeSummary(Path file, Map<String, List<Trial>> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("{");
+            int autoIndex = 0;
+            for (Map.Entry<String, List<Trial>> entry : results.entrySet()) {
+                List<Trial> trials = entry.getValue();
+                double[] scored = trials.stream().mapToDouble(Trial::scored).toArray();
+                double[] cycles = trials.stream().flatMapToDouble(t -> Arrays.stream(t.cycleTimes())).toArray();
+                Map<String, Integer> failures = new LinkedHashMap<>();
+                for (Trial trial : trials) {
+                    failures.merge(trial.failure(), 1, Integer::sum);
+                }
+
+                out.printf("  \"%s\": {%n", entry.getKey());
+                out.printf("    \"runs\": %d,%n", trials.size());
+                out.printf("    \"coral_scored\": %s,%n", distribution(scored));
+                out.printf("    \"cycle_time\": %s,%n", distribution(cycles));
+                out.printf("    \"intake_retries\": %.3f,%n",
+                           mean(trials.stream().mapToDouble(Trial::retries).toArray()));
+                out.print("    \"failures\": {");
+                int failureIndex = 0;
+                for (Map.Entry<String, Integer> failure : failures.entrySet()) {
+                    out.printf("%s\"%s\": %d", failureIndex++ > 0 ? ", " : "", failure.getKey(), failure.getValue());
+                }
+                out.println("}");
+                out.println(++autoIndex < results.size() ? "  }," : "  }");
+            }
+            out.println("}");
+        }
+    }
+
+    private static void printSummary(Map<String, List<Trial>> results) {
+        System.out.printf("%-36s %6s %6s %6s %6s %8s %6s%n", "Auto", "Mean", "P10", "Median", "P90", "Cycle", "Fails");
+        for (Map.Entry<String, List<Trial>> entry : results.entrySet()) {
+            List<Trial> trials = entry.getValue();
+            double[] scored = trials.stream().mapToDouble(Trial::scored).sorted().toArray();
+            double[] cycles = trials.stream().flatMapToDouble(t -> Arrays.stream(t.cycleTimes())).sorted().toArray();
+            long fails = trials.stream().filter(t -> !t.failure().equals("NONE")).count();
+            System.out.printf("%-36s %6.2f %6.1f %6.1f %6.1f %7.2fs %6d%n", entry.getKey(), mean(scored),
+                              percentile(scored, 0.1), percentile(scored, 0.5), percentile(scored, 0.9),
+                              percentile(cycles, 0.5), fails);
+        }
+    }
+
+    private static String distribution(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double mean = mean(sorted);
+        double variance = 0;
+        for (double value : sorted) {
+            variance += (value - mean) * (value - mean);
+        }
+        double stddev = sorted.length > 1 ? Math.sqrt(variance / (sorted.length - 1)) : 0;
+        return String.format(
+            "{\"mean\": %.3f, \"stddev\": %.3f, \"min\": %.3f, \"p10\": %.3f, \"median\": %.3f, \"p90\": %.3f, \"max\": %.3f}",
+            mean, stddev, percentile(sorted, 0), percentile(sorted, 0.1), percentile(sorted, 0.5),
+            percentile(sorted, 0.9), percentile(sorted, 1));
+    }
+
+    private static double mean(double[] values) {
+        return values.length == 0 ? 0 : Arrays.stream(values).sum() / values.length;
+    }
+
+    private static double percentile(double[] sorted, double fraction) {
+        if (sorted.length == 0) return 0;
+        return sorted[(int) Math.round(fraction * (sorted.length - 1))];
+    }
+
+    // ================= Forked process =================
+
+    private static void listAutos() {
+        try (LockstepSim sim = new LockstepSim(0)) {
+            sim.run(0.1);
+            String[] options = NetworkTableInstance.getDefault().getTable("SmartDashboard").getSubTable("Auto Mode")
+                                .getEntry("options").getStringArray(new String[0]);
+            for (String option : options) {
+                System.out.println(AUTO_PREFIX + option);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void runTrial(String auto, long seed, double duration) {
+        // Separate from the simulation's own randomness, so the noise doesn't change what the simulation draws
+        Random noise = new Random(seed * 31 + 7);
+        SimLogic.startPoseError = new Transform2d(noise.nextGaussian() * START_POSITION_STDDEV,
+                                                  noise.nextGaussian() * START_POSITION_STDDEV,
+                                                  Rotation2d.fromDegrees(noise.nextGaussian() * START_HEADING_STDDEV));
+        SimCamera.averageLatencyMs = MIN_LATENCY_MS + noise.nextDouble() * (MAX_LATENCY_MS - MIN_LATENCY_MS);
+        SimCamera.latencyStdDevMs = noise.nextDouble() * MAX_LATENCY_STDDEV_MS;
+
+        List<Double> scoreTimes = new ArrayList<>();
+        int retries = 0;
+        try (LockstepSim sim = new LockstepSim(seed)) {
+            sim.selectAuto(auto);
+            sim.run(0.5);
+            sim.enableAutonomous();
+            double startTime = sim.getTime();
+
+            int lastScored = SimLogic.coralScored;
+            AutoState lastState = Auto.state;
+            Pose2d stillPose = sim.getRobot().getSimPose();
+            double stillSince = startTime;
+            boolean stalled = false;
+            while (sim.getTime() - startTime < duration) {
+                sim.run(0.02);
+                double time = sim.getTime() - startTime;
+
+                // One time per coral, even if two were scored in the same step
+                for (; lastScored < SimLogic.coralScored; lastScored++) {
+                    scoreTimes.add(time);
+                }
+                if (Auto.state == AutoState.RETRYING_INTAKE && lastState != AutoState.RETRYING_INTAKE) {
+                    retries++;
+                }
+                lastState = Auto.state;
+
+                Pose2d pose = sim.getRobot().getSimPose();
+                if (pose.getTranslation().getDistance(stillPose.getTranslation()) > STALL_DISTANCE) {
+                    stillPose = pose;
+                    stillSince = sim.getTime();
+                } else if (Auto.state == AutoState.IDLE) {
+                    // Finished autos are allowed to sit still
+                    stillSince = sim.getTime();
+                } else if (sim.getTime() - stillSince > STALL_TIME) {
+                    // Even if it gets going again later, since the stall cost it the time
+                    stalled = true;
+                }
+            }
+            sim.disable();
+            sim.run(LockstepSim.STEP);
+
+            int scored = SimLogic.coralScored;
+            String failure = scored == 0 ? "NO_SCORE" : stalled ? "STALLED" : "NONE";
+            StringBuilder times = new StringBuilder();
+            for (double time : scoreTimes) {
+                if (times.length() > 0) times.append(';');
+                times.append(time);
+            }
+            System.out.println(RESULT_PREFIX + failure + "\t" + scored + "\t" + retries + "\t"
+                               + Auto.state + "\t" + times);
+        }
+        System.exit(0);
+    }
+}
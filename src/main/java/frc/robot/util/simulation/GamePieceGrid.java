@@ -0,0 +1,267 @@
+package frc.robot.util.simulation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import org.ironmaple.simulation.gamepieces.GamePieceOnFieldSimulation;
+import org.ironmaple.simulation.gamepieces.GamePieceProjectile;
+import com.pathplanner.lib.util.FlippingUtil;
+import edu.wpi.first.math.geometry.Pose3d;
+
+/**
+ * A uniform grid over the field holding every simulated game piece of one type, so nearby pieces can be found
+ * without checking all of them.
+ * <p>
+ * {@link TrackedArena} adds and removes pieces as the arena does, so the arena's pieces are never scanned. Once per
+ * loop, {@link #update()} re-reads the poses of only the pieces that can have moved: projectiles, and pieces on the
+ * field whose bodies aren't at rest. A cell only changes when a piece is added to it, removed from it, or moves
+ * into or out of it.
+ * <p>
+ * The arena adds and removes pieces from the simulation thread, so every method holds the grid's own lock. Poses
+ * are only written by {@link #update()}, on the robot thread, so entries returned by a query don't change under it.
+ * Queries add to a list the caller owns and reuses, so they don't allocate.
+ */
+public class GamePieceGrid {
+
+    /**
+     * A tracked game piece.
+     */
+    public static final class Entry {
+        private final Object piece;
+        private Pose3d pose;
+        private double x, y;
+        private int cell = -1;
+        private int index;
+
+        private Entry(Object piece) {
+            this.piece = piece;
+        }
+
+        public Pose3d getPose() {
+            return pose;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+    }
+
+    private final String type;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final List<Entry>[] cells;
+    private final List<Entry> entries = new ArrayList<>();
+    private final IdentityHashMap<Object, Entry> entriesByPiece = new IdentityHashMap<>();
+
+    private int version = 0;
+    private int posesVersion = -1;
+    private Pose3d[] poses = new Pose3d[0];
+
+    /**
+     * @param type The MapleSim game piece type, like "Coral"
+     * @param cellSize The width of each cell, in meters
+     */
+    @SuppressWarnings("unchecked")
+    public GamePieceGrid(String type, double cellSize) {
+        this.type = type;
+        this.cellSize = cellSize;
+        columns = (int) Math.ceil(FlippingUtil.fieldSizeX / cellSize);
+        rows = (int) Math.ceil(FlippingUtil.fieldSizeY / cellSize);
+        cells = new List[columns * rows];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new ArrayList<>();
+        }
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Starts tracking a piece. Adding a piece that's already tracked does nothing.
+     */
+    public synchronized void add(Object piece, Pose3d pose) {
+        if (entriesByPiece.containsKey(piece)) return;
+
+        Entry entry = new Entry(piece);
+        entry.index = entries.size();
+        entries.add(entry);
+        entriesByPiece.put(piece, entry);
+        move(entry, pose);
+    }
+
+    /**
+     * Moves a tracked piece. Untracked pieces are ignored.
+     */
+    public synchronized void move(Object piece, Pose3d pose) {
+        Entry entry = entriesByPiece.get(piece);
+        if (entry != null) move(entry, pose);
+    }
+
+    /**
+     * Stops tracking a piece. Untracked pieces are ignored.
+     */
+    public synchronized void remove(Object piece) {
+        Entry entry = entriesByPiece.remove(piece);
+        if (entry == null) return;
+
+        cells[entry.cell].remove(entry);
+        Entry last = entries.remove(entries.size() - 1);
+        if (last != entry) {
+            entries.set(entry.index, last);
+            last.index = entry.index;
+        }
+        version++;
+    }
+
+    public synchronized void clear() {
+        if (entries.isEmpty()) return;
+
+        for (Entry entry : entries) {
+            cells[entry.cell].remove(entry);
+        }
+        entries.clear();
+        entriesByPiece.clear();
+        version++;
+    }
+
+    /**
+     * Re-reads the poses of the pieces that can have moved since the last loop.
+     */
+    public synchronized void update() {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.piece instanceof GamePieceOnFieldSimulation fieldPiece) {
+                // Bodies at rest haven't moved, and most of the pieces on the field are at rest
+                if (!fieldPiece.isAtRest()) move(entry, fieldPiece.getPose3d());
+            } else if (entry.piece instanceof GamePieceProjectile projectile) {
+                move(entry, projectile.getPose3d());
+            }
+        }
+    }
+
+    /**
+     * Stops tracking projectiles that are no longer in flight. MapleSim drops projectiles that land or leave the
+     * field straight from its set, without a removal the arena can hook.
+     * @param launched The arena's projectiles
+     */
+    synchronized void removeLanded(Collection<?> launched) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Object piece = entries.get(i).piece;
+            if (piece instanceof GamePieceProjectile && !launched.contains(piece)) remove(piece);
+        }
+    }
+
+    private void move(Entry entry, Pose3d pose) {
+        if (pose.equals(entry.pose)) return;
+
+        entry.pose = pose;
+        entry.x = pose.getX();
+        entry.y = pose.getY();
+        version++;
+
+        int cell = cellIndex(column(entry.x), row(entry.y));
+        if (cell != entry.cell) {
+            if (entry.cell >= 0) cells[entry.cell].remove(entry);
+            cells[cell].add(entry);
+            entry.cell = cell;
+        }
+    }
+
+    /**
+     * Adds every piece within a distance of a point to the results.
+     */
+    public synchronized void queryRadius(double x, double y, double radius, List<Entry> results) {
+        double radiusSquared = radius * radius;
+        int minColumn = column(x - radius), maxColumn = column(x + radius);
+        int minRow = row(y - radius), maxRow = row(y + radius);
+        for (int column = minColumn; column <= maxColumn; column++) {
+            for (int row = minRow; row <= maxRow; row++) {
+                List<Entry> cell = cells[cellIndex(column, row)];
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry entry = cell.get(i);
+                    double dx = entry.x - x, dy = entry.y - y;
+                    if (dx * dx + dy * dy <= radiusSquared) results.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds every piece inside a camera's field of view, seen from above, to the results. The field of view is the
+     * triangle from the camera out to the given range along its heading.
+     * @param heading The direction the camera faces, in radians
+     * @param halfFov Half the camera's horizontal field of view, in radians
+     * @param range How far along its heading the camera can see, in meters
+     */
+    public synchronized void queryFov(double x, double y, double heading, double halfFov, double range, List<Entry> results) {
+        double cos = Math.cos(heading), sin = Math.sin(heading);
+        double tan = Math.tan(halfFov);
+        double halfWidth = range * tan;
+
+        // Bounding box of the triangle
+        double farX = x + range * cos, farY = y + range * sin;
+        double offsetX = -sin * halfWidth, offsetY = cos * halfWidth;
+        double minX = Math.min(x, Math.min(farX + offsetX, farX - offsetX));
+        double maxX = Math.max(x, Math.max(farX + offsetX, farX - offsetX));
+        double minY = Math.min(y, Math.min(farY + offsetY, farY - offsetY));
+        double maxY = Math.max(y, Math.max(farY + offsetY, farY - offsetY));
+
+        for (int column = column(minX); column <= column(maxX); column++) {
+            for (int row = row(minY); row <= row(maxY); row++) {
+                List<Entry> cell = cells[cellIndex(column, row)];
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry entry = cell.get(i);
+                    double dx = entry.x - x, dy = entry.y - y;
+                    double along = dx * cos + dy * sin;
+                    double across = -dx * sin + dy * cos;
+                    if (along >= 0 && along <= range && Math.abs(across) <= along * tan) results.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the poses of every piece. The array is only rebuilt when a piece was added, moved or removed.
+     */
+    public synchronized Pose3d[] getPoses() {
+        if (posesVersion != version) {
+            if (poses.length != entries.size()) poses = new Pose3d[entries.size()];
+            for (int i = 0; i < poses.length; i++) {
+                poses[i] = entries.get(i).pose;
+            }
+            posesVersion = version;
+        }
+        return poses;
+    }
+
+    /**
+     * Returns a number that changes whenever a piece is added, moved or removed.
+     */
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Pieces off the field are kept in the border cells
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+    }
+
+    private int cellIndex(int column, int row) {
+        return row * columns + column;
+    }
+}
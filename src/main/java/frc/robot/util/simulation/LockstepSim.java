@@ -0,0 +1,187 @@
+package frc.robot.util.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Robot;
+
+/**
+ * Runs the robot simulation headless and in lockstep, as fast as odometry allows. Run with
+ * {@code ./gradlew lockstepSim -PsimArgs="<auto name> <seconds> <seed>"}.
+ * <p>
+ * WPILib timing is paused, and time only moves when {@link #run(double)} steps it. Each step runs, in order:
+ * <ol>
+ * <li>Every substep registered with {@link #addSubstep(Runnable)} (the MapleSim arena and drivetrain), in the order
+ * they were registered. These replace the Notifiers the simulation normally runs them on.</li>
+ * <li>{@link SimHooks#stepTiming(double)}, which runs the robot loop if it's due, and waits for it to finish. The
+ * IOSims are stepped by their subsystems' simulationPeriodic, in the scheduler's fixed order.</li>
+ * </ol>
+ * Simulation randomness comes from {@link SimLogic#random}, which is seeded here, so a run only depends on its
+ * seed. The exception is the Phoenix odometry thread, which is native and runs on the wall clock at its own
+ * frequency. Left alone it would sample however many steps happened to run between its updates, so runs would
+ * depend on CPU speed and load. The drivetrain's substep waits for the odometry thread to read each step instead,
+ * which paces the simulation at two odometry updates per step, a little slower than real time. Odometry still reads
+ * each step at a slightly different moment, so two runs with the same seed agree closely but not bit for bit.
+ */
+public class LockstepSim implements AutoCloseable {
+
+    public static final double STEP = 0.005;
+
+    private static final List<Runnable> substeps = new ArrayList<>();
+    private static boolean active = false;
+
+    private final Robot robot;
+    private final Thread robotThread;
+
+    /**
+     * Creates the robot with WPILib timing paused and starts its main loop. Only one can exist per JVM.
+     */
+    public LockstepSim(long seed) {
+        if (active) {
+            throw new IllegalStateException("Only one lockstep simulation can run at a time");
+        }
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL");
+        }
+        active = true;
+        SimHooks.pauseTiming();
+        SimLogic.random.setSeed(seed);
+
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+
+        robot = new Robot();
+        robotThread = new Thread(robot::startCompetition, "Lockstep Robot");
+        robotThread.setDaemon(true);
+        robotThread.start();
+        // Wait for robotInit to finish and the robot loop to start waiting on its notifier
+        SimHooks.stepTiming(0);
+    }
+
+    /**
+     * Returns true when the simulation is being stepped by a {@link LockstepSim}, rather than in real time.
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Runs something every {@link #STEP} seconds, before the robot loop. Call this instead of starting a
+     * simulation Notifier when {@link #isActive()}.
+     */
+    public static void addSubstep(Runnable substep) {
+        substeps.add(substep);
+    }
+
+    /**
+     * Selects an autonomous routine by its name in the auto chooser.
+     */
+    public void selectAuto(String name) {
+        NetworkTableInstance.getDefault().getTable("SmartDashboard").getSubTable("Auto Mode")
+            .getEntry("selected").setString(name);
+    }
+
+    public void setAlliance(AllianceStationID station) {
+        DriverStationSim.setAllianceStationId(station);
+        DriverStationSim.notifyNewData();
+    }
+
+    public void disable() {
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+    }
+
+    public void enableAutonomous() {
+        DriverStationSim.setAutonomous(true);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+    }
+
+    public void enableTeleop() {
+        DriverStationSim.setAutonomous(false);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+    }
+
+    /**
+     * Steps the simulation forward.
+     * @param seconds Simulated time to run for, rounded to a whole number of steps
+     */
+    public void run(double seconds) {
+        long steps = Math.round(seconds / STEP);
+        for (long i = 0; i < steps; i++) {
+            for (Runnable substep : substeps) {
+                substep.run();
+            }
+            SimHooks.stepTiming(STEP);
+        }
+    }
+
+    /**
+     * Returns the simulated time, in seconds.
+     */
+    public double getTime() {
+        return Timer.getFPGATimestamp();
+    }
+
+    public Robot getRobot() {
+        return robot;
+    }
+
+    @Override
+    public void close() {
+        robot.endCompetition();
+        // Let the robot loop see that it's been ended
+        SimHooks.stepTiming(STEP);
+        try {
+            robotThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        robot.close();
+        substeps.clear();
+        active = false;
+        SimHooks.resumeTiming();
+    }
+
+    /**
+     * Runs one autonomous routine and prints how it went.
+     * @param args The auto's name, how long to run it for in seconds (15 by default), and the random seed
+     * (180 by default)
+     */
+    public static void main(String[] args) {
+        String auto = args.length > 0 ? args[0] : "Do Nothing";
+        double duration = args.length > 1 ? Double.parseDouble(args[1]) : 15;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 180;
+
+        long start = System.nanoTime();
+        try (LockstepSim sim = new LockstepSim(seed)) {
+            sim.selectAuto(auto);
+            // Give the robot a moment disabled, so the auto selection and alliance are picked up
+            sim.run(0.5);
+            sim.enableAutonomous();
+            sim.run(duration);
+            sim.disable();
+            sim.run(STEP);
+
+            double wallTime = (System.nanoTime() - start) / 1e9;
+            Pose2d pose = sim.getRobot().getSimPose();
+            System.out.printf("Auto: %s (seed %d)%n", auto, seed);
+            System.out.printf("Simulated %.1f s in %.1f s (%.1fx real time)%n",
+                              sim.getTime(), wallTime, sim.getTime() / wallTime);
+            System.out.printf("Coral scored: %d%n", SimLogic.coralScored);
+            System.out.printf("Final pose: (%.3f, %.3f, %.1f deg)%n",
+                              pose.getX(), pose.getY(), pose.getRotation().getDegrees());
+        }
+        HAL.shutdown();
+        System.exit(0);
+    }
+}
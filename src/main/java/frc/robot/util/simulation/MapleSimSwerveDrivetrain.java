@@ -104,6 +104,7 @@ public class MapleSimSwerveDrivetrain {
             simModules[i] = new SimSwerveModule(moduleConstants[0], moduleSimulations[i], modules[i]);
 
         SimulatedArena.overrideSimulationTimings(simPeriod, 1);
+        SimulatedArena.overrideInstance(new TrackedArena());
         SimulatedArena.getInstance().addDriveTrainSimulation(mapleSimDrive);
     }
 
@@ -117,6 +118,13 @@ public class MapleSimSwerveDrivetrain {
      */
     public void update() {
         SimulatedArena.getInstance().simulationPeriodic();
+        syncGyro();
+    }
+
+    /**
+     * Injects the simulated heading and turn rate into the simulated Pigeon.
+     */
+    public void syncGyro() {
         pigeonSim.setRawYaw(
                 mapleSimDrive.getSimulatedDriveTrainPose().getRotation().getMeasure());
         pigeonSim.setAngularVelocityZ(RadiansPerSecond.of(
@@ -4,6 +4,7 @@ import static edu.wpi.first.units.Units.Degrees;
 import static edu.wpi.first.units.Units.Inches;
 import static edu.wpi.first.units.Units.Meters;
 import static edu.wpi.first.units.Units.MetersPerSecond;
+import java.util.Random;
 import org.ironmaple.simulation.SimulatedArena;
 import org.ironmaple.simulation.drivesims.SwerveDriveSimulation;
 import org.ironmaple.simulation.seasonspecific.reefscape2025.ReefscapeAlgaeOnFly;
@@ -31,9 +32,25 @@ public abstract class SimLogic {
     public static boolean intakeHasAlgae = false;
     public static boolean armHasAlgae = false;
     public static int coralScored = 0;
+    // All simulation randomness comes from here, so a lockstep simulation can be repeated from its seed
+    public static final Random random = new Random();
+    // Every simulated coral and algae, for finding the ones near a point without checking them all. Kept in step
+    // with the arena by TrackedArena
+    public static final GamePieceGrid coralGrid = new GamePieceGrid("Coral", 1);
+    public static final GamePieceGrid algaeGrid = new GamePieceGrid("Algae", 1);
+    // How far from its auto start pose the robot is placed at the start of auto
+    public static Transform2d startPoseError = Transform2d.kZero;
 
     public static double armCoralPosition = -1;
 
+    /**
+     * Updates the poses in the game piece grids. Called once per loop, before anything queries them.
+     */
+    public static void updateGamePieces() {
+        coralGrid.update();
+        algaeGrid.update();
+    }
+
     public static boolean robotHasCoral() {
         return intakeHasCoral || armHasCoral;
     }
@@ -61,7 +78,7 @@ public abstract class SimLogic {
             // generate a random physical offset between -0.3 and 0.3 meters and a random rotation
             double xOffset = randomNumberPlusMinus(0.3);
             double yOffset = randomNumberPlusMinus(0.3);
-            double rotationOffset = Math.random() * 360;
+            double rotationOffset = random.nextDouble() * 360;
             Transform2d randomTransform = new Transform2d(xOffset, yOffset, Rotation2d.fromDegrees(rotationOffset));
 
             spawnCoral(coralPose.transformBy(randomTransform));
@@ -144,6 +161,6 @@ public abstract class SimLogic {
     }
 
     private static double randomNumberPlusMinus(double range) {
-        return Math.random() * (range * 2) - range;
+        return random.nextDouble() * (range * 2) - range;
     }
 }
@@ -0,0 +1,54 @@
+package frc.robot.util.simulation;
+
+import org.ironmaple.simulation.gamepieces.GamePieceOnFieldSimulation;
+import org.ironmaple.simulation.gamepieces.GamePieceProjectile;
+import org.ironmaple.simulation.seasonspecific.reefscape2025.Arena2025Reefscape;
+
+/**
+ * The 2025 arena, which keeps {@link SimLogic#coralGrid} and {@link SimLogic#algaeGrid} in step with the game
+ * pieces it adds and removes, so the grids never have to scan the arena for changes.
+ */
+public class TrackedArena extends Arena2025Reefscape {
+
+    @Override
+    public void addGamePiece(GamePieceOnFieldSimulation piece) {
+        super.addGamePiece(piece);
+        GamePieceGrid grid = getGrid(piece.getType());
+        if (grid != null) grid.add(piece, piece.getPose3d());
+    }
+
+    @Override
+    public void removeGamePiece(GamePieceOnFieldSimulation piece) {
+        super.removeGamePiece(piece);
+        GamePieceGrid grid = getGrid(piece.getType());
+        if (grid != null) grid.remove(piece);
+    }
+
+    @Override
+    public void addGamePieceProjectile(GamePieceProjectile piece) {
+        super.addGamePieceProjectile(piece);
+        GamePieceGrid grid = getGrid(piece.getType());
+        if (grid != null) grid.add(piece, piece.getPose3d());
+    }
+
+    @Override
+    public void clearGamePieces() {
+        super.clearGamePieces();
+        SimLogic.coralGrid.clear();
+        SimLogic.algaeGrid.clear();
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        super.simulationPeriodic();
+        // On the thread that steps the arena, so the set isn't changing while it's read
+        SimLogic.coralGrid.removeLanded(gamePiecesLaunched());
+        SimLogic.algaeGrid.removeLanded(gamePiecesLaunched());
+    }
+
+    private static GamePieceGrid getGrid(String type) {
+        if (type.equals(SimLogic.coralGrid.getType())) return SimLogic.coralGrid;
+        if (type.equals(SimLogic.algaeGrid.getType())) return SimLogic.algaeGrid;
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import edu.wpi.first.hal.HAL;
+import frc.robot.generated.TunerConstants;
+import frc.robot.generated.TunerConstants.TunerSwerveDrivetrain;
+
+/**
+ * Checks that the simulated swerve odometry thread actually runs at the frequency it's given, and at
+ * {@link TunerConstants#kOdometryFrequency}.
+ * Phoenix runs the odometry thread in real time, so this takes a few seconds of wall time.
+ */
+class OdometryFrequencyTest {
+
+    private static final int SAMPLES = 100;
+    private static final long SAMPLE_PERIOD_MS = 10;
+
+    @BeforeAll
+    static void setup() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    /**
+     * Returns the median odometry frequency of a drivetrain built from the tuner constants.
+     */
+    private static double measureFrequency(double odometryFrequency) throws InterruptedException {
+        TunerSwerveDrivetrain drivetrain = new TunerSwerveDrivetrain(
+            TunerConstants.DrivetrainConstants, odometryFrequency,
+            TunerConstants.FrontLeft, TunerConstants.FrontRight, TunerConstants.BackLeft, TunerConstants.BackRight
+        );
+        try {
+            // Let the odometry thread start up and settle
+            Thread.sleep(1000);
+
+            double[] periods = new double[SAMPLES];
+            for (int i = 0; i < SAMPLES; i++) {
+                periods[i] = drivetrain.getState().OdometryPeriod;
+                Thread.sleep(SAMPLE_PERIOD_MS);
+            }
+            Arrays.sort(periods);
+            return 1 / periods[SAMPLES / 2];
+        } finally {
+            drivetrain.getOdometryThread().stop();
+        }
+    }
+
+    @Test
+    void odometryRunsAtTheConfiguredFrequency() throws InterruptedException {
+        double frequency = measureFrequency(TunerConstants.kOdometryFrequency);
+        assertEquals(TunerConstants.kOdometryFrequency, frequency, TunerConstants.kOdometryFrequency * 0.1);
+    }
+
+    @Test
+    void changingTheFrequencyTakesEffect() throws InterruptedException {
+        // Not the default on either bus
+        assertEquals(150, measureFrequency(150), 15);
+    }
+}
@@ -0,0 +1,37 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class AbsoluteSeederTest {
+
+    private static final double TOLERANCE = 0.01;
+    private static final double MAX_VELOCITY = 0.05;
+
+    @Test
+    void theFirstValidReadingAlwaysSeeds() {
+        AbsoluteSeeder seeder = new AbsoluteSeeder(TOLERANCE, MAX_VELOCITY);
+        assertFalse(seeder.shouldSeed(0, 0.4, 0, false));
+        assertFalse(seeder.isSeeded());
+
+        // Even while moving, and even if the encoders already agree
+        assertTrue(seeder.shouldSeed(0.4, 0.4, 1, true));
+        assertTrue(seeder.isSeeded());
+        assertEquals(1, seeder.getSeedCount());
+    }
+
+    @Test
+    void reseedsOnlyWhenStillAndOutOfTolerance() {
+        AbsoluteSeeder seeder = new AbsoluteSeeder(TOLERANCE, MAX_VELOCITY);
+        seeder.shouldSeed(0, 0, 0, true);
+
+        assertFalse(seeder.shouldSeed(0.005, 0, 0, true));
+        // Moving, so a lagging absolute reading can't yank the encoder
+        assertFalse(seeder.shouldSeed(0.1, 0, 0.5, true));
+        // Disconnected
+        assertFalse(seeder.shouldSeed(0.1, 0, 0, false));
+
+        assertTrue(seeder.shouldSeed(0.1, 0, 0.01, true));
+        assertEquals(2, seeder.getSeedCount());
+    }
+}
@@ -0,0 +1,164 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.IntegerSubscriber;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.RawSubscriber;
+import edu.wpi.first.networktables.StringSubscriber;
+import edu.wpi.first.networktables.TimestampedDouble;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DataLogWriter;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+
+class AsyncEpilogueBackendTest {
+
+    @TempDir
+    Path logDir;
+
+    private NetworkTableInstance nt;
+    private DataLog log;
+    private AsyncEpilogueBackend backend;
+
+    @BeforeAll
+    static void setupAll() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @BeforeEach
+    void setup() {
+        nt = NetworkTableInstance.create();
+        log = new DataLogWriter(logDir.resolve("test.wpilog").toString());
+        backend = new AsyncEpilogueBackend(nt, log);
+    }
+
+    @AfterEach
+    void teardown() {
+        backend.close();
+        log.close();
+        nt.close();
+        DriverStationSim.setFmsAttached(false);
+        DriverStationSim.notifyNewData();
+    }
+
+    private void pass(Runnable logging) {
+        backend.beginBatch();
+        logging.run();
+        backend.endBatch();
+        assertTrue(backend.flush());
+    }
+
+    @Test
+    void valuesArePublished() {
+        DoubleSubscriber number = nt.getDoubleTopic("Test/Number").subscribe(0);
+        DoubleArraySubscriber numbers = nt.getDoubleArrayTopic("Test/Numbers").subscribe(new double[0]);
+        StringSubscriber text = nt.getStringTopic("Nested/Text").subscribe("");
+        RawSubscriber translation = nt.getRawTopic("Test/Translation").subscribe("", new byte[0]);
+
+        pass(() -> {
+            backend.log("Test/Number", 1.5);
+            backend.log("Test/Numbers", new double[] { 1, 2, 3 });
+            backend.getNested("Nested").log("Text", "hello");
+            backend.log("Test/Translation", new Translation2d(1, 2), Translation2d.struct);
+        });
+
+        assertEquals(1.5, number.get());
+        assertArrayEquals(new double[] { 1, 2, 3 }, numbers.get());
+        assertEquals("hello", text.get());
+        assertEquals(Translation2d.struct.getSize(), translation.get().length);
+        assertEquals("struct:Translation2d", nt.getTopic("Test/Translation").getTypeString());
+    }
+
+    @Test
+    void arraysKeepTheirLengthWhenItChanges() {
+        DoubleArraySubscriber numbers = nt.getDoubleArrayTopic("Test/Numbers").subscribe(new double[0]);
+
+        pass(() -> backend.log("Test/Numbers", new double[] { 1, 2, 3 }));
+        pass(() -> backend.log("Test/Numbers", new double[] { 4 }));
+        assertArrayEquals(new double[] { 4 }, numbers.get());
+        pass(() -> backend.log("Test/Numbers", new double[] { 5, 6 }));
+        assertArrayEquals(new double[] { 5, 6 }, numbers.get());
+    }
+
+    @Test
+    void valuesFromOnePassShareATimestamp() {
+        DoubleSubscriber a = nt.getDoubleTopic("Test/A").subscribe(0);
+        DoubleSubscriber b = nt.getDoubleTopic("Test/B").subscribe(0);
+
+        pass(() -> {
+            backend.log("Test/A", 1.0);
+            backend.log("Test/B", 2.0);
+        });
+
+        TimestampedDouble first = a.getAtomic();
+        TimestampedDouble second = b.getAtomic();
+        assertEquals(first.timestamp, second.timestamp);
+    }
+
+    @Test
+    void decimatedFieldsAreLoggedEveryNthPass() {
+        backend.setDecimation("Slow", 3);
+        DoubleSubscriber slow = nt.getDoubleTopic("Test/Slow").subscribe(0, PubSubOption.pollStorage(10));
+
+        for (int i = 0; i < 6; i++) {
+            double value = i;
+            pass(() -> backend.log("Test/Slow", value));
+        }
+
+        TimestampedDouble[] values = slow.readQueue();
+        assertEquals(2, values.length);
+        assertEquals(0, values[0].value);
+        assertEquals(3, values[1].value);
+    }
+
+    @Test
+    void aTypeChangeIsDroppedAndCounted() {
+        IntegerSubscriber value = nt.getIntegerTopic("Test/Value").subscribe(0);
+        IntegerSubscriber mismatches = nt.getIntegerTopic("Epilogue/Stats/Type Mismatches").subscribe(-1);
+
+        pass(() -> backend.log("Test/Value", 3));
+        pass(() -> backend.log("Test/Value", 4.5));
+
+        assertEquals(3, value.get());
+        assertEquals(1, mismatches.get());
+    }
+
+    @Test
+    void onlyMarkedFieldsArePublishedInMatches() {
+        backend.markPublishedInMatch(() -> backend.log("Test/Important", 0.0));
+        DriverStationSim.setFmsAttached(true);
+        DriverStationSim.notifyNewData();
+
+        pass(() -> {
+            backend.log("Test/Important", 1.0);
+            backend.log("Test/Debug", 2.0);
+        });
+
+        assertTrue(nt.getTopic("Test/Important").exists());
+        // Written to the DataLog instead
+        assertFalse(nt.getTopic("Test/Debug").exists());
+    }
+
+    @Test
+    void valuesAfterCloseAreDropped() {
+        DoubleSubscriber number = nt.getDoubleTopic("Test/Number").subscribe(0);
+        pass(() -> backend.log("Test/Number", 1.0));
+        backend.close();
+
+        backend.beginBatch();
+        backend.log("Test/Number", 2.0);
+        backend.endBatch();
+        assertTrue(backend.flush());
+        assertEquals(1.0, number.get());
+    }
+}
@@ -0,0 +1,123 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.subsystems.vision.VisionSubsystem;
+
+class AutoScoringOptimizerTest {
+
+    private static final double EPSILON = 1e-9;
+
+    // The same approximations AutoScoringOptimizerBenchmark uses
+    private static final Transform2d LEFT_REEF_TRANSFORM = new Transform2d(0.54, -0.165, Rotation2d.k180deg);
+    private static final Transform2d RIGHT_REEF_TRANSFORM = new Transform2d(0.54, 0.165, Rotation2d.k180deg);
+    private static final TrapezoidProfile.Constraints DRIVE_CONSTRAINTS = new TrapezoidProfile.Constraints(3.84, 5);
+    private static final Pose2d START = new Pose2d(7, 5.5, Rotation2d.fromDegrees(240));
+
+    private final HashMap<Integer, Pose2d> leftPoses = new HashMap<>();
+    private final List<CoralScoringPosition> all = new ArrayList<>();
+    private AutoScoringOptimizer optimizer;
+
+    @BeforeEach
+    void setup() throws Exception {
+        AprilTagFieldLayout layout =
+            AprilTagFieldLayout.loadFromResource(AprilTagFields.k2025ReefscapeWelded.m_resourceFile);
+        HashMap<Integer, Pose2d> rightPoses = new HashMap<>();
+        for (int tag : VisionSubsystem.blueReefTags) {
+            Pose2d tagPose = layout.getTagPose(tag).get().toPose2d();
+            leftPoses.put(tag, tagPose.transformBy(LEFT_REEF_TRANSFORM));
+            rightPoses.put(tag, tagPose.transformBy(RIGHT_REEF_TRANSFORM));
+            for (int level = 2; level <= 4; level++) {
+                all.add(new CoralScoringPosition(tag, level, true));
+                all.add(new CoralScoringPosition(tag, level, false));
+            }
+        }
+        optimizer = new AutoScoringOptimizer(
+            leftPoses,
+            rightPoses,
+            new Pose2d(1.2, 7.0, Rotation2d.fromDegrees(-54)),
+            new Pose2d(1.2, 1.0, Rotation2d.fromDegrees(54)),
+            DRIVE_CONSTRAINTS,
+            new TrapezoidProfile.Constraints(3 * Math.PI, 24 * Math.PI)
+        );
+    }
+
+    private List<CoralScoringPosition> randomPlacements(int count, Random random) {
+        List<CoralScoringPosition> shuffled = new ArrayList<>(all);
+        Collections.shuffle(shuffled, random);
+        return new ArrayList<>(shuffled.subList(0, count));
+    }
+
+    @Test
+    void theOrderUsesEveryPlacementOnce() {
+        List<CoralScoringPosition> placements = randomPlacements(6, new Random(1));
+        List<CoralScoringPosition> optimized = optimizer.optimize(START, placements);
+
+        assertEquals(placements.size(), optimized.size());
+        assertEquals(new HashSet<>(placements), new HashSet<>(optimized));
+        for (int i = 1; i < optimized.size(); i++) {
+            assertTrue(optimizer.getCompletionTime(i) > optimizer.getCompletionTime(i - 1));
+        }
+        assertEquals(optimizer.getBestTime(), optimizer.getCompletionTime(optimized.size() - 1), 1e-6);
+    }
+
+    @Test
+    void theSearchNeverLosesToTheGreedyOrder() {
+        Random random = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            List<CoralScoringPosition> placements = randomPlacements(5, random);
+            // A budget of one node leaves only the greedy order that seeds the search
+            optimizer.setNodeBudget(1);
+            optimizer.optimize(START, placements);
+            double greedyTime = optimizer.getBestTime();
+
+            optimizer.setNodeBudget(Long.MAX_VALUE);
+            optimizer.optimize(START, placements);
+            assertTrue(optimizer.getBestTime() <= greedyTime + EPSILON);
+        }
+    }
+
+    @Test
+    void theInputOrderDoesNotChangeTheBestTime() {
+        Random random = new Random(3);
+        List<CoralScoringPosition> placements = randomPlacements(5, random);
+        optimizer.optimize(START, placements, true);
+        double bestTime = optimizer.getBestTime();
+
+        Collections.shuffle(placements, random);
+        optimizer.optimize(START, placements, true);
+        assertEquals(bestTime, optimizer.getBestTime(), 1e-6);
+    }
+
+    @Test
+    void pathsWrapAroundTheReef() {
+        // Scoring poses on opposite faces of the reef
+        Pose2d near = leftPoses.get(18);
+        Pose2d far = new Pose2d(leftPoses.get(21).getTranslation(), near.getRotation());
+        double straightTime = ProfileTiming.profileTime(near.getTranslation().getDistance(far.getTranslation()),
+                                                        DRIVE_CONSTRAINTS);
+        assertTrue(optimizer.travelTime(near, far) > straightTime);
+    }
+
+    @Test
+    void invalidPlacementsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> optimizer.optimize(START, randomPlacements(AutoScoringOptimizer.MAX_PLACEMENTS + 1,
+                                                                      new Random(4))));
+        assertThrows(IllegalArgumentException.class,
+                     () -> optimizer.optimize(START, List.of(new CoralScoringPosition(1, 4, true))));
+    }
+}
@@ -0,0 +1,50 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class CachedConditionTest {
+
+    private int evaluations;
+    private boolean value;
+
+    private boolean source() {
+        evaluations++;
+        return value;
+    }
+
+    @Test
+    void evaluatesOncePerCycle() {
+        CachedCondition condition = CachedCondition.of("Test/Once Per Cycle", this::source);
+        value = true;
+
+        assertTrue(condition.getAsBoolean());
+        value = false;
+        // Still the value from the first read this cycle
+        assertTrue(condition.getAsBoolean());
+        assertEquals(1, evaluations);
+
+        CachedCondition.nextCycle();
+        assertFalse(condition.getAsBoolean());
+        assertEquals(2, evaluations);
+        assertEquals(2, condition.getEvaluations());
+        assertEquals(3, condition.getReads());
+    }
+
+    @Test
+    void unreadCyclesAreNotEvaluated() {
+        CachedCondition condition = CachedCondition.of("Test/Unread Cycles", this::source);
+        for (int i = 0; i < 5; i++) {
+            CachedCondition.nextCycle();
+        }
+        assertEquals(0, condition.getEvaluations());
+        condition.getAsBoolean();
+        assertEquals(1, condition.getEvaluations());
+    }
+
+    @Test
+    void duplicateNamesAreRejected() {
+        CachedCondition.of("Test/Duplicate", this::source);
+        assertThrows(IllegalArgumentException.class, () -> CachedCondition.of("Test/Duplicate", this::source));
+    }
+}
@@ -0,0 +1,59 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.hardware.TalonFX;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.units.measure.Angle;
+import frc.robot.util.StatusSignals.Priority;
+
+class CanBudgetTest {
+
+    private static final double EPSILON = 1e-6;
+
+    @BeforeAll
+    static void setup() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @Test
+    void anEstimateOverTheWarningLevelFailsTheCheck() {
+        CanBudget budget = new CanBudget("Test Budget", 1000);
+        CanBudget.addLoad("Test Budget", "Steady load", 500);
+        budget.report();
+        assertEquals(0.5, budget.getEstimatedUtilization(), EPSILON);
+        assertTrue(budget.isWithinBudget());
+
+        CanBudget.addLoad("Test Budget", "Extra load", 300);
+        budget.report();
+        assertEquals(0.8, budget.getEstimatedUtilization(), EPSILON);
+        assertFalse(budget.isWithinBudget());
+        assertEquals("Extra load (300 Hz)", budget.getHeaviest()[1]);
+    }
+
+    @Test
+    void otherBusesAreNotCounted() {
+        CanBudget budget = new CanBudget("Test Empty", 1000);
+        CanBudget.addLoad("Test Other", "Elsewhere", 900);
+        budget.report();
+        assertEquals(0, budget.getEstimatedFramesPerSecond(), EPSILON);
+        assertTrue(budget.isWithinBudget());
+    }
+
+    @Test
+    void aTrackedAndKeptSignalIsCountedOnce() {
+        // Left open, since StatusSignals keeps every device it's given
+        TalonFX motor = new TalonFX(61, "Test Signals");
+        StatusSignal<Angle> position = motor.getPosition();
+        StatusSignals.trackSignal(motor, Priority.NORMAL, position);
+        StatusSignals.keepSignals(motor, Priority.CRITICAL, position);
+        CanBudget.addSignals(motor, position);
+
+        CanBudget budget = new CanBudget("Test Signals", 1000);
+        budget.report();
+        // One position frame, plus the motor's control frames
+        assertEquals(position.getAppliedUpdateFrequency() + 100, budget.getEstimatedFramesPerSecond(), EPSILON);
+    }
+}
@@ -0,0 +1,114 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+
+class EncoderFusionTest {
+
+    private static final double PERIOD = 0.02;
+    private static final double DRIFT_TOLERANCE = 0.01;
+    private static final double SLIP_THRESHOLD = 0.1;
+    private static final double EPSILON = 1e-9;
+
+    private EncoderFusion fusion;
+
+    @BeforeAll
+    static void setupAll() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @BeforeEach
+    void setup() {
+        SimHooks.pauseTiming();
+        fusion = new EncoderFusion(1, 0, DRIFT_TOLERANCE, SLIP_THRESHOLD, 0.05, 0.2);
+        fusion.sync(0);
+    }
+
+    @AfterEach
+    void teardown() {
+        SimHooks.resumeTiming();
+    }
+
+    private double step(double raw, double relative) {
+        SimHooks.stepTiming(PERIOD);
+        return fusion.update(Timer.getFPGATimestamp(), raw, relative, true);
+    }
+
+    /**
+     * Holds still for a while, returning the first correction.
+     */
+    private double holdStill(double raw, double relative) {
+        double correction = Double.NaN;
+        for (int i = 0; i < 50; i++) {
+            double result = step(raw, relative);
+            if (Double.isNaN(correction) && !Double.isNaN(result)) {
+                correction = result;
+                relative = result;
+            }
+        }
+        return correction;
+    }
+
+    @Test
+    void velocityUsesTheMeasurementTimestamps() {
+        fusion.update(1.00, 0, 0, false);
+        fusion.update(1.01, 0, 0.01, false);
+        assertEquals(1, fusion.getVelocity(), EPSILON);
+
+        // Loops without a new frame keep the last velocity instead of looking still
+        fusion.update(1.01, 0, 0.01, false);
+        assertEquals(1, fusion.getVelocity(), EPSILON);
+
+        fusion.update(1.04, 0, 0.07, false);
+        assertEquals(2, fusion.getVelocity(), EPSILON);
+    }
+
+    @Test
+    void smallDriftIsCorrectedWhileStill() {
+        assertEquals(0.02, holdStill(0.02, 0), EPSILON);
+        assertEquals(1, fusion.getCorrectionCount());
+        assertEquals(0, fusion.getSlipCount());
+    }
+
+    @Test
+    void driftWithinToleranceIsLeftAlone() {
+        assertTrue(Double.isNaN(holdStill(0.005, 0)));
+        assertEquals(0, fusion.getCorrectionCount());
+    }
+
+    @Test
+    void slipIsDetectedWhileMovingAndCorrectedOnceStill() {
+        double relative = 0;
+        for (int i = 0; i < 50; i++) {
+            relative += PERIOD;
+            // The relative encoder skipped half a rotation
+            assertTrue(Double.isNaN(step(relative + 0.5, relative)));
+        }
+        assertTrue(fusion.isSlipping());
+        assertEquals(1, fusion.getSlipCount());
+
+        assertEquals(relative + 0.5, holdStill(relative + 0.5, relative), EPSILON);
+    }
+
+    @Test
+    void settledMovesRefineTheScale() {
+        // The absolute sensor really reads 1.1 mechanism rotations per raw unit
+        double trueScale = 1.1;
+        holdStill(0, 0);
+
+        double relative = 0;
+        for (int i = 0; i < 50; i++) {
+            relative += PERIOD;
+            step(relative / trueScale, relative);
+        }
+        holdStill(relative / trueScale, relative);
+
+        assertEquals(1 + 0.2 * (trueScale - 1), fusion.getScale(), EPSILON);
+    }
+}
@@ -0,0 +1,99 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class FeedforwardEstimatorTest {
+
+    private static final double KS = 0.2, KG = 0.4, KV = 3, KA = 0.3;
+    private static final double PERIOD = 0.02;
+    private static final double EPSILON = 1e-3;
+
+    private static double voltage(double velocity, double acceleration) {
+        return KS * Math.signum(velocity) + KG + KV * velocity + KA * acceleration;
+    }
+
+    private static FeedforwardEstimator createEstimator() {
+        // Starting from the wrong gains
+        return new FeedforwardEstimator(0, 0, 1, 0, 0.05, 11, 1, 50);
+    }
+
+    /**
+     * Moves up and down sinusoidally, which excites every gain.
+     */
+    private static void oscillate(FeedforwardEstimator estimator, double seconds) {
+        for (double t = 0; t < seconds; t += PERIOD) {
+            double velocity = Math.cos(3 * t);
+            double acceleration = -3 * Math.sin(3 * t);
+            estimator.addSample(voltage(velocity, acceleration), 0, velocity, acceleration);
+        }
+    }
+
+    @Test
+    void fitsTheGainsOfAnOscillation() {
+        FeedforwardEstimator estimator = createEstimator();
+        oscillate(estimator, 30);
+
+        assertTrue(estimator.isConverged());
+        assertEquals(KS, estimator.getKS(), EPSILON);
+        assertEquals(KG, estimator.getKG(), EPSILON);
+        assertEquals(KV, estimator.getKV(), EPSILON);
+        assertEquals(KA, estimator.getKA(), EPSILON);
+        assertEquals(0, estimator.getLastError(), EPSILON);
+    }
+
+    @Test
+    void unusableSamplesAreIgnored() {
+        FeedforwardEstimator estimator = createEstimator();
+        // Too slow
+        assertFalse(estimator.addSample(voltage(0.01, 0), 0, 0.01, 0));
+        // Saturated
+        assertFalse(estimator.addSample(12, 0, 3, 0));
+        // Mostly feedback
+        assertFalse(estimator.addSample(voltage(1, 0) + 2, 2, 1, 0));
+        assertFalse(estimator.addSample(Double.NaN, 0, 1, 0));
+
+        assertTrue(estimator.addSample(voltage(1, 0), 0.5, 1, 0));
+        assertEquals(1, estimator.getUpSamples());
+        assertEquals(0, estimator.getDownSamples());
+    }
+
+    @Test
+    void motionInOneDirectionDoesNotConverge() {
+        FeedforwardEstimator estimator = createEstimator();
+        for (double t = 0; t < 5; t += PERIOD) {
+            double velocity = 1 + 0.5 * Math.sin(3 * t);
+            double acceleration = 1.5 * Math.cos(3 * t);
+            estimator.addSample(voltage(velocity, acceleration), 0, velocity, acceleration);
+        }
+        assertEquals(0, estimator.getDownSamples());
+        // kS and kG can't be told apart
+        assertTrue(estimator.getCondition() > 1e6);
+        assertFalse(estimator.isConverged());
+    }
+
+    @Test
+    void unexcitedGainsDoNotConverge() {
+        FeedforwardEstimator estimator = createEstimator();
+        // Plenty of samples each way, but at one speed and without accelerating
+        for (int i = 0; i < 200; i++) {
+            double velocity = i % 2 == 0 ? 1 : -1;
+            estimator.addSample(voltage(velocity, 0), 0, velocity, 0);
+        }
+        assertTrue(estimator.getUpSamples() >= 50);
+        assertTrue(estimator.getDownSamples() >= 50);
+        assertFalse(estimator.isConverged());
+    }
+
+    @Test
+    void resetStartsOver() {
+        FeedforwardEstimator estimator = createEstimator();
+        oscillate(estimator, 30);
+        estimator.reset(1, 2, 3, 4);
+
+        assertFalse(estimator.isConverged());
+        assertEquals(0, estimator.getUpSamples());
+        assertEquals(1, estimator.getKS());
+        assertEquals(4, estimator.getKA());
+    }
+}
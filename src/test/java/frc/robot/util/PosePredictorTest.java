@@ -0,0 +1,105 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.ctre.phoenix6.swerve.SwerveDrivetrain.SwerveDriveState;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.util.PosePredictor.PredictedPose;
+
+class PosePredictorTest {
+
+    private static final double MAX_SPEED = 4;
+    private static final double PERIOD = 0.02;
+    private static final double EPSILON = 1e-6;
+
+    private static SwerveDriveState state(double x, double y, double degrees, double vx, double vy, double omega,
+                                          double timestamp) {
+        SwerveDriveState state = SwerveStateBuffer.createState(4);
+        state.Pose = new Pose2d(x, y, Rotation2d.fromDegrees(degrees));
+        state.Speeds.vxMetersPerSecond = vx;
+        state.Speeds.vyMetersPerSecond = vy;
+        state.Speeds.omegaRadiansPerSecond = omega;
+        state.Timestamp = timestamp;
+        return state;
+    }
+
+    @Test
+    void constantVelocityMovesInAStraightLine() {
+        PosePredictor predictor = new PosePredictor(MAX_SPEED, PERIOD);
+        predictor.update(state(1, 2, 0, 2, 0, 0, 1), null);
+
+        PredictedPose predicted = predictor.predict(0.5, new PredictedPose());
+        assertEquals(2, predicted.x, EPSILON);
+        assertEquals(2, predicted.y, EPSILON);
+        assertEquals(0, predicted.theta, EPSILON);
+    }
+
+    @Test
+    void robotRelativeSpeedsAreRotatedOntoTheField() {
+        PosePredictor predictor = new PosePredictor(MAX_SPEED, PERIOD);
+        // Facing +Y and driving forward, while turning
+        predictor.update(state(0, 0, 90, 1, 0, 1, 1), null);
+
+        PredictedPose predicted = predictor.predict(1, new PredictedPose());
+        assertEquals(0, predicted.x, EPSILON);
+        assertEquals(1, predicted.y, EPSILON);
+        assertEquals(Math.PI / 2 + 1, predicted.theta, EPSILON);
+    }
+
+    @Test
+    void accelerationIsCappedAtMaxSpeed() {
+        PosePredictor predictor = new PosePredictor(MAX_SPEED, PERIOD);
+        // Speeding up at 40 m/s^2, which the filter smooths but still reaches max speed over the horizon
+        for (int i = 0; i < 50; i++) {
+            double t = i * PERIOD;
+            predictor.update(state(0, 0, 0, 2 + 0.8, 0, 0, t + PERIOD), state(0, 0, 0, 2, 0, 0, t));
+        }
+
+        PredictedPose predicted = predictor.predict(1, new PredictedPose());
+        assertTrue(predicted.x > 2.8);
+        assertTrue(predicted.x <= MAX_SPEED + EPSILON);
+    }
+
+    @Test
+    void brakingStopsInsteadOfReversing() {
+        PosePredictor predictor = new PosePredictor(MAX_SPEED, PERIOD);
+        // Slowing from 1.2 to 1 m/s every 20 ms, i.e. -10 m/s^2
+        for (int i = 0; i < 100; i++) {
+            double t = i * PERIOD;
+            predictor.update(state(0, 0, 0, 1, 0, 0, t + PERIOD), state(0, 0, 0, 1.2, 0, 0, t));
+        }
+
+        PredictedPose shortHorizon = predictor.predict(0.5, new PredictedPose());
+        PredictedPose longHorizon = predictor.predict(2, new PredictedPose());
+        // Stopping from 1 m/s at 10 m/s^2 takes 5 cm, and the robot stays stopped after that
+        assertTrue(shortHorizon.x > 0);
+        assertTrue(shortHorizon.x < 0.1);
+        assertEquals(shortHorizon.x, longHorizon.x, EPSILON);
+    }
+
+    @Test
+    void aPreviousStateFromTheSameTimeIsIgnored() {
+        PosePredictor predictor = new PosePredictor(MAX_SPEED, PERIOD);
+        SwerveDriveState current = state(0, 0, 0, 1, 0, 0, 1);
+        predictor.update(current, state(0, 0, 0, 0, 0, 0, 1));
+
+        // With no usable acceleration, the prediction is constant velocity
+        PredictedPose predicted = predictor.predict(1, new PredictedPose());
+        assertEquals(1, predicted.x, EPSILON);
+    }
+
+    @Test
+    void withinToleranceUsesThePredictedPose() {
+        PredictedPose predicted = new PredictedPose();
+        predicted.x = 1;
+        predicted.y = 1;
+        predicted.theta = Math.toRadians(179);
+        Pose2d target = new Pose2d(1.1, 0.95, Rotation2d.fromDegrees(-179));
+
+        assertTrue(predicted.withinTolerance(target, 0.2, 0.2, 5.0));
+        assertFalse(predicted.withinTolerance(target, 0.05, 0.2, 5.0));
+        assertFalse(predicted.withinTolerance(target, 0.2, 0.2, 1.0));
+        assertFalse(predicted.withinTolerance(null, 0.2, 0.2, 5.0));
+    }
+}
@@ -0,0 +1,29 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+
+class ProfileTimingTest {
+
+    private static final TrapezoidProfile.Constraints CONSTRAINTS = new TrapezoidProfile.Constraints(2, 4);
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void profileTimeMatchesTrapezoidProfile() {
+        TrapezoidProfile profile = new TrapezoidProfile(CONSTRAINTS);
+        for (double distance : new double[] {0, 0.1, 0.5, 1, 3, 10}) {
+            profile.calculate(0, new TrapezoidProfile.State(0, 0), new TrapezoidProfile.State(distance, 0));
+            assertEquals(profile.totalTime(), ProfileTiming.profileTime(distance, CONSTRAINTS), 1e-6);
+        }
+    }
+
+    @Test
+    void accelerationTimeDoesNotSlowDown() {
+        // Reaching max velocity takes 0.5 s and 0.5 m, then it's 2 m/s
+        assertEquals(0.5, ProfileTiming.accelerationTime(0.5, CONSTRAINTS), EPSILON);
+        assertEquals(1, ProfileTiming.accelerationTime(1.5, CONSTRAINTS), EPSILON);
+        assertEquals(Math.sqrt(2 * 0.2 / 4), ProfileTiming.accelerationTime(0.2, CONSTRAINTS), EPSILON);
+        assertTrue(ProfileTiming.accelerationTime(1.5, CONSTRAINTS) < ProfileTiming.profileTime(1.5, CONSTRAINTS));
+    }
+}
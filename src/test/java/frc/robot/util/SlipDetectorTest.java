@@ -0,0 +1,123 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.ctre.phoenix6.swerve.SwerveDrivetrain.SwerveDriveState;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+class SlipDetectorTest {
+
+    private static final Translation2d[] MODULES = {
+        new Translation2d(0.3, 0.3),
+        new Translation2d(0.3, -0.3),
+        new Translation2d(-0.3, 0.3),
+        new Translation2d(-0.3, -0.3)
+    };
+    private static final double GRAVITY = 9.80665;
+    private static final double MAX_ACCEL = 5;
+
+    // A state where every module agrees with driving straight forward
+    private static SwerveDriveState driving(double vx, double timestamp) {
+        SwerveDriveState state = SwerveStateBuffer.createState(MODULES.length);
+        state.Speeds.vxMetersPerSecond = vx;
+        for (int i = 0; i < MODULES.length; i++) {
+            state.ModuleStates[i].speedMetersPerSecond = vx;
+            state.ModuleStates[i].angle = Rotation2d.kZero;
+        }
+        state.Timestamp = timestamp;
+        return state;
+    }
+
+    @Test
+    void agreeingModulesAreNotSlipping() {
+        SlipDetector detector = new SlipDetector(MODULES, MAX_ACCEL);
+        for (int i = 0; i < 10; i++) {
+            assertFalse(detector.update(driving(1, i * 0.02), Double.NaN, Double.NaN, i * 0.02));
+        }
+        assertEquals(0, detector.getFitResidual(), 1e-9);
+        assertEquals(0, detector.getSlipEvents());
+    }
+
+    @Test
+    void aModuleDisagreeingWithTheFitIsSlip() {
+        SlipDetector detector = new SlipDetector(MODULES, MAX_ACCEL);
+        SwerveDriveState state = driving(1, 0);
+        state.ModuleStates[0].speedMetersPerSecond = 3;
+
+        assertTrue(detector.update(state, Double.NaN, Double.NaN, 0));
+        assertTrue(detector.getFitResidual() > 0.5);
+        assertEquals(1, detector.getSlipEvents());
+    }
+
+    @Test
+    void followingTheCommandIsNotSlip() {
+        SlipDetector detector = new SlipDetector(MODULES, MAX_ACCEL);
+        double accel = 4;
+        // Accelerate steadily, with the loop running late every other update. A fixed 20 ms period would see the
+        // commanded acceleration double on the late updates.
+        double time = 0;
+        for (int i = 0; i < 20; i++) {
+            time += i % 2 == 0 ? 0.02 : 0.04;
+            detector.command(new ChassisSpeeds(accel * time, 0, 0), time);
+            assertFalse(detector.update(driving(accel * time, time), accel / GRAVITY, 0, time));
+            assertEquals(0, detector.getAccelError(), 1e-6);
+        }
+    }
+
+    @Test
+    void wheelsSpinningUpWithoutTheChassisAreSlip() {
+        SlipDetector detector = new SlipDetector(MODULES, MAX_ACCEL);
+        boolean detected = false;
+        for (int i = 0; i < 10; i++) {
+            double time = i * 0.02;
+            // The wheels follow the command in lockstep, but the chassis is pinned and the accelerometer reads nothing
+            detector.command(new ChassisSpeeds(MAX_ACCEL * time, 0, 0), time);
+            detected |= detector.update(driving(MAX_ACCEL * time, time), 0, 0, time);
+        }
+        assertTrue(detected);
+    }
+
+    @Test
+    void commandsBeyondTheDrivetrainAreLimited() {
+        SlipDetector detector = new SlipDetector(MODULES, MAX_ACCEL);
+        detector.command(new ChassisSpeeds(), 0);
+        // A joystick flick from rest to full speed in one loop
+        detector.command(new ChassisSpeeds(4, 3, 0), 0.02);
+        assertEquals(4, detector.getCommandedAccelX(), 1e-9);
+        assertEquals(3, detector.getCommandedAccelY(), 1e-9);
+    }
+
+    @Test
+    void turningWhileDrivingCommandsCentripetalAcceleration() {
+        SlipDetector detector = new SlipDetector(MODULES, MAX_ACCEL);
+        detector.command(new ChassisSpeeds(2, 0, 1), 0);
+        detector.command(new ChassisSpeeds(2, 0, 1), 0.02);
+        assertEquals(0, detector.getCommandedAccelX(), 1e-9);
+        assertEquals(2, detector.getCommandedAccelY(), 1e-9);
+    }
+
+    @Test
+    void staleCommandsAreNotCompared() {
+        SlipDetector detector = new SlipDetector(MODULES, MAX_ACCEL);
+        detector.command(new ChassisSpeeds(), 0);
+        detector.command(new ChassisSpeeds(0.1, 0, 0), 0.02);
+        // Another request (like braking) has been running since, so a hit can't be told apart from the command
+        assertFalse(detector.update(driving(0, 1), 0, 2, 1));
+        assertEquals(0, detector.getAccelError());
+    }
+
+    @Test
+    void aHitThatWasntCommandedIsDetected() {
+        SlipDetector detector = new SlipDetector(MODULES, MAX_ACCEL);
+        boolean detected = false;
+        for (int i = 0; i < 5; i++) {
+            double time = i * 0.02;
+            // Holding a constant speed while the accelerometer reads a 2 g hit from the side
+            detector.command(new ChassisSpeeds(1, 0, 0), time);
+            detected |= detector.update(driving(1, time), 0, 2, time);
+        }
+        assertTrue(detected);
+    }
+}
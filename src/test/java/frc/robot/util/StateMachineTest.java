@@ -0,0 +1,129 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+class StateMachineTest {
+
+    private enum TestState { IDLE, READY, ACTIVE, DONE }
+
+    @TempDir
+    static Path logDir;
+
+    private StateMachine<TestState> machine;
+    private boolean ready, go, finished;
+    private int goCalls;
+
+    private final BooleanSupplier readyGuard = () -> ready;
+    private final BooleanSupplier goGuard = () -> {
+        goCalls++;
+        return go;
+    };
+    private final BooleanSupplier finishedGuard = () -> finished;
+
+    @BeforeAll
+    static void setupAll() {
+        assertTrue(HAL.initialize(500, 0));
+        DataLogManager.start(logDir.toString());
+    }
+
+    @BeforeEach
+    void setup() {
+        SimHooks.pauseTiming();
+        machine = new StateMachine<>("Test", TestState.class, TestState.IDLE);
+        machine
+            .addTransition(TestState.IDLE, TestState.READY, readyGuard)
+            .addTransition(TestState.IDLE, TestState.ACTIVE, goGuard)
+            .addTransition(TestState.READY, TestState.ACTIVE, goGuard)
+            .addTransitionUnless(TestState.READY, TestState.IDLE, readyGuard)
+            .addTransition(TestState.ACTIVE, TestState.DONE, finishedGuard)
+            .addTransitionUnless(TestState.DONE, TestState.IDLE, readyGuard);
+    }
+
+    @AfterEach
+    void teardown() {
+        CommandScheduler.getInstance().unregisterSubsystem(machine);
+        SimHooks.resumeTiming();
+    }
+
+    @Test
+    void earlierTransitionsTakePriority() {
+        ready = true;
+        go = true;
+        machine.update();
+        assertEquals(TestState.READY, machine.getState());
+    }
+
+    @Test
+    void atMostOneTransitionPerUpdate() {
+        ready = true;
+        go = true;
+        finished = true;
+
+        machine.update();
+        assertEquals(TestState.READY, machine.getState());
+        machine.update();
+        assertEquals(TestState.ACTIVE, machine.getState());
+        machine.update();
+        assertEquals(TestState.DONE, machine.getState());
+        assertEquals(3, machine.getTransitionCount());
+    }
+
+    @Test
+    void sharedGuardsAreEvaluatedOncePerUpdate() {
+        for (int i = 0; i < 5; i++) {
+            machine.update();
+        }
+        assertEquals(5, goCalls);
+    }
+
+    @Test
+    void transitionsUnlessTheGuardIsTrue() {
+        ready = true;
+        machine.update();
+        assertEquals(TestState.READY, machine.getState());
+
+        ready = false;
+        machine.update();
+        assertEquals(TestState.IDLE, machine.getState());
+    }
+
+    @Test
+    void noMatchingTransitionStaysInTheState() {
+        machine.update();
+        assertEquals(TestState.IDLE, machine.getState());
+        assertEquals(0, machine.getTransitionCount());
+    }
+
+    @Test
+    void setStateResetsTheTimeInState() {
+        SimHooks.stepTiming(0.5);
+        assertEquals(0.5, machine.getTimeInState(), 1e-3);
+
+        machine.setState(TestState.DONE);
+        assertEquals(TestState.DONE, machine.getState());
+        assertEquals(0, machine.getTimeInState(), 1e-3);
+        assertTrue(machine.isState(TestState.DONE).getAsBoolean());
+        assertFalse(machine.isState(TestState.IDLE).getAsBoolean());
+
+        // Setting the current state isn't a transition
+        machine.setState(TestState.DONE);
+        assertEquals(1, machine.getTransitionCount());
+    }
+
+    @Test
+    void selfTransitionsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> machine.addTransition(TestState.IDLE, TestState.IDLE, readyGuard));
+    }
+}
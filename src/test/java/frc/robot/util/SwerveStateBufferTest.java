@@ -0,0 +1,120 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import com.ctre.phoenix6.swerve.SwerveDrivetrain.SwerveDriveState;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+class SwerveStateBufferTest {
+
+    private static final int MODULES = 4;
+
+    // Fills every field of a state from one number, so a torn copy can be spotted
+    private static void fill(SwerveDriveState state, double value) {
+        state.Pose = new Pose2d(value, value, Rotation2d.kZero);
+        state.Speeds.vxMetersPerSecond = value;
+        state.Speeds.vyMetersPerSecond = value;
+        state.Speeds.omegaRadiansPerSecond = value;
+        for (int i = 0; i < MODULES; i++) {
+            state.ModuleStates[i].speedMetersPerSecond = value;
+            state.ModuleTargets[i].speedMetersPerSecond = value;
+            state.ModulePositions[i].distanceMeters = value;
+        }
+        state.Timestamp = value;
+    }
+
+    private static void assertConsistent(SwerveDriveState state, double value) {
+        assertEquals(value, state.Pose.getX());
+        assertEquals(value, state.Speeds.vxMetersPerSecond);
+        assertEquals(value, state.Speeds.omegaRadiansPerSecond);
+        for (int i = 0; i < MODULES; i++) {
+            assertEquals(value, state.ModuleStates[i].speedMetersPerSecond);
+            assertEquals(value, state.ModuleTargets[i].speedMetersPerSecond);
+            assertEquals(value, state.ModulePositions[i].distanceMeters);
+        }
+        assertEquals(value, state.Timestamp);
+    }
+
+    @Test
+    void readBeforePublishReturnsNothing() {
+        SwerveStateBuffer buffer = new SwerveStateBuffer(MODULES);
+        SwerveDriveState out = SwerveStateBuffer.createState(MODULES);
+
+        assertEquals(-1, buffer.read(out));
+        assertFalse(buffer.read(0, out));
+    }
+
+    @Test
+    void readCopiesTheNewestSnapshot() {
+        SwerveStateBuffer buffer = new SwerveStateBuffer(MODULES);
+        SwerveDriveState source = SwerveStateBuffer.createState(MODULES);
+        SwerveDriveState out = SwerveStateBuffer.createState(MODULES);
+
+        for (int i = 0; i < 3; i++) {
+            fill(source, i);
+            buffer.publish(source);
+        }
+        assertEquals(2, buffer.read(out));
+        assertConsistent(out, 2);
+
+        // The copy belongs to the reader, so later publishes don't change it
+        fill(source, 3);
+        buffer.publish(source);
+        assertConsistent(out, 2);
+    }
+
+    @Test
+    void readsOlderSnapshotsUntilTheyCouldBeOverwritten() {
+        SwerveStateBuffer buffer = new SwerveStateBuffer(MODULES);
+        SwerveDriveState source = SwerveStateBuffer.createState(MODULES);
+        SwerveDriveState out = SwerveStateBuffer.createState(MODULES);
+
+        for (int i = 0; i < 40; i++) {
+            fill(source, i);
+            buffer.publish(source);
+        }
+        long newest = buffer.getSequence();
+        assertEquals(39, newest);
+
+        assertTrue(buffer.read(newest - 5, out));
+        assertConsistent(out, 34);
+        long oldest = newest - (SwerveStateBuffer.SLOTS - 2);
+        assertTrue(buffer.read(oldest, out));
+        assertConsistent(out, oldest);
+        // The slot after the newest one is next to be written, so it's never read
+        assertFalse(buffer.read(oldest - 1, out));
+        assertFalse(buffer.read(newest + 1, out));
+    }
+
+    @Test
+    void concurrentReadsAreNeverTorn() throws InterruptedException {
+        SwerveStateBuffer buffer = new SwerveStateBuffer(MODULES);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            SwerveDriveState source = SwerveStateBuffer.createState(MODULES);
+            for (int i = 0; running.get(); i++) {
+                fill(source, i);
+                buffer.publish(source);
+            }
+        });
+        writer.start();
+
+        try {
+            SwerveDriveState out = SwerveStateBuffer.createState(MODULES);
+            long reads = 0;
+            long deadline = System.nanoTime() + 500_000_000L;
+            while (System.nanoTime() < deadline) {
+                long sequence = buffer.read(out);
+                if (sequence < 0) continue;
+                assertConsistent(out, sequence);
+                reads++;
+            }
+            assertTrue(reads > 0);
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package frc.robot.util.simulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+
+class GamePieceGridTest {
+
+    private final GamePieceGrid grid = new GamePieceGrid("Coral", 1);
+    private final List<GamePieceGrid.Entry> results = new ArrayList<>();
+
+    private static Pose3d pose(double x, double y) {
+        return new Pose3d(x, y, 0, Rotation3d.kZero);
+    }
+
+    @Test
+    void radiusQueriesFindOnlyNearbyPieces() {
+        grid.add(new Object(), pose(2, 2));
+        grid.add(new Object(), pose(2.5, 2.5));
+        grid.add(new Object(), pose(8, 4));
+
+        grid.queryRadius(2, 2, 1, results);
+        assertEquals(2, results.size());
+
+        results.clear();
+        grid.queryRadius(8, 4, 0.1, results);
+        assertEquals(1, results.size());
+        assertEquals(8, results.get(0).getX());
+    }
+
+    @Test
+    void fovQueriesOnlyFindPiecesInFront() {
+        grid.add(new Object(), pose(3, 2));
+        // Behind the camera
+        grid.add(new Object(), pose(1, 2));
+        // Outside a 90 degree field of view
+        grid.add(new Object(), pose(3, 4));
+
+        grid.queryFov(2, 2, 0, Math.PI / 4, 3, results);
+        assertEquals(1, results.size());
+        assertEquals(3, results.get(0).getX());
+    }
+
+    @Test
+    void movedPiecesChangeCells() {
+        Object piece = new Object();
+        grid.add(piece, pose(2, 2));
+        grid.move(piece, pose(10, 5));
+
+        grid.queryRadius(2, 2, 1, results);
+        assertTrue(results.isEmpty());
+        grid.queryRadius(10, 5, 1, results);
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    void removingAPieceKeepsTheOthers() {
+        Object first = new Object(), second = new Object(), third = new Object();
+        grid.add(first, pose(1, 1));
+        grid.add(second, pose(2, 2));
+        grid.add(third, pose(3, 3));
+
+        grid.remove(first);
+        // Already gone
+        grid.remove(first);
+        assertEquals(2, grid.size());
+        // The last piece took the removed one's place, and can still be removed
+        grid.remove(third);
+        assertArrayEquals(new Pose3d[] { pose(2, 2) }, grid.getPoses());
+
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertEquals(0, grid.getPoses().length);
+    }
+
+    @Test
+    void theVersionOnlyChangesWithThePieces() {
+        Object piece = new Object();
+        grid.add(piece, pose(2, 2));
+        int version = grid.getVersion();
+        Pose3d[] poses = grid.getPoses();
+
+        grid.move(piece, pose(2, 2));
+        // Adding a piece twice doesn't track it twice
+        grid.add(piece, pose(5, 5));
+        assertEquals(version, grid.getVersion());
+        assertSame(poses, grid.getPoses());
+        assertEquals(1, grid.size());
+
+        grid.move(piece, pose(2.1, 2));
+        assertNotEquals(version, grid.getVersion());
+    }
+
+    @Test
+    void piecesOffTheFieldAreKeptAtTheEdge() {
+        grid.add(new Object(), pose(-1, -1));
+        grid.queryRadius(0, 0, 1.5, results);
+        assertEquals(1, results.size());
+    }
+}
@@ -0,0 +1,83 @@
+package frc.robot.util.simulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import edu.wpi.first.math.geometry.Pose2d;
+
+class LockstepSimTest {
+
+    private static final Pattern FINAL_POSE = Pattern.compile("Final pose: \\(([-\\d.]+), ([-\\d.]+), ([-\\d.]+) deg\\)");
+
+    @Test
+    void anAutoRunsInSimulatedTime() {
+        try (LockstepSim sim = new LockstepSim(180)) {
+            assertTrue(LockstepSim.isActive());
+            sim.selectAuto("Left Barge - Optimized");
+            // Give the robot a moment disabled, so the auto selection is picked up
+            sim.run(0.5);
+            Pose2d start = sim.getRobot().getSimPose();
+            double startTime = sim.getTime();
+
+            sim.enableAutonomous();
+            sim.run(15);
+            sim.disable();
+            sim.run(LockstepSim.STEP);
+
+            assertEquals(15 + LockstepSim.STEP, sim.getTime() - startTime, 1e-6);
+            assertTrue(SimLogic.coralScored > 0);
+            assertTrue(sim.getRobot().getSimPose().getTranslation().getDistance(start.getTranslation()) > 1);
+        }
+        assertFalse(LockstepSim.isActive());
+    }
+
+    @Test
+    void theSameSeedGivesTheSameRun() throws IOException, InterruptedException {
+        // Only one lockstep simulation can run per JVM, so each run gets its own
+        List<String> first = runInNewJvm("Left Barge - Optimized", "8", "180");
+        List<String> second = runInNewJvm("Left Barge - Optimized", "8", "180");
+
+        assertEquals(find(first, "Coral scored: "), find(second, "Coral scored: "));
+        Matcher firstPose = FINAL_POSE.matcher(find(first, "Final pose: "));
+        Matcher secondPose = FINAL_POSE.matcher(find(second, "Final pose: "));
+        assertTrue(firstPose.matches());
+        assertTrue(secondPose.matches());
+        assertEquals(Double.parseDouble(firstPose.group(1)), Double.parseDouble(secondPose.group(1)), 0.02);
+        assertEquals(Double.parseDouble(firstPose.group(2)), Double.parseDouble(secondPose.group(2)), 0.02);
+        assertEquals(Double.parseDouble(firstPose.group(3)), Double.parseDouble(secondPose.group(3)), 1);
+    }
+
+    private static String find(List<String> output, String prefix) {
+        return output.stream().filter(line -> line.startsWith(prefix)).findFirst()
+            .orElseGet(() -> fail("No \"" + prefix + "\" in " + output));
+    }
+
+    private static List<String> runInNewJvm(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Djava.library.path=" + System.getProperty("java.library.path"));
+        command.add(LockstepSim.class.getName());
+        command.addAll(List.of(args));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                output.add(line);
+            }
+        }
+        assertTrue(process.waitFor(120, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), () -> String.join("\n", output));
+        return output;
+    }
+}